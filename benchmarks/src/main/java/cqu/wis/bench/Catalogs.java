@@ -0,0 +1,36 @@
+package cqu.wis.bench;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic catalogs of single malts for the benchmarks.
+ *
+ * A catalog of a given size is always the same, so results of different runs are comparable.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class Catalogs {
+
+    static final String[] REGIONS = {"Highland", "Lowland", "Speyside", "Islay", "Islands", "Campbeltown"};
+
+    private Catalogs() {
+    }
+
+    /**
+     * Generates a catalog with distinct (distillery, age) keys and realistic ages and prices.
+     *
+     * @param size the number of malts
+     * @return the malts, in no particular order
+     */
+    static WhiskeyDetails[] generate(int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        WhiskeyDetails[] malts = new WhiskeyDetails[size];
+        for (int i = 0; i < size; i++) {
+            int distillery = i / 4;
+            malts[i] = new WhiskeyDetails("Distillery " + distillery, 8 + 4 * (i % 4) + random.nextInt(4),
+                    REGIONS[distillery % REGIONS.length], 30 + random.nextInt(470));
+        }
+        return malts;
+    }
+}
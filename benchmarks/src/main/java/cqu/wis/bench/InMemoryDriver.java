@@ -0,0 +1,194 @@
+package cqu.wis.bench;
+
+import cqu.wis.data.FakeJdbc;
+import cqu.wis.data.InMemoryWhiskeyRepository;
+import cqu.wis.data.RegionStats;
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import cqu.wis.data.WhiskeyRepository;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver for the MySQL URL of {@link cqu.wis.data.WhiskeyData} that answers queries from an in-memory
+ * table, so the result set handling of the data classes can be measured without a database.
+ *
+ * The queries of the data classes are recognised by their text and answered by scanning the table: the
+ * count, distinct name and region statistics queries from the whole table, and the record queries with
+ * their region, age, price and distillery prefix filters, keyset bounds, ordering and {@code LIMIT}
+ * applied, so paging reads one page rather than the table. The change log is always empty. The
+ * connections, statements and result sets are those of the {@link FakeJdbc} test fixture, which the
+ * benchmarks take from the test-jar of the application.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class InMemoryDriver implements Driver {
+
+    private static final InMemoryDriver INSTANCE = new InMemoryDriver();
+
+    /** The rows of the table in (distillery, age) order, the order of the paging queries. */
+    private volatile WhiskeyDetails[] table = new WhiskeyDetails[0];
+    private final FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> respond(sql, parameters, table));
+
+    private InMemoryDriver() {
+    }
+
+    /**
+     * Registers the driver, if it is not registered yet, and sets the rows of the table queries read.
+     *
+     * @param rows the rows of the table
+     * @throws SQLException if the driver cannot be registered
+     */
+    static synchronized void serve(WhiskeyDetails[] rows) throws SQLException {
+        if (DriverManager.drivers().noneMatch(d -> d == INSTANCE)) {
+            DriverManager.registerDriver(INSTANCE);
+        }
+        WhiskeyDetails[] sorted = rows.clone();
+        Arrays.sort(sorted, WhiskeyRepository.KEY_ORDER);
+        INSTANCE.table = sorted;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        return acceptsURL(url) ? jdbc.connect() : null;
+    }
+
+    /**
+     * Answers one query of the data classes from the table.
+     *
+     * @param sql the SQL text of the statement
+     * @param parameters the bound parameters in order of their index
+     * @param rows the table in (distillery, age) order
+     * @return the result set of the query
+     * @throws SQLException if the query is not one the data classes make
+     */
+    private static ResultSet respond(String sql, List<Object> parameters, WhiskeyDetails[] rows) throws SQLException {
+        if (sql.contains("SINGLEMALTS_CHANGES")) {
+            return sql.startsWith("SELECT COALESCE(MAX(VERSION)")
+                    ? FakeJdbc.rows(List.of("VERSION"), List.of(List.of(0L)))
+                    : FakeJdbc.rows(List.of("VERSION", "DISTILLERY", "AGE", "REGION", "PRICE"), List.of());
+        }
+        if (sql.contains("GROUP BY REGION")) {
+            return regionStats(rows);
+        }
+        if (sql.startsWith("SELECT COUNT(*)")) {
+            return FakeJdbc.rows(List.of("N"), List.of(List.of(rows.length)));
+        }
+        if (sql.startsWith("SELECT DISTINCT ")) {
+            String column = sql.substring("SELECT DISTINCT ".length(), sql.indexOf(' ', "SELECT DISTINCT ".length()));
+            List<List<Object>> names = Arrays.stream(rows)
+                    .map(d -> column.equals("REGION") ? d.region() : d.distillery())
+                    .distinct().<List<Object>>map(List::of).toList();
+            return FakeJdbc.rows(List.of(column), names);
+        }
+        if (!sql.startsWith("SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS")) {
+            throw new SQLException("Unsupported query: " + sql);
+        }
+        return FakeJdbc.rows(FakeJdbc.WHISKEY_COLUMNS, select(sql, parameters.iterator(), rows));
+    }
+
+    /**
+     * Applies the filters, keyset bound, ordering and limit of a record query, taking their parameters in
+     * the order the data classes bind them.
+     */
+    private static List<List<Object>> select(String sql, Iterator<Object> parameters, WhiskeyDetails[] rows) {
+        List<Predicate<WhiskeyDetails>> filters = new ArrayList<>();
+        if (sql.contains("REGION = ?")) {
+            String region = (String) parameters.next();
+            filters.add(d -> d.region().equalsIgnoreCase(region));
+        }
+        if (sql.contains("REGION IN (")) {
+            Set<String> regions = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            int from = sql.indexOf("REGION IN (");
+            long n = sql.substring(from, sql.indexOf(')', from)).chars().filter(c -> c == '?').count();
+            for (long i = 0; i < n; i++) {
+                regions.add((String) parameters.next());
+            }
+            filters.add(d -> regions.contains(d.region()));
+        }
+        if (sql.contains("AGE BETWEEN ? AND ?")) {
+            int lower = (Integer) parameters.next();
+            int upper = (Integer) parameters.next();
+            filters.add(d -> d.age() >= lower && d.age() <= upper);
+        }
+        if (sql.contains("PRICE BETWEEN ? AND ?")) {
+            int lower = (Integer) parameters.next();
+            int upper = (Integer) parameters.next();
+            filters.add(d -> d.price() >= lower && d.price() <= upper);
+        }
+        if (sql.contains("DISTILLERY LIKE ?")) {
+            String pattern = (String) parameters.next();
+            String prefix = pattern.substring(0, pattern.length() - 1).replaceAll("!(.)", "$1");
+            filters.add(d -> d.distillery().regionMatches(true, 0, prefix, 0, prefix.length()));
+        }
+        boolean after = sql.contains("(DISTILLERY, AGE) > (?, ?)");
+        if (after || sql.contains("(DISTILLERY, AGE) < (?, ?)")) {
+            WhiskeyDetails key = new WhiskeyDetails((String) parameters.next(), (Integer) parameters.next(), null, 0);
+            filters.add(d -> Integer.signum(WhiskeyRepository.KEY_ORDER.compare(d, key)) == (after ? 1 : -1));
+        }
+        boolean descending = sql.contains("ORDER BY DISTILLERY DESC");
+        int limit = sql.endsWith("LIMIT ?") ? (Integer) parameters.next() : Integer.MAX_VALUE;
+
+        List<List<Object>> result = new ArrayList<>();
+        for (int i = 0; i < rows.length && result.size() < limit; i++) {
+            WhiskeyDetails d = rows[descending ? rows.length - 1 - i : i];
+            if (filters.stream().allMatch(f -> f.test(d))) {
+                result.add(List.of(d.distillery(), d.age(), d.region(), d.price()));
+            }
+        }
+        return result;
+    }
+
+    private static ResultSet regionStats(WhiskeyDetails[] rows) throws SQLException {
+        List<List<Object>> values = new ArrayList<>();
+        for (RegionStats r : new InMemoryWhiskeyRepository(List.of(rows)).getRegionStats()) {
+            values.add(List.of(r.region(), r.count(), r.minPrice(), r.maxPrice(), r.averagePrice(), r.medianPrice(),
+                    r.minAge(), r.maxAge(), r.averageAge(), r.medianAge()));
+        }
+        return FakeJdbc.rows(List.of("REGION", "N", "MIN_PRICE", "MAX_PRICE", "AVG_PRICE", "MEDIAN_PRICE",
+                "MIN_AGE", "MAX_AGE", "AVG_AGE", "MEDIAN_AGE"), values);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url.startsWith("jdbc:mysql:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,331 @@
+package cqu.wis.bench;
+
+import cqu.wis.data.CachingWhiskeyRepository;
+import cqu.wis.data.CoalescingWhiskeyRepository;
+import cqu.wis.data.InMemoryUserRepository;
+import cqu.wis.data.InMemoryWhiskeyRepository;
+import cqu.wis.data.UserData.UserDetails;
+import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import cqu.wis.data.WhiskeyQuery;
+import cqu.wis.data.WhiskeyRepository;
+import cqu.wis.data.WhiskeySnapshot;
+import cqu.wis.roles.UserDataManager;
+import cqu.wis.roles.UserDataValidator;
+import cqu.wis.roles.ValidationResponse;
+import cqu.wis.roles.WhiskeyDataManager;
+import cqu.wis.roles.WhiskeyDataValidator;
+import cqu.wis.roles.WhiskeyDataValidator.RangeValidationResponse;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates many analysts using the application at once, without JavaFX.
+ *
+ * Each simulated analyst runs on its own virtual thread and repeats a session: it logs in the way
+ * {@code LoginController.handleLogin} does, then issues a number of queries the way the {@code QueryController}
+ * handlers do, each validated with {@link WhiskeyDataValidator} and run through its own {@link WhiskeyDataManager},
+ * pausing for a random think time between steps. Every analyst shares one {@link UserDataManager}, whiskey
+ * repository and background executor, as the sessions of one application would share a database, and the
+ * executor is closed at the end of the run.
+ *
+ * The database is replaced by a stand-in holding a synthetic catalog: the in-memory repositories, or
+ * {@link WhiskeyData} reading from the {@link InMemoryDriver} behind the same cache layers as the application.
+ * At the end, the throughput, errors and latency percentiles of each operation are printed.
+ *
+ * Options, given as {@code name=value} arguments:
+ * <pre>
+ * users=50        number of concurrent analysts
+ * duration=60     length of the run in seconds
+ * think=500       mean think time between steps in milliseconds, 0 for none
+ * queries=10      queries per session before logging in again
+ * size=10000      number of malts in the catalog
+ * backend=memory  memory, jdbc or snapshot
+ * </pre>
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class LoadGenerator {
+
+    private static final String PASSWORD = "Analyst#2024";
+    private static final int PAGE_SIZE = 50;
+    private static final String[] OPERATIONS = {
+        "allMalts", "regionMalts", "ageRangeMalts", "priceRangeMalts", "matchingMalts", "suggest", "next", "previous"
+    };
+
+    private final int users;
+    private final int queries;
+    private final long thinkMillis;
+    private final WhiskeyRepository wd;
+    private final UserDataManager udm;
+    private final UserDataValidator udv = new UserDataValidator();
+    private final WhiskeyDataValidator wdv = new WhiskeyDataValidator();
+    private final String[] distilleries;
+    private final Map<String, Stats> stats = new TreeMap<>();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("LOAD-db-", 0).factory());
+
+    private LoadGenerator(Map<String, String> options) throws SQLException {
+        users = Integer.parseInt(options.getOrDefault("users", "50"));
+        queries = Integer.parseInt(options.getOrDefault("queries", "10"));
+        thinkMillis = Long.parseLong(options.getOrDefault("think", "500"));
+        WhiskeyDetails[] catalog = Catalogs.generate(Integer.parseInt(options.getOrDefault("size", "10000")));
+        distilleries = Arrays.stream(catalog).map(WhiskeyDetails::distillery).distinct().toArray(String[]::new);
+
+        List<UserDetails> accounts = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            accounts.add(new UserDetails(username(i), udv.generateSHA1(PASSWORD)));
+        }
+        InMemoryUserRepository ud = new InMemoryUserRepository(accounts);
+        ud.connect();
+        udm = new UserDataManager(ud, executor);
+
+        String backend = options.getOrDefault("backend", "memory");
+        wd = switch (backend) {
+            case "memory" -> new InMemoryWhiskeyRepository(List.of(catalog));
+            case "jdbc" -> {
+                InMemoryDriver.serve(catalog);
+                yield new CachingWhiskeyRepository(new CoalescingWhiskeyRepository(new WhiskeyData()));
+            }
+            case "snapshot" -> new WhiskeySnapshot(new InMemoryWhiskeyRepository(List.of(catalog)));
+            default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+        };
+        wd.connect();
+        new WhiskeyDataManager(wd, executor).loadKnownNames(wdv);
+
+        stats.put("login", new Stats());
+        for (String op : OPERATIONS) {
+            stats.put(op, new Stats());
+        }
+    }
+
+    /**
+     * Runs the load test and prints the results.
+     *
+     * @param args options as {@code name=value} pairs
+     * @throws Exception if the stand-in database cannot be set up or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                System.err.println("Usage: LoadGenerator [users=n] [duration=s] [think=ms] [queries=n] [size=n] "
+                        + "[backend=memory|jdbc|snapshot]");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "60")));
+
+        LoadGenerator generator = new LoadGenerator(options);
+        System.out.printf("Running %d analysts for %d s, think time %d ms, backend %s%n", generator.users,
+                TimeUnit.NANOSECONDS.toSeconds(durationNanos), generator.thinkMillis,
+                options.getOrDefault("backend", "memory"));
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        List<Thread> analysts = new ArrayList<>();
+        for (int i = 0; i < generator.users; i++) {
+            String user = username(i);
+            analysts.add(Thread.ofVirtual().name("ANALYST-" + i).start(() -> generator.runAnalyst(user, deadline)));
+        }
+        for (Thread t : analysts) {
+            t.join();
+        }
+        generator.report(System.nanoTime() - start);
+        generator.executor.close();
+        generator.wd.disconnect();
+    }
+
+    /**
+     * Returns the username of the given analyst, spelled with letters only as usernames must be.
+     *
+     * @param i the analyst's number
+     * @return the username, for example {@code analystab}
+     */
+    private static String username(int i) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return "analyst" + sb;
+    }
+
+    /**
+     * Repeats sessions of one analyst until the deadline.
+     *
+     * @param user the analyst's username
+     * @param deadline the {@link System#nanoTime()} at which to stop
+     */
+    private void runAnalyst(String user, long deadline) {
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd, executor);
+        try {
+            while (System.nanoTime() < deadline) {
+                if (!time("login", () -> login(user))) {
+                    think();
+                    continue;
+                }
+                for (int i = 0; i < queries && System.nanoTime() < deadline; i++) {
+                    think();
+                    String op = OPERATIONS[ThreadLocalRandom.current().nextInt(OPERATIONS.length)];
+                    time(op, () -> query(op, wdm));
+                }
+                think();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** One timed step of a session. */
+    @FunctionalInterface
+    private interface Step {
+        boolean run() throws Exception;
+    }
+
+    /**
+     * Runs a step and records its latency, and whether it failed or was rejected.
+     *
+     * @param op the operation name
+     * @param step the step to run
+     * @return {@code true} if the step succeeded
+     */
+    private boolean time(String op, Step step) {
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = step.run();
+        } catch (Exception e) {
+            ok = false;
+        }
+        stats.get(op).record(System.nanoTime() - start, ok);
+        return ok;
+    }
+
+    private boolean login(String user) {
+        ValidationResponse fieldsCheck = udv.checkForFieldsPresent(user, PASSWORD);
+        if (!fieldsCheck.result()) {
+            return false;
+        }
+        UserDetails details = udm.findUserAsync(user).join();
+        return udv.checkCurrentDetails(details, user, PASSWORD).result() && !details.hasDefaultPassword();
+    }
+
+    private boolean query(String op, WhiskeyDataManager wdm) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String region = Catalogs.REGIONS[random.nextInt(Catalogs.REGIONS.length)];
+        switch (op) {
+            case "allMalts" -> {
+                wdm.findAllMaltsPagedAsync(PAGE_SIZE).join();
+                wdm.findRegionStatsAsync().join();
+            }
+            case "regionMalts" -> {
+                if (!wdv.checkRegion(region).result()) {
+                    return false;
+                }
+                wdm.findMaltsFromRegionAsync(region, null).join();
+                wdm.findRegionStatsAsync().join();
+            }
+            case "ageRangeMalts" -> {
+                int lower = 8 + random.nextInt(10);
+                RangeValidationResponse v = wdv.checkAgeRange(String.valueOf(lower), String.valueOf(lower + 4));
+                if (!v.result()) {
+                    return false;
+                }
+                wdm.findMaltsInAgeRangeAsync(v.r().lower(), v.r().upper(), null).join();
+            }
+            case "priceRangeMalts" -> {
+                int lower = 30 + random.nextInt(400);
+                RangeValidationResponse v = wdv.checkPriceRange(String.valueOf(lower), String.valueOf(lower + 50));
+                if (!v.result()) {
+                    return false;
+                }
+                wdm.findMaltsInPriceRangeAsync(v.r().lower(), v.r().upper()).join();
+            }
+            case "matchingMalts" -> {
+                RangeValidationResponse age = wdv.checkAgeRange("10", "18");
+                RangeValidationResponse price = wdv.checkPriceRange("", "200");
+                if (!wdv.checkRegion(region).result() || !age.result() || !price.result()) {
+                    return false;
+                }
+                wdm.findMaltsMatchingAsync(WhiskeyQuery.ALL.withRegions(List.of(region))
+                        .withAgeRange(age.r().lower(), age.r().upper())
+                        .withPriceRange(price.r().lower(), price.r().upper())).join();
+            }
+            case "suggest" -> {
+                String name = distilleries[random.nextInt(distilleries.length)];
+                wdm.suggestDistilleriesAsync(name.substring(0, Math.min(name.length(), 1 + random.nextInt(12))), 8)
+                        .join();
+            }
+            case "next" -> wdm.nextAsync().join();
+            case "previous" -> wdm.previousAsync().join();
+            default -> throw new IllegalArgumentException(op);
+        }
+        return true;
+    }
+
+    private void think() throws InterruptedException {
+        if (thinkMillis > 0) {
+            double pause = -thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+            Thread.sleep((long) pause);
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-16s %8s %7s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        stats.forEach((op, s) -> {
+            long[] latencies = s.sorted();
+            System.out.printf("%-16s %8d %7d %10.1f %10.3f %10.3f %10.3f %10.3f%n", op, latencies.length, s.errors(),
+                    latencies.length / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), percentile(latencies, 1.0));
+        });
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(rank, 0)] / 1e6;
+    }
+
+    /** The latencies and error count of one operation. */
+    private static final class Stats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] result = Arrays.copyOf(latencies, count);
+            Arrays.sort(result);
+            return result;
+        }
+
+        synchronized int errors() {
+            return errors;
+        }
+    }
+}
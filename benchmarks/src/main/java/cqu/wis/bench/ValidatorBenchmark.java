@@ -0,0 +1,65 @@
+package cqu.wis.bench;
+
+import cqu.wis.roles.UserDataValidator;
+import cqu.wis.roles.WhiskeyDataValidator;
+import cqu.wis.roles.WhiskeyDataValidator.RangeValidationResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the input checks run on every query and password change: the age range check of
+ * {@link WhiskeyDataValidator} and the password hash of {@link UserDataValidator}.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    /** Length of the password hashed. */
+    @Param({"8", "64"})
+    private int passwordLength;
+
+    private final WhiskeyDataValidator wdv = new WhiskeyDataValidator();
+    private final UserDataValidator udv = new UserDataValidator();
+    private String password;
+
+    @Setup
+    public void setUp() {
+        password = "p4ssw0rd".repeat(passwordLength / 8);
+    }
+
+    @Benchmark
+    public RangeValidationResponse checkAgeRange() {
+        return wdv.checkAgeRange("10", "18");
+    }
+
+    @Benchmark
+    public RangeValidationResponse checkAgeRangeOpenUpper() {
+        return wdv.checkAgeRange("12", "");
+    }
+
+    @Benchmark
+    public RangeValidationResponse checkAgeRangeInvalid() {
+        return wdv.checkAgeRange("twelve", "8");
+    }
+
+    @Benchmark
+    public String generateSHA1() {
+        return udv.generateSHA1(password);
+    }
+}
@@ -0,0 +1,58 @@
+package cqu.wis.bench;
+
+import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading a result set into {@link WhiskeyDetails} records, the work
+ * {@link WhiskeyData#getAllMalts()} does once the database has answered. Rows come from the
+ * {@link InMemoryDriver}, so the cost measured is the pooled statement and the row conversion alone.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhiskeyDataBenchmark {
+
+    /** Number of rows in the result set. */
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    private WhiskeyData wd;
+
+    @Setup
+    public void setUp() throws SQLException {
+        InMemoryDriver.serve(Catalogs.generate(size));
+        wd = new WhiskeyData();
+        wd.connect();
+    }
+
+    @TearDown
+    public void tearDown() {
+        wd.disconnect();
+    }
+
+    @Benchmark
+    public List<WhiskeyDetails> getAllMalts() throws SQLException {
+        return wd.getAllMalts();
+    }
+}
@@ -0,0 +1,64 @@
+package cqu.wis.bench;
+
+import cqu.wis.data.InMemoryWhiskeyRepository;
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import cqu.wis.roles.WhiskeyDataManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks stepping through a loaded result with {@link WhiskeyDataManager#next()} and
+ * {@link WhiskeyDataManager#previous()}, both for a fully loaded result and for all malts browsed in pages.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhiskeyDataManagerBenchmark {
+
+    /** Number of malts in the result. */
+    @Param({"1000", "100000"})
+    private int size;
+
+    /** {@code true} to browse in pages of 50 rather than hold the whole result. */
+    @Param({"false", "true"})
+    private boolean paged;
+
+    private WhiskeyDataManager wdm;
+
+    @Setup
+    public void setUp() throws Exception {
+        WhiskeyDetails[] malts = Catalogs.generate(size);
+        wdm = new WhiskeyDataManager(new InMemoryWhiskeyRepository(List.of(malts)));
+        if (paged) {
+            wdm.findAllMaltsPaged(50);
+        } else {
+            wdm.setDetails(malts);
+        }
+    }
+
+    @Benchmark
+    public WhiskeyDetails next() {
+        return wdm.next();
+    }
+
+    @Benchmark
+    public WhiskeyDetails previous() {
+        return wdm.previous();
+    }
+}
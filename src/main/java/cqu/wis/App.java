@@ -1,7 +1,18 @@
 package cqu.wis;
 
+import cqu.wis.data.CachingWhiskeyRepository;
+import cqu.wis.data.CoalescingWhiskeyRepository;
+import cqu.wis.data.FileUserRepository;
+import cqu.wis.data.FileWhiskeyRepository;
+import cqu.wis.data.InMemoryUserRepository;
+import cqu.wis.data.InMemoryWhiskeyRepository;
+import cqu.wis.data.MappedWhiskeyRepository;
 import cqu.wis.data.UserData;
+import cqu.wis.data.UserRepository;
 import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeyRepository;
+import cqu.wis.data.WhiskeySnapshot;
+import cqu.wis.roles.DatabaseExecutor;
 import cqu.wis.roles.SceneCoordinator;
 import cqu.wis.roles.SceneCoordinator.SceneKey;
 import cqu.wis.roles.UserDataManager;
@@ -13,10 +24,21 @@ import cqu.wis.view.PasswordController;
 import cqu.wis.view.QueryController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Main application entry point for the Whiskey Information System.
@@ -37,57 +59,118 @@ import java.io.IOException;
  */
 public class App extends Application {
 
+    /** Whether startup diagnostics are printed, set with {@code -Dwis.startup.timings=true}. */
+    private static final boolean STARTUP_TIMINGS = Boolean.getBoolean("wis.startup.timings");
+
     /**
      * Initializes the JavaFX application.
      * 
      * This method:
-     * Creates and connects the data models: {@link WhiskeyData} and {@link UserData}
+     * Creates and connects the data models of the configured backend: {@link WhiskeyData} and {@link UserData},
+     * their in-memory or file-backed equivalents, or a {@link WhiskeySnapshot} of the whiskey data
      * Initializes managers and validators for both whiskey and user data
-     * Loads the FXML layouts for each scene
-     * Injects dependencies into each scene’s controller
-     * Registers scenes in the {@link SceneCoordinator} and starts the application with the login scene
+     * Connects the data models concurrently, on background threads
+     * Registers a factory for each scene in the {@link SceneCoordinator}, which loads its FXML layout and
+     * injects dependencies into the scene’s controller
+     * Preloads the login scene and shows it as soon as it and the user data are ready, then preloads the query scene
+     * Logs how long each startup phase took, when run with {@code -Dwis.startup.timings=true}
+     * 
+     * The method returns before startup completes; if any phase fails the application exits.
      *
      * @param stage the primary stage for this application
      * @throws IOException if an error occurs during loading of the FXML layout
      */
     @Override
     public void start(Stage stage) throws IOException {
-        SceneCoordinator sc = new SceneCoordinator(stage);
+        StartupTimings timings = new StartupTimings();
+        SceneCoordinator sc = new SceneCoordinator(stage, Integer.getInteger("wis.scenes", 2));
 
         try {
             // Initialize data models, managers and validators
-            WhiskeyData wd = new WhiskeyData();
+            // The backend is chosen with -Dwis.backend=jdbc|memory|file|mapped (jdbc by default); the other
+            // backends read whiskeys.csv (or whiskeys.wisc when mapped) and users.csv from the directory given
+            // by -Dwis.data (./data by default).
+            // Serve whiskey queries from an in-memory snapshot when run with -Dwis.snapshot=true,
+            // saved in the data directory as snapshot.wisc (or -Dwis.snapshot.file) so the next start is warm,
+            // and refreshed every -Dwis.sync=<seconds> (60 by default, 0 for never), from the change log
+            // when the database has one and by reloading it otherwise;
+            // without a snapshot, database queries go through a result cache unless run with -Dwis.cache=false;
+            // identical concurrent database queries are collapsed into one.
+            // At most -Dwis.scenes scenes (2 by default) are kept; the least recently shown is rebuilt when needed
+            // Startup phase timings and the time to the first result are printed with -Dwis.startup.timings=true
+            String backend = System.getProperty("wis.backend", "jdbc");
+            Path dataDir = Path.of(System.getProperty("wis.data", "data"));
+            WhiskeyRepository source = createWhiskeyRepository(backend, dataDir);
+            UserRepository ud = createUserRepository(backend, dataDir);
+
+            WhiskeyRepository wd;
+            WhiskeySnapshot snapshot = null;
+            if (Boolean.getBoolean("wis.snapshot")) {
+                snapshot = new WhiskeySnapshot(source);
+                wd = snapshot;
+            } else if (!(source instanceof WhiskeyData)) {
+                wd = source;
+            } else if ("false".equals(System.getProperty("wis.cache"))) {
+                wd = new CoalescingWhiskeyRepository(source);
+            } else {
+                wd = new CachingWhiskeyRepository(new CoalescingWhiskeyRepository(source));
+            }
             WhiskeyDataManager wdm = new WhiskeyDataManager(wd);
             WhiskeyDataValidator wdv = new WhiskeyDataValidator();
 
-            UserData ud = new UserData();
             UserDataManager udm = new UserDataManager(ud);
             UserDataValidator udv = new UserDataValidator();
 
-            // Connect to databases
-            wd.connect();
-            ud.connect();
-
-            // Setup login scene
-            Scene ls = makeScene(SceneKey.LOGIN);
-            LoginController lc = (LoginController) ls.getUserData();
-            lc.inject(sc, udm, udv);
-            sc.addScene(SceneKey.LOGIN, ls);
-
-            // Setup password scene
-            Scene ps = makeScene(SceneKey.PASSWORD);
-            PasswordController pc = (PasswordController) ps.getUserData();
-            pc.inject(sc, udm, udv);
-            sc.addScene(SceneKey.PASSWORD, ps);
-
-            // Setup query scene
-            Scene qs = makeScene(SceneKey.QUERY);
-            QueryController qc = (QueryController) qs.getUserData();
-            qc.inject(sc, wdm, wdv);
-            sc.addScene(SceneKey.QUERY, qs);
-
-            // Start application with login scene
+            // Start up as a graph of phases on virtual threads: both databases connect at the same time as the
+            // login scene is preloaded, and the login scene is shown as soon as it and the user data are ready.
+            // The query scene is preloaded while the user logs in; the password scene is rarely used and is
+            // built when first shown. A snapshot starts warm from the copy saved by the last run, if there is
+            // one, and catches up with the database in the background
+            Executor startup = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("STARTUP-", 0).factory());
+            WhiskeySnapshot ws = snapshot;
+            Path snapshotFile = dataDir.resolve(System.getProperty("wis.snapshot.file", "snapshot.wisc"));
+
+            CompletableFuture<UserRepository> users = timings.supply("connect users", startup, () -> {
+                ud.connect();
+                return ud;
+            });
+            CompletableFuture<String> loadedFrom = new CompletableFuture<>();
+            CompletableFuture<WhiskeyRepository> whiskeys = timings.supply("connect whiskeys", startup, () -> {
+                if (ws != null) {
+                    loadedFrom.complete(startSnapshot(ws, snapshotFile));
+                } else {
+                    wd.connect();
+                    loadedFrom.complete(backend);
+                }
+                // wd is the snapshot itself when one is used, so the query scene gets what serves queries
+                return wd;
+            });
+            loadedFrom.thenAcceptBoth(wdm.getFirstResult(), App::reportStartup);
+
+            // Setup scenes; each factory loads the scene's layout and injects its controller
+            sc.addSceneFactory(SceneKey.LOGIN,
+                    () -> loadScene(SceneKey.LOGIN, (LoginController lc) -> lc.inject(sc, udm, udv)));
+            sc.addSceneFactory(SceneKey.PASSWORD,
+                    () -> loadScene(SceneKey.PASSWORD, (PasswordController pc) -> pc.inject(sc, udm, udv)));
+            sc.addSceneFactory(SceneKey.QUERY,
+                    () -> loadScene(SceneKey.QUERY, (QueryController qc) -> qc.inject(sc, wdm, wdv)));
+
+            // Start application with login scene, shown once it has been preloaded
+            CompletableFuture<Void> login = timings.track("preload login scene", sc.preload(SceneKey.LOGIN, users));
             sc.start(SceneKey.LOGIN);
+            CompletableFuture<Void> query = login.thenCompose(
+                    v -> timings.track("preload query scene", sc.preload(SceneKey.QUERY, whiskeys)));
+
+            CompletableFuture.allOf(login, query).whenComplete((v, e) -> {
+                if (e != null) {
+                    Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+                    System.err.println("Failed to start application: " + cause.getMessage());
+                    System.exit(1);
+                }
+                if (STARTUP_TIMINGS) {
+                    System.out.print(timings.report());
+                }
+            });
 
         } catch (Exception e) {
             System.err.println("Failed to start application: " + e.getMessage());
@@ -96,21 +179,155 @@ public class App extends Application {
     }
 
     /**
-     * Helper method to create and load a {@link Scene} for the given {@link SceneKey}.
+     * Opens the snapshot from the catalog file saved by the last run and refreshes it from its source in the
+     * background, saving the refreshed catalog for the next run. Queries are answered from the saved catalog
+     * until the refresh swaps in the new one. If there is no valid saved catalog, the snapshot is loaded from
+     * its source before the application opens. Refreshing every {@code -Dwis.sync=<seconds>} starts once
+     * the first load or refresh has finished, whether or not it succeeded, so a failed refresh is retried
+     * rather than leaving the saved catalog in place for good.
+     *
+     * @param snapshot the snapshot to open
+     * @param file the saved catalog file
+     * @return where the snapshot was first loaded from
+     * @throws SQLException if there is no saved catalog and the source cannot be loaded
+     */
+    private static String startSnapshot(WhiskeySnapshot snapshot, Path file) throws SQLException {
+        long syncSeconds = Long.getLong("wis.sync", 60);
+        try {
+            snapshot.loadSaved(file);
+        } catch (SQLException e) {
+            System.err.println("No usable saved snapshot, loading from the database: " + e.getMessage());
+            snapshot.connect();
+            saveSnapshot(snapshot, file);
+            if (syncSeconds > 0) {
+                snapshot.startSync(Duration.ofSeconds(syncSeconds));
+            }
+            return "source";
+        }
+
+        long refreshStart = System.nanoTime();
+        DatabaseExecutor.supply(DatabaseExecutor.newExecutor("SNAPSHOT"), snapshot::refresh).whenComplete((count, e) -> {
+            if (e != null) {
+                Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+                System.err.println("Error refreshing snapshot, serving the saved copy: " + cause.getMessage());
+            } else {
+                if (STARTUP_TIMINGS) {
+                    System.out.printf("Snapshot refreshed from the database in %d ms (%d malts)%n",
+                            (System.nanoTime() - refreshStart) / 1_000_000, count);
+                }
+                saveSnapshot(snapshot, file);
+            }
+            if (syncSeconds > 0) {
+                snapshot.startSync(Duration.ofSeconds(syncSeconds));
+            }
+        });
+        return "saved snapshot " + file;
+    }
+
+    /**
+     * Saves the snapshot for the next run, reporting rather than throwing any error.
+     *
+     * @param snapshot the snapshot to save
+     * @param file the catalog file to write
+     */
+    private static void saveSnapshot(WhiskeySnapshot snapshot, Path file) {
+        try {
+            snapshot.save(file);
+        } catch (SQLException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reports how long after the process was launched the first record query returned its records, and
+     * how long that query took, if startup diagnostics are enabled.
+     *
+     * @param from where the whiskey data was loaded from
+     * @param query how long the first record query took
+     */
+    private static void reportStartup(String from, Duration query) {
+        if (!STARTUP_TIMINGS) {
+            return;
+        }
+        long sinceLaunch = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis())
+                .orElse(-1L);
+        System.out.printf("First result %d ms after launch (from %s, first query %d ms)%n",
+                sinceLaunch, from, query.toMillis());
+    }
+
+    /**
+     * Creates the whiskey repository of the given backend.
+     *
+     * @param backend {@code jdbc} for the MySQL database, {@code memory} for an in-memory copy of
+     *        {@code whiskeys.csv} if it exists, {@code file} for {@code whiskeys.csv} itself, or
+     *        {@code mapped} for the memory-mapped catalog file {@code whiskeys.wisc}
+     * @param dataDir the directory of the memory and file backends' data files
+     * @return the repository, not yet connected
+     * @throws SQLException if the data file cannot be read
+     */
+    private static WhiskeyRepository createWhiskeyRepository(String backend, Path dataDir) throws SQLException {
+        Path file = dataDir.resolve("whiskeys.csv");
+        return switch (backend) {
+            case "jdbc" -> new WhiskeyData();
+            case "memory" -> Files.exists(file)
+                    ? new InMemoryWhiskeyRepository(FileWhiskeyRepository.read(file))
+                    : new InMemoryWhiskeyRepository();
+            case "file" -> new FileWhiskeyRepository(file);
+            case "mapped" -> new MappedWhiskeyRepository(dataDir.resolve("whiskeys.wisc"));
+            default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+        };
+    }
+
+    /**
+     * Creates the user repository of the given backend. The memory backend starts from {@code users.csv}
+     * if it exists but never writes password changes back to it.
+     *
+     * @param backend {@code jdbc}, {@code memory}, or {@code file} or {@code mapped}, which both keep
+     *        the accounts in {@code users.csv}
+     * @param dataDir the directory of the memory and file backends' data files
+     * @return the repository, not yet connected
+     * @throws SQLException if the data file cannot be read
+     */
+    private static UserRepository createUserRepository(String backend, Path dataDir) throws SQLException {
+        Path file = dataDir.resolve("users.csv");
+        return switch (backend) {
+            case "jdbc" -> new UserData();
+            case "memory" -> Files.exists(file)
+                    ? new InMemoryUserRepository(FileUserRepository.read(file))
+                    : new InMemoryUserRepository();
+            case "file", "mapped" -> new FileUserRepository(file);
+            default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+        };
+    }
+
+    /**
+     * Helper method to load the root of the scene for the given {@link SceneKey} and inject its controller.
      * 
-     * The FXML file path is constructed as {@code /cqu/wis/view/{sceneKey}.fxml},
-     * and the scene’s controller is set as user data for later injection.
+     * The FXML file path is constructed as {@code /cqu/wis/view/{sceneKey}.fxml}. This may run on a
+     * background thread; the {@link SceneCoordinator} creates the {@link Scene} on the FX thread. Each load is
+     * recorded as an {@link FxmlLoadEvent}.
      *
      * @param key the scene key indicating which scene to load
-     * @return the loaded {@link Scene} object
-     * @throws Exception if an error occurs during FXML loading
+     * @param inject injects the dependencies into the scene's controller
+     * @param <C> the controller type
+     * @return the loaded root of the scene
+     * @throws IOException if an error occurs during FXML loading
      */
-    private static Scene makeScene(SceneKey key) throws Exception {
+    private static <C> Parent loadScene(SceneKey key, Consumer<C> inject) throws IOException {
         String fxml = "/cqu/wis/view/" + key.name().toLowerCase() + ".fxml";
+        FxmlLoadEvent event = new FxmlLoadEvent();
+        event.begin();
         FXMLLoader loader = new FXMLLoader(App.class.getResource(fxml));
-        Scene scene = new Scene(loader.load());
-        scene.setUserData(loader.getController());
-        return scene;
+        Parent root = loader.load();
+        inject.accept(loader.getController());
+        event.end();
+        if (event.shouldCommit()) {
+            event.scene = key.name();
+            event.fxml = fxml;
+            event.commit();
+        }
+        return root;
     }
 
     /**
@@ -0,0 +1,28 @@
+package cqu.wis;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for loading the FXML layout of a scene and injecting its controller, so a
+ * recording shows what each scene costs to build and on which thread it was built.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@Name("cqu.wis.FxmlLoad")
+@Label("FXML Load")
+@Category({"Whiskey Information System", "JavaFX"})
+@Description("The loading of a scene's FXML layout and the injection of its controller")
+@StackTrace(false)
+final class FxmlLoadEvent extends Event {
+
+    @Label("Scene")
+    String scene;
+
+    @Label("FXML")
+    String fxml;
+}
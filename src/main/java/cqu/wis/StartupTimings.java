@@ -0,0 +1,102 @@
+package cqu.wis;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the phases of application startup and records when each one started and how long it took, so the
+ * startup log shows which phases overlapped and which one the login scene waited for.
+ *
+ * Times are measured from the construction of this object, which {@link App#start} creates first.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class StartupTimings {
+
+    /**
+     * A startup phase that produces a result.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface Phase<T> {
+        T run() throws Exception;
+    }
+
+    /** A phase that was run, with its start and end in nanoseconds since the origin. */
+    private record Timing(String name, String thread, long start, long end) {}
+
+    private final long origin = System.nanoTime();
+    private final List<Timing> timings = new ArrayList<>();
+
+    /**
+     * Runs a phase on the given executor and records its timing.
+     *
+     * @param name the name of the phase in the report
+     * @param executor the executor to run the phase on
+     * @param phase the phase to run
+     * @param <T> the result type
+     * @return a future completed with the phase's result, or exceptionally with the exception it threw
+     */
+    <T> CompletableFuture<T> supply(String name, Executor executor, Phase<T> phase) {
+        return CompletableFuture.supplyAsync(() -> time(name, phase), executor);
+    }
+
+    /**
+     * Runs a phase on the calling thread and records its timing.
+     *
+     * @param name the name of the phase in the report
+     * @param phase the phase to run
+     * @param <T> the result type
+     * @return the phase's result
+     * @throws CompletionException wrapping any exception the phase threw
+     */
+    <T> T time(String name, Phase<T> phase) {
+        long start = System.nanoTime() - origin;
+        try {
+            return phase.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            record(new Timing(name, Thread.currentThread().getName(), start, System.nanoTime() - origin));
+        }
+    }
+
+    /**
+     * Records the timing of a phase that runs elsewhere, from now until the given future completes.
+     *
+     * @param name the name of the phase in the report
+     * @param future the future that completes when the phase ends
+     * @param <T> the result type
+     * @return a future completed like the given one once the timing has been recorded
+     */
+    <T> CompletableFuture<T> track(String name, CompletableFuture<T> future) {
+        long start = System.nanoTime() - origin;
+        return future.whenComplete((r, e) ->
+                record(new Timing(name, Thread.currentThread().getName(), start, System.nanoTime() - origin)));
+    }
+
+    /**
+     * Returns a report of the recorded phases in the order they started.
+     *
+     * @return one line per phase with its start, duration and thread
+     */
+    synchronized String report() {
+        long total = timings.stream().mapToLong(Timing::end).max().orElse(0);
+        StringBuilder sb = new StringBuilder(String.format("Startup took %d ms:%n", total / 1_000_000));
+        timings.stream().sorted(Comparator.comparingLong(Timing::start)).forEach(t ->
+                sb.append(String.format("  %-24s at %5d ms, took %5d ms on %s%n",
+                        t.name(), t.start() / 1_000_000, (t.end() - t.start()) / 1_000_000, t.thread())));
+        return sb.toString();
+    }
+
+    private synchronized void record(Timing timing) {
+        timings.add(timing);
+    }
+}
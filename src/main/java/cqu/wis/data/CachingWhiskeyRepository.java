@@ -0,0 +1,184 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link WhiskeyRepository} that keeps recent query results in a {@link ResultCache} in front of another repository.
+ *
+ * Results of the all malts, region, age range, price range, composite filter and paging queries are cached by query name and
+ * parameters. Region names are cached without regard to case, because the database matches them that way.
+ * A multi-region query is answered from the cached regions where possible, and the remaining regions are
+ * fetched from the delegate in one batch and cached individually.
+ * Cached lists are immutable, so the same list can be handed to every caller.
+ * Region statistics are cached under their own key in the same cache, so they expire and are invalidated
+ * together with the record lists they summarise.
+ *
+ * Distillery suggestions come from one long-lived {@link DistilleryIndex} over the distinct distillery names
+ * of the delegate. The index is rebuilt when the cache is invalidated or once it is older than the cache's
+ * time to live, so typing issues no query in between and never reads the whole catalog.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class CachingWhiskeyRepository implements WhiskeyRepository {
+
+    /** Default cache limits: 64 results, 100,000 rows in total, each valid for one minute. */
+    public static final ResultCache.Settings DEFAULT_SETTINGS =
+            new ResultCache.Settings(64, 100_000, Duration.ofMinutes(1));
+
+    private final WhiskeyRepository delegate;
+    private final ResultCache<QueryKey, List<?>> cache;
+    private final DistillerySuggestions distilleries;
+
+    /**
+     * Constructs a new caching repository with the default cache limits.
+     *
+     * @param delegate the repository that answers cache misses
+     */
+    public CachingWhiskeyRepository(WhiskeyRepository delegate) {
+        this(delegate, DEFAULT_SETTINGS);
+    }
+
+    /**
+     * Constructs a new caching repository.
+     *
+     * @param delegate the repository that answers cache misses
+     * @param settings the cache limits; the weight of a result is its number of rows
+     */
+    public CachingWhiskeyRepository(WhiskeyRepository delegate, ResultCache.Settings settings) {
+        this.delegate = delegate;
+        this.cache = new ResultCache<>(settings, List::size);
+        this.distilleries = new DistillerySuggestions(delegate::getDistilleries, cache::getGeneration, settings.ttl());
+    }
+
+    /**
+     * Returns the underlying cache, for example to inspect its statistics or invalidate entries.
+     *
+     * @return the {@link ResultCache}
+     */
+    public ResultCache<QueryKey, List<?>> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void connect() throws SQLException {
+        delegate.connect();
+    }
+
+    /**
+     * Disconnects from the delegate and drops every cached result.
+     */
+    @Override
+    public void disconnect() {
+        cache.invalidateAll();
+        delegate.disconnect();
+    }
+
+    @Override
+    public List<WhiskeyDetails> getAllMalts() throws SQLException {
+        return cached(QueryKey.of("all"), () -> List.copyOf(delegate.getAllMalts()));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsFromRegion(String r) throws SQLException {
+        return cached(regionKey(r), () -> List.copyOf(delegate.getMaltsFromRegion(r)));
+    }
+
+    @Override
+    public Map<String, List<WhiskeyDetails>> getMaltsFromRegions(Collection<String> regions) throws SQLException {
+        Map<String, List<WhiskeyDetails>> grouped = RegionGroups.empty(regions);
+        Map<QueryKey, String> keys = new LinkedHashMap<>();
+        for (String r : grouped.keySet()) {
+            keys.put(regionKey(r), r);
+        }
+        Map<QueryKey, List<?>> found = cache.getAll(keys.keySet(), missing -> {
+            List<String> missingRegions = missing.stream().map(keys::get).toList();
+            Map<QueryKey, List<?>> loaded = new HashMap<>();
+            for (Map.Entry<String, List<WhiskeyDetails>> e : delegate.getMaltsFromRegions(missingRegions).entrySet()) {
+                loaded.put(regionKey(e.getKey()), List.copyOf(e.getValue()));
+            }
+            return loaded;
+        });
+        for (Map.Entry<String, List<WhiskeyDetails>> e : grouped.entrySet()) {
+            e.setValue(records(found.getOrDefault(regionKey(e.getKey()), List.of())));
+        }
+        return grouped;
+    }
+
+    /**
+     * Returns the cached list for the key, loading it on a miss. Each key is only ever stored with lists of one
+     * element type, the type its loader returns.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> cached(QueryKey key, ResultCache.Loader<List<T>, SQLException> loader) throws SQLException {
+        return (List<T>) cache.get(key, loader::load);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<WhiskeyDetails> records(List<?> cached) {
+        return (List<WhiskeyDetails>) cached;
+    }
+
+    private static QueryKey regionKey(String r) {
+        return QueryKey.of("region", r.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) throws SQLException {
+        return cached(QueryKey.of("age", r1, r2), () -> List.copyOf(delegate.getMaltsInAgeRange(r1, r2)));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) throws SQLException {
+        return cached(QueryKey.of("price", p1, p2), () -> List.copyOf(delegate.getMaltsInPriceRange(p1, p2)));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsMatching(WhiskeyQuery q) throws SQLException {
+        return cached(QueryKey.of("matching", q.normalized()), () -> List.copyOf(delegate.getMaltsMatching(q)));
+    }
+
+    @Override
+    public List<String> getDistilleries() throws SQLException {
+        return delegate.getDistilleries();
+    }
+
+    @Override
+    public List<String> getRegions() throws SQLException {
+        return delegate.getRegions();
+    }
+
+    @Override
+    public List<String> suggestDistilleries(String prefix, int limit) throws SQLException {
+        return distilleries.suggest(prefix, limit);
+    }
+
+    @Override
+    public List<RegionStats> getRegionStats() throws SQLException {
+        return cached(QueryKey.of("regionStats"), () -> List.copyOf(delegate.getRegionStats()));
+    }
+
+    @Override
+    public int countAllMalts() throws SQLException {
+        return delegate.countAllMalts();
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageAfter(WhiskeyDetails after, int limit) throws SQLException {
+        return cached(QueryKey.of("pageAfter", after, limit),
+                () -> List.copyOf(delegate.getMaltsPageAfter(after, limit)));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageBefore(WhiskeyDetails before, int limit) throws SQLException {
+        return cached(QueryKey.of("pageBefore", before, limit),
+                () -> List.copyOf(delegate.getMaltsPageBefore(before, limit)));
+    }
+}
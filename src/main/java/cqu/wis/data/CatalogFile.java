@@ -0,0 +1,214 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the SINGLEMALTS catalog to the compact binary file read by {@link MappedWhiskeyRepository}.
+ *
+ * All values are little-endian. The file starts with a {@value #HEADER_SIZE}-byte header:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic, {@code "WISC"}
+ *      4     4  format version, {@value #FORMAT_VERSION}
+ *      8     4  number of rows, n
+ *     12     4  number of dictionary strings, d
+ *     16     8  change log version the catalog reflects, or 0
+ *     24     4  CRC-32 of every byte after the header
+ *     28     4  reserved, 0
+ * </pre>
+ * followed by six {@code int[n]} columns and the string dictionary:
+ * <pre>
+ * distillery   dictionary id of each row's distillery
+ * age          age of each row
+ * region       dictionary id of each row's region
+ * price        price of each row
+ * age order    row ids sorted by age
+ * price order  row ids sorted by price
+ * offsets      int[d + 1], byte offset of each string within the string data
+ * strings      UTF-8 bytes of the distillery and region names
+ * </pre>
+ * Rows are written in {@link WhiskeyRepository#KEY_ORDER}, so the row id is also the position of the row in
+ * paging order, and the age and price order columns serve range queries by binary search.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class CatalogFile {
+
+    /** Magic number at the start of a catalog file, the bytes {@code "WISC"} read as a little-endian int. */
+    public static final int MAGIC = 0x43534957;
+
+    /** Version of the layout described above. */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Size of the header in bytes. */
+    public static final int HEADER_SIZE = 32;
+
+    /** Number of {@code int[n]} columns after the header. */
+    static final int COLUMNS = 6;
+
+    static final int DISTILLERY = 0;
+    static final int AGE = 1;
+    static final int REGION = 2;
+    static final int PRICE = 3;
+    static final int AGE_ORDER = 4;
+    static final int PRICE_ORDER = 5;
+
+    private CatalogFile() {
+    }
+
+    /**
+     * Writes the given records to a catalog file. The file is written in full under a temporary name and
+     * then moved into place, so a reader that has the old file mapped keeps reading the old catalog.
+     *
+     * @param file the catalog file to write
+     * @param malts the records to write, unique by (distillery, age)
+     * @param changeVersion the change log version the records reflect, or 0
+     * @throws SQLException if two records share a (distillery, age) key or the file cannot be written
+     */
+    public static void write(Path file, Collection<WhiskeyDetails> malts, long changeVersion) throws SQLException {
+        List<WhiskeyDetails> rows = new ArrayList<>(malts);
+        rows.sort(WhiskeyRepository.KEY_ORDER);
+        int n = rows.size();
+        for (int i = 1; i < n; i++) {
+            if (WhiskeyRepository.KEY_ORDER.compare(rows.get(i - 1), rows.get(i)) == 0) {
+                throw new SQLException("Duplicate malt " + rows.get(i).distillery() + " " + rows.get(i).age());
+            }
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] columns = new int[COLUMNS][n];
+        for (int i = 0; i < n; i++) {
+            WhiskeyDetails d = rows.get(i);
+            columns[DISTILLERY][i] = encode(d.distillery(), ids, strings);
+            columns[AGE][i] = d.age();
+            columns[REGION][i] = encode(d.region(), ids, strings);
+            columns[PRICE][i] = d.price();
+        }
+        columns[AGE_ORDER] = SortedIntIndex.sortedRowIds(columns[AGE], n);
+        columns[PRICE_ORDER] = SortedIntIndex.sortedRowIds(columns[PRICE], n);
+
+        long stringBytes = strings.stream().mapToLong(s -> s.length).sum();
+        long bodySize = (long) COLUMNS * 4 * n + 4L * (strings.size() + 1) + stringBytes;
+        if (HEADER_SIZE + bodySize > Integer.MAX_VALUE) {
+            throw new SQLException("Catalog is too large for a catalog file of at most 2 GB: " + file);
+        }
+        ByteBuffer body = ByteBuffer.allocate((int) bodySize).order(ByteOrder.LITTLE_ENDIAN);
+        for (int[] column : columns) {
+            for (int value : column) {
+                body.putInt(value);
+            }
+        }
+        int offset = 0;
+        for (byte[] s : strings) {
+            body.putInt(offset);
+            offset += s.length;
+        }
+        body.putInt(offset);
+        for (byte[] s : strings) {
+            body.put(s);
+        }
+        body.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC).putInt(FORMAT_VERSION).putInt(n).putInt(strings.size())
+                .putLong(changeVersion).putInt((int) crc.getValue()).putInt(0)
+                .flip();
+
+        Path temp = null;
+        boolean moved = false;
+        try {
+            temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    out.write(new ByteBuffer[] {header, body});
+                }
+                out.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } catch (IOException e) {
+            throw new SQLException("Error writing catalog file: " + e.getMessage());
+        } finally {
+            if (temp != null && !moved) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    /**
+     * Deletes a temporary file left by a failed write, logging rather than throwing any error.
+     *
+     * @param temp the file to delete
+     */
+    private static void deleteQuietly(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            System.err.println("Error deleting temporary catalog file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports the catalog of the given repository to a catalog file. If the repository is also a
+     * {@link WhiskeyChangeLog} and its log is available, the file records the latest change version, read
+     * before the catalog; otherwise it records version 0.
+     *
+     * @param source the repository to export
+     * @param file the catalog file to write
+     * @return the number of records written
+     * @throws SQLException if the catalog cannot be read or the file cannot be written
+     */
+    public static int export(WhiskeyRepository source, Path file) throws SQLException {
+        long version = (source instanceof WhiskeyChangeLog log && log.isAvailable()) ? log.getLatestChangeVersion() : 0;
+        List<WhiskeyDetails> malts = source.getAllMalts();
+        write(file, malts, version);
+        return malts.size();
+    }
+
+    /**
+     * Exports SINGLEMALTS from the MySQL database to the catalog file named by the first argument.
+     *
+     * @param args the path of the catalog file to write
+     * @throws SQLException if the database cannot be read or the file cannot be written
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length != 1) {
+            System.err.println("Usage: CatalogFile <catalog file>");
+            System.exit(2);
+        }
+        WhiskeyData wd = new WhiskeyData();
+        wd.connect();
+        try {
+            int count = export(wd, Path.of(args[0]));
+            System.out.println("Exported " + count + " malts to " + args[0]);
+        } finally {
+            wd.disconnect();
+        }
+    }
+
+    private static int encode(String value, Map<String, Integer> ids, List<byte[]> strings) {
+        return ids.computeIfAbsent(value, v -> {
+            strings.add(v.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link WhiskeyRepository} that shares one execution of a query between all callers that issue it at the same time.
+ *
+ * Calls are matched by query name and parameters through a {@link SingleFlight}, so several sessions asking for the
+ * same region, or a double-clicked button, cost one database query. Region names are matched without regard to case,
+ * because the database matches them that way. Results are returned as immutable lists, since they may be shared.
+ * The count, multi-region, region statistics, distinct name and suggestion queries are passed straight through.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class CoalescingWhiskeyRepository implements WhiskeyRepository {
+
+    private final WhiskeyRepository delegate;
+    private final SingleFlight<QueryKey, List<WhiskeyDetails>> flights = new SingleFlight<>();
+
+    /**
+     * Constructs a new coalescing repository.
+     *
+     * @param delegate the repository that runs the queries
+     */
+    public CoalescingWhiskeyRepository(WhiskeyRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the single-flight group, for example to inspect how many calls were collapsed.
+     *
+     * @return the {@link SingleFlight}
+     */
+    public SingleFlight<QueryKey, List<WhiskeyDetails>> getSingleFlight() {
+        return flights;
+    }
+
+    @Override
+    public void connect() throws SQLException {
+        delegate.connect();
+    }
+
+    @Override
+    public void disconnect() {
+        delegate.disconnect();
+    }
+
+    @Override
+    public List<WhiskeyDetails> getAllMalts() throws SQLException {
+        return flights.execute(QueryKey.of("all"), () -> List.copyOf(delegate.getAllMalts()));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsFromRegion(String r) throws SQLException {
+        return flights.execute(QueryKey.of("region", r.toLowerCase(Locale.ROOT)),
+                () -> List.copyOf(delegate.getMaltsFromRegion(r)));
+    }
+
+    @Override
+    public Map<String, List<WhiskeyDetails>> getMaltsFromRegions(Collection<String> regions) throws SQLException {
+        return delegate.getMaltsFromRegions(regions);
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) throws SQLException {
+        return flights.execute(QueryKey.of("age", r1, r2), () -> List.copyOf(delegate.getMaltsInAgeRange(r1, r2)));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) throws SQLException {
+        return flights.execute(QueryKey.of("price", p1, p2), () -> List.copyOf(delegate.getMaltsInPriceRange(p1, p2)));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsMatching(WhiskeyQuery q) throws SQLException {
+        return flights.execute(QueryKey.of("matching", q.normalized()), () -> List.copyOf(delegate.getMaltsMatching(q)));
+    }
+
+    @Override
+    public List<String> getDistilleries() throws SQLException {
+        return delegate.getDistilleries();
+    }
+
+    @Override
+    public List<String> getRegions() throws SQLException {
+        return delegate.getRegions();
+    }
+
+    @Override
+    public List<String> suggestDistilleries(String prefix, int limit) throws SQLException {
+        return delegate.suggestDistilleries(prefix, limit);
+    }
+
+    @Override
+    public List<RegionStats> getRegionStats() throws SQLException {
+        return delegate.getRegionStats();
+    }
+
+    @Override
+    public int countAllMalts() throws SQLException {
+        return delegate.countAllMalts();
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageAfter(WhiskeyDetails after, int limit) throws SQLException {
+        return flights.execute(QueryKey.of("pageAfter", after, limit),
+                () -> List.copyOf(delegate.getMaltsPageAfter(after, limit)));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageBefore(WhiskeyDetails before, int limit) throws SQLException {
+        return flights.execute(QueryKey.of("pageBefore", before, limit),
+                () -> List.copyOf(delegate.getMaltsPageBefore(before, limit)));
+    }
+}
@@ -0,0 +1,378 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small bounded pool of JDBC connections shared by the data access classes.
+ *
+ * Each query borrows a {@link PooledConnection}, uses it and closes it again, which hands the
+ * physical connection back to the pool instead of closing it. This lets several queries run
+ * concurrently and means a dropped connection only affects the query that was using it.
+ *
+ * The pool provides:
+ * A hard upper bound on the number of open connections
+ * Validation of idle connections when they are borrowed
+ * Eviction of connections that have been idle for too long
+ * Detection of connections that are held longer than a configured threshold (leaks)
+ * Borrow count and borrow wait time metrics
+ * A per-connection {@link StatementCache} with pool-wide hit and miss counters
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Creates new physical connections for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        /**
+         * Opens a new connection to the database.
+         *
+         * @return a new open {@link Connection}
+         * @throws SQLException if the connection cannot be opened
+         */
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Configuration values for a {@link ConnectionPool}.
+     *
+     * @param maxSize the maximum number of connections open at the same time
+     * @param borrowTimeout how long a borrower waits for a free connection before failing
+     * @param idleTimeout how long a connection may sit unused in the pool before it is closed
+     * @param leakThreshold how long a connection may be held before it is reported as a leak, or {@link Duration#ZERO} to disable
+     * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)} when validating on borrow
+     * @param statementCacheSize the number of prepared statements cached per connection
+     * @param captureBorrowSite whether each borrow captures a stack trace to print if the connection leaks,
+     *                          which costs a stack walk per borrow
+     */
+    public record Settings(int maxSize, Duration borrowTimeout, Duration idleTimeout,
+                           Duration leakThreshold, int validationTimeoutSeconds, int statementCacheSize,
+                           boolean captureBorrowSite) {
+
+        /**
+         * Creates settings that detect leaks by borrow time only, without capturing where connections were borrowed.
+         *
+         * @param maxSize the maximum number of connections open at the same time
+         * @param borrowTimeout how long a borrower waits for a free connection before failing
+         * @param idleTimeout how long a connection may sit unused in the pool before it is closed
+         * @param leakThreshold how long a connection may be held before it is reported as a leak, or {@link Duration#ZERO} to disable
+         * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)} when validating on borrow
+         * @param statementCacheSize the number of prepared statements cached per connection
+         */
+        public Settings(int maxSize, Duration borrowTimeout, Duration idleTimeout,
+                        Duration leakThreshold, int validationTimeoutSeconds, int statementCacheSize) {
+            this(maxSize, borrowTimeout, idleTimeout, leakThreshold, validationTimeoutSeconds, statementCacheSize, false);
+        }
+
+        /**
+         * Returns the settings used by the application's data classes. Borrow sites are captured only when
+         * {@code -Dwis.pool.traceLeaks=true} is set.
+         *
+         * @return the default pool settings
+         */
+        public static Settings defaults() {
+            return new Settings(8, Duration.ofSeconds(10), Duration.ofMinutes(5), Duration.ofSeconds(30), 2, 32,
+                    Boolean.getBoolean("wis.pool.traceLeaks"));
+        }
+    }
+
+    /** Idle connections used more recently than this are handed out without a validation round trip. */
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> leased = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    private ConnectionPool(String name, ConnectionFactory factory, Settings settings) {
+        this.name = name;
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Creates a new pool and starts its background housekeeping task.
+     * No connections are opened until the first borrow.
+     *
+     * @param name a short name used in log messages and thread names
+     * @param factory the factory used to open physical connections
+     * @param settings the pool configuration
+     * @return the new pool
+     */
+    public static ConnectionPool open(String name, ConnectionFactory factory, Settings settings) {
+        ConnectionPool pool = new ConnectionPool(name, factory, settings);
+        pool.startHousekeeping();
+        return pool;
+    }
+
+    private void startHousekeeping() {
+        long periodMillis = Math.max(1000, settings.idleTimeout().toMillis() / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no valid idle connection is available.
+     * The caller must close the returned {@link PooledConnection} to give it back to the pool.
+     *
+     * @return a leased {@link PooledConnection}
+     * @throws SQLException if the pool is closed, no connection becomes free in time or a new connection cannot be opened
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool " + name + " is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out waiting for a connection from pool " + name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection from pool " + name);
+        }
+        recordBorrowWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pc = takeValidIdleConnection();
+            if (pc == null) {
+                Connection c = factory.create();
+                pc = new PooledConnection(this, c,
+                        new StatementCache(c, settings.statementCacheSize(), statementHits, statementMisses));
+                createdCount.incrementAndGet();
+            }
+            pc.markBorrowed(settings.captureBorrowSite() && !settings.leakThreshold().isZero()
+                    ? new Throwable("Connection borrowed here") : null);
+            synchronized (this) {
+                leased.add(pc);
+            }
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a leased connection to the pool. Called by {@link PooledConnection#close()}.
+     * Connections that are closed or broken are discarded instead of being reused.
+     *
+     * @param pc the connection being returned
+     */
+    void release(PooledConnection pc) {
+        boolean reusable;
+        synchronized (this) {
+            if (!leased.remove(pc)) {
+                return;
+            }
+            reusable = !closed && !pc.isPhysicallyClosed();
+            if (reusable) {
+                pc.markReturned();
+                idle.addFirst(pc);
+            }
+        }
+        if (!reusable) {
+            pc.closePhysical();
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes every idle connection that has not been used within the idle timeout.
+     *
+     * @return the number of connections closed
+     */
+    public int evictIdle() {
+        long cutoff = System.nanoTime() - settings.idleTimeout().toNanos();
+        Deque<PooledConnection> expired = new ArrayDeque<>();
+        synchronized (this) {
+            // Most recently returned connections are at the head, so stale ones collect at the tail
+            while (!idle.isEmpty() && idle.peekLast().getLastUsedNanos() - cutoff < 0) {
+                expired.add(idle.pollLast());
+            }
+        }
+        expired.forEach(PooledConnection::closePhysical);
+        evictedCount.addAndGet(expired.size());
+        return expired.size();
+    }
+
+    /**
+     * Reports every leased connection that has been held longer than the leak threshold.
+     * Each connection is only reported once per borrow.
+     *
+     * @return the number of newly detected leaks
+     */
+    public int detectLeaks() {
+        if (settings.leakThreshold().isZero()) {
+            return 0;
+        }
+        long cutoff = System.nanoTime() - settings.leakThreshold().toNanos();
+        int found = 0;
+        synchronized (this) {
+            for (PooledConnection pc : leased) {
+                if (!pc.isLeakReported() && pc.getBorrowedAtNanos() - cutoff < 0) {
+                    pc.markLeakReported();
+                    found++;
+                    System.err.println("Possible connection leak in pool " + name + ": connection held for more than "
+                            + settings.leakThreshold().toMillis() + " ms");
+                    if (pc.getBorrowSite() != null) {
+                        pc.getBorrowSite().printStackTrace();
+                    }
+                }
+            }
+        }
+        leakCount.addAndGet(found);
+        return found;
+    }
+
+    /**
+     * Closes the pool and every idle connection. Leased connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        Deque<PooledConnection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(PooledConnection::closePhysical);
+    }
+
+    /**
+     * Takes the most recently used idle connection that passes validation.
+     * Connections that fail validation are closed and skipped.
+     *
+     * @return a valid idle connection or {@code null} if none is available
+     */
+    private PooledConnection takeValidIdleConnection() {
+        while (true) {
+            PooledConnection pc;
+            synchronized (this) {
+                pc = idle.pollFirst();
+            }
+            if (pc == null) {
+                return null;
+            }
+            if (System.nanoTime() - pc.getLastUsedNanos() < VALIDATION_BYPASS_NANOS
+                    || pc.isValid(settings.validationTimeoutSeconds())) {
+                return pc;
+            }
+            pc.closePhysical();
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    private void recordBorrowWait(long nanos) {
+        borrowCount.incrementAndGet();
+        totalBorrowWaitNanos.addAndGet(nanos);
+        maxBorrowWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            System.err.println("Error during connection pool housekeeping: " + e.getMessage());
+        }
+    }
+
+    /** @return the pool name */
+    public String getName() {
+        return name;
+    }
+
+    /** @return the number of connections currently leased to callers */
+    public synchronized int getActiveCount() {
+        return leased.size();
+    }
+
+    /** @return the number of open connections waiting in the pool */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /** @return the total number of successful borrows */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /** @return the mean time borrowers waited for a connection, in microseconds */
+    public double getAverageBorrowWaitMicros() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : totalBorrowWaitNanos.get() / 1000.0 / count;
+    }
+
+    /** @return the longest time a borrower waited for a connection, in microseconds */
+    public long getMaxBorrowWaitMicros() {
+        return maxBorrowWaitNanos.get() / 1000;
+    }
+
+    /** @return the number of borrows that timed out */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /** @return the number of physical connections opened */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /** @return the number of connections closed because they were idle too long or failed validation */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /** @return the number of leaked connections detected */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /** @return the number of prepared statement lookups answered from a connection's cache */
+    public long getStatementCacheHits() {
+        return statementHits.sum();
+    }
+
+    /** @return the number of prepared statement lookups that had to prepare a new statement */
+    public long getStatementCacheMisses() {
+        return statementMisses.sum();
+    }
+}
@@ -0,0 +1,142 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A read-only prefix index over distillery names, used for type-ahead suggestions.
+ *
+ * The index holds each distinct name once in a sorted array, together with the number of malts from that
+ * distillery. Names are sorted without regard to case, so every name that starts with a given prefix lies
+ * in one contiguous run; a lookup finds the start of the run by binary search and reads names until the
+ * prefix no longer matches, costing O(log n + k) for k suggestions with no per-lookup allocation beyond the result.
+ *
+ * The index is updated by merging in a batch of added and removed names rather than by sorting every name again.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class DistilleryIndex {
+
+    /** Order of the names: case-insensitive, with names that differ only in case in their natural order. */
+    private static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private static final DistilleryIndex EMPTY = new DistilleryIndex(new String[0], new int[0]);
+
+    private final String[] names;
+    private final int[] counts;
+
+    private DistilleryIndex(String[] names, int[] counts) {
+        this.names = names;
+        this.counts = counts;
+    }
+
+    /**
+     * Builds an index over the given distillery names, one per malt.
+     *
+     * @param distilleries the distillery of each malt; a name may occur many times
+     * @return the index
+     */
+    public static DistilleryIndex build(Collection<String> distilleries) {
+        return EMPTY.update(List.of(), distilleries);
+    }
+
+    /**
+     * Returns the index that results from removing and adding the given names, one per malt. A name is
+     * dropped from the index once its last malt has been removed. Only the changed names are sorted; the
+     * existing names are merged with them in one pass.
+     *
+     * @param removed the distillery of each malt removed
+     * @param added the distillery of each malt added
+     * @return the updated index
+     */
+    public DistilleryIndex update(Collection<String> removed, Collection<String> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+        TreeMap<String, Integer> delta = new TreeMap<>(ORDER);
+        for (String name : removed) {
+            delta.merge(name, -1, Integer::sum);
+        }
+        for (String name : added) {
+            delta.merge(name, 1, Integer::sum);
+        }
+
+        List<String> mergedNames = new ArrayList<>(names.length + delta.size());
+        List<Integer> mergedCounts = new ArrayList<>(names.length + delta.size());
+        int i = 0;
+        for (Map.Entry<String, Integer> d : delta.entrySet()) {
+            while (i < names.length && ORDER.compare(names[i], d.getKey()) < 0) {
+                mergedNames.add(names[i]);
+                mergedCounts.add(counts[i++]);
+            }
+            int count = d.getValue();
+            if (i < names.length && names[i].equals(d.getKey())) {
+                count += counts[i++];
+            }
+            if (count > 0) {
+                mergedNames.add(d.getKey());
+                mergedCounts.add(count);
+            }
+        }
+        while (i < names.length) {
+            mergedNames.add(names[i]);
+            mergedCounts.add(counts[i++]);
+        }
+        return new DistilleryIndex(mergedNames.toArray(String[]::new),
+                mergedCounts.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Returns the distillery names that start with the given prefix, ignoring case, in sorted order.
+     *
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = firstAtLeast(prefix); i < names.length && result.size() < limit; i++) {
+            if (!names[i].regionMatches(true, 0, prefix, 0, prefix.length())) {
+                break;
+            }
+            result.add(names[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of malts from the given distillery.
+     *
+     * @param name the distillery name, matched exactly
+     * @return the number of malts, or 0 if the name is not in the index
+     */
+    public int count(String name) {
+        int i = Arrays.binarySearch(names, name, ORDER);
+        return (i >= 0) ? counts[i] : 0;
+    }
+
+    /** @return the number of distinct names in the index */
+    public int size() {
+        return names.length;
+    }
+
+    private int firstAtLeast(String prefix) {
+        int lo = 0;
+        int hi = names.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[mid], prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
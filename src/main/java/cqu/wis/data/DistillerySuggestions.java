@@ -0,0 +1,165 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A long-lived {@link DistilleryIndex} over the distinct distillery names of a repository, for type-ahead
+ * suggestions that are asked for on every keystroke.
+ *
+ * The index is built from the names once and kept while the version it was built at is current and it is
+ * younger than its maximum age. The version is read at most once per recheck interval, so a burst of
+ * keystrokes costs no query at all. When the version has moved on and the repository can say which names
+ * were added and removed since, those are merged into the index; otherwise it is built again. The names are
+ * one per distillery rather than one per malt, so {@link DistilleryIndex#count(String)} of this index is 1
+ * for every name.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class DistillerySuggestions {
+
+    /**
+     * Reads a version that changes whenever the names may have changed.
+     */
+    @FunctionalInterface
+    interface Version {
+
+        /**
+         * @return the current version
+         * @throws SQLException if a database access error occurs
+         */
+        long current() throws SQLException;
+    }
+
+    /**
+     * Reads the names added and removed since a version.
+     */
+    @FunctionalInterface
+    interface Changes {
+
+        /**
+         * @param version the version the index was built or last updated at
+         * @return the names added and removed since, or {@code null} if they cannot be told and the index
+         *         must be built again
+         * @throws SQLException if a database access error occurs
+         */
+        Delta since(long version) throws SQLException;
+    }
+
+    /**
+     * Distillery names that have gained their first malt or lost their last one. A name may be listed
+     * although the index already agrees with it; such names are skipped.
+     *
+     * @param removed the names that no longer have a malt
+     * @param added the names that now have a malt
+     */
+    record Delta(Collection<String> removed, Collection<String> added) {}
+
+    /** The index, the version it is at, the time it was built and the time its version was last read. */
+    private record Built(DistilleryIndex index, long version, long builtNanos, long checkedNanos) {}
+
+    private final ResultCache.Loader<Collection<String>, SQLException> names;
+    private final Version version;
+    private final long recheckNanos;
+    private final Changes changes;
+    private final long maxAgeNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Built built;
+
+    /**
+     * Creates suggestions that read the version on every call and are rebuilt when it changes or the index
+     * is older than the maximum age.
+     *
+     * @param names loads the distinct distillery names
+     * @param version reads the version the index is checked against
+     * @param maxAge how long an index is used for, or {@code null} to use it until the version changes
+     */
+    DistillerySuggestions(ResultCache.Loader<Collection<String>, SQLException> names, Version version, Duration maxAge) {
+        this(names, version, Duration.ZERO, null, maxAge);
+    }
+
+    /**
+     * Creates suggestions that read the version at most once per recheck interval and are updated from
+     * the changes since when it has moved on.
+     *
+     * @param names loads the distinct distillery names
+     * @param version reads the version the index is checked against
+     * @param recheck how long a version that has been read is trusted for
+     * @param changes reads the names changed since a version, or {@code null} to build the index again
+     * @param maxAge how long an index is used for before it is built again, or {@code null} for no limit
+     */
+    DistillerySuggestions(ResultCache.Loader<Collection<String>, SQLException> names, Version version,
+                          Duration recheck, Changes changes, Duration maxAge) {
+        this.names = names;
+        this.version = version;
+        this.recheckNanos = recheck.toNanos();
+        this.changes = changes;
+        this.maxAgeNanos = (maxAge == null) ? Long.MAX_VALUE : maxAge.toNanos();
+    }
+
+    /**
+     * Returns the distillery names that start with the given prefix, bringing the index up to date first
+     * if its version is due to be read again.
+     *
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names in alphabetical order
+     * @throws SQLException if the version, the changes or the names cannot be read
+     */
+    List<String> suggest(String prefix, int limit) throws SQLException {
+        Built b = built;
+        long now = System.nanoTime();
+        if (b == null || now - b.checkedNanos() >= recheckNanos || now - b.builtNanos() >= maxAgeNanos) {
+            b = check(now);
+        }
+        return b.index().suggest(prefix, limit);
+    }
+
+    /**
+     * Reads the version and updates or rebuilds the index if needed. A caller that finds the index was
+     * checked by another caller while it waited uses that result rather than reading the version again.
+     * A lock rather than {@code synchronized} guards the check, so a virtual thread waiting on the
+     * database does not pin its carrier.
+     */
+    private Built check(long now) throws SQLException {
+        lock.lock();
+        try {
+            Built b = built;
+            if (b != null && b.checkedNanos() >= now) {
+                return b;
+            }
+            long current = version.current();
+            long checked = System.nanoTime();
+            if (b == null || checked - b.builtNanos() >= maxAgeNanos) {
+                b = rebuild(current);
+            } else if (b.version() != current) {
+                Delta delta = (changes == null) ? null : changes.since(b.version());
+                b = (delta == null)
+                        ? rebuild(current)
+                        : new Built(apply(b.index(), delta), current, b.builtNanos(), checked);
+            } else {
+                b = new Built(b.index(), current, b.builtNanos(), checked);
+            }
+            built = b;
+            return b;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Built rebuild(long current) throws SQLException {
+        DistilleryIndex index = DistilleryIndex.build(names.load());
+        long now = System.nanoTime();
+        return new Built(index, current, now, now);
+    }
+
+    /** Merges a delta into the index, keeping one entry per name. */
+    private static DistilleryIndex apply(DistilleryIndex index, Delta delta) {
+        List<String> removed = delta.removed().stream().distinct().filter(n -> index.count(n) > 0).toList();
+        List<String> added = delta.added().stream().distinct().filter(n -> index.count(n) == 0).toList();
+        return index.update(removed, added);
+    }
+}
@@ -0,0 +1,109 @@
+package cqu.wis.data;
+
+import cqu.wis.data.UserData.UserDetails;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A {@link UserRepository} that keeps the user accounts in a local text file, one {@code username,password}
+ * line per account after a {@code USERNAME,PASSWORD} header.
+ *
+ * The accounts are read into memory on {@link #connect()}. A password change is written to a temporary file
+ * that then replaces the accounts file, so the file is never left half written.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class FileUserRepository extends InMemoryUserRepository {
+
+    /** First line of an accounts file. */
+    public static final String HEADER = "USERNAME,PASSWORD";
+
+    private final Path file;
+
+    /**
+     * Constructs a new repository backed by the given file.
+     *
+     * @param file the accounts file
+     */
+    public FileUserRepository(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the accounts from the file.
+     *
+     * @throws SQLException if the file cannot be read or is malformed
+     */
+    @Override
+    public void connect() throws SQLException {
+        replaceAll(read(file));
+    }
+
+    /**
+     * Updates the password in memory and writes every account back to the file.
+     *
+     * @param username the username whose password will be updated
+     * @param newPassword the new password to set
+     * @return {@code 1} if the user exists and the password was updated, {@code 0} otherwise
+     * @throws SQLException if the file cannot be written
+     */
+    @Override
+    public synchronized int updatePassword(String username, String newPassword) throws SQLException {
+        int updated = super.updatePassword(username, newPassword);
+        if (updated > 0) {
+            write(file, accounts());
+        }
+        return updated;
+    }
+
+    /**
+     * Reads the accounts from an accounts file.
+     *
+     * @param file the accounts file
+     * @return the accounts in file order
+     * @throws SQLException if the file cannot be read, does not start with {@link #HEADER} or is malformed
+     */
+    public static List<UserDetails> read(Path file) throws SQLException {
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).trim().equals(HEADER)) {
+                throw new SQLException("Missing " + HEADER + " header in " + file);
+            }
+            List<UserDetails> users = new ArrayList<>();
+            for (int i = 1; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma <= 0) {
+                    throw new SQLException("Malformed line " + (i + 1) + " in " + file);
+                }
+                users.add(new UserDetails(line.substring(0, comma), line.substring(comma + 1)));
+            }
+            return users;
+        } catch (IOException e) {
+            throw new SQLException("Error reading users file: " + e.getMessage());
+        }
+    }
+
+    private static void write(Path file, Map<String, String> passwords) throws SQLException {
+        StringBuilder sb = new StringBuilder(HEADER).append('\n');
+        new TreeMap<>(passwords).forEach((user, password) -> sb.append(user).append(',').append(password).append('\n'));
+        try {
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            Files.writeString(temp, sb, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new SQLException("Error writing users file: " + e.getMessage());
+        }
+    }
+}
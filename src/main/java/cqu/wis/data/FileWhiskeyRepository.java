@@ -0,0 +1,90 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link WhiskeyRepository} that reads the catalog from a local text file, one
+ * {@code distillery,age,region,price} line per malt after a {@code DISTILLERY,AGE,REGION,PRICE} header.
+ *
+ * The file is read into memory on {@link #connect()} and queries are answered as by
+ * {@link InMemoryWhiskeyRepository}. The file is only read, never written.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class FileWhiskeyRepository extends InMemoryWhiskeyRepository {
+
+    /** First line of a catalog file. */
+    public static final String HEADER = "DISTILLERY,AGE,REGION,PRICE";
+
+    private final Path file;
+
+    /**
+     * Constructs a new repository backed by the given file.
+     *
+     * @param file the catalog file
+     */
+    public FileWhiskeyRepository(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the catalog from the file.
+     *
+     * @throws SQLException if the file cannot be read or is malformed
+     */
+    @Override
+    public void connect() throws SQLException {
+        replaceAll(read(file));
+    }
+
+    /**
+     * Reads the records from a catalog file.
+     *
+     * @param file the catalog file
+     * @return the records in file order
+     * @throws SQLException if the file cannot be read, does not start with {@link #HEADER}, is malformed or
+     *         lists a (distillery, age) key twice
+     */
+    public static List<WhiskeyDetails> read(Path file) throws SQLException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<WhiskeyDetails> malts = new ArrayList<>();
+            String header = in.readLine();
+            if (header == null || !header.trim().equals(HEADER)) {
+                throw new SQLException("Missing " + HEADER + " header in " + file);
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 4) {
+                    throw new SQLException("Malformed line " + lineNumber + " in " + file);
+                }
+                try {
+                    malts.add(new WhiskeyDetails(fields[0].trim(), Integer.parseInt(fields[1].trim()),
+                            fields[2].trim(), Integer.parseInt(fields[3].trim())));
+                } catch (NumberFormatException e) {
+                    throw new SQLException("Malformed number on line " + lineNumber + " in " + file);
+                }
+            }
+            WhiskeyDetails duplicate = WhiskeyRepository.findDuplicateKey(malts);
+            if (duplicate != null) {
+                throw new SQLException("Duplicate malt " + duplicate.distillery() + " " + duplicate.age() + " in " + file);
+            }
+            return malts;
+        } catch (IOException e) {
+            throw new SQLException("Error reading malts file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A read-only set of names that can be searched for the names closest to a misspelled one, such as the known
+ * regions or distilleries of the catalog.
+ *
+ * Closeness is the Levenshtein distance: the number of single-character insertions, deletions and substitutions
+ * that turn one name into the other, ignoring case. Rather than computing the distance to every name, the matcher
+ * indexes each name by its bigrams, the pairs of adjacent characters of the name padded with a start and an end
+ * mark. One edit changes at most two bigrams, so a name within {@code k} edits of the query shares all but
+ * {@code 2k} of its distinct bigrams with it. A search counts the bigrams each name shares with the query from the
+ * posting lists of the query's bigrams and computes the distance only for the few names with enough in common.
+ * Names short enough to share no bigram with the query after {@code k} edits are picked by length instead.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class FuzzyMatcher {
+
+    /** A name found by a search, with its distance from the query. */
+    private record Match(String name, int distance) {}
+
+    private static final Comparator<Match> CLOSEST_FIRST =
+            Comparator.comparingInt(Match::distance).thenComparing(Match::name, String.CASE_INSENSITIVE_ORDER);
+
+    private static final int[] NO_POSTINGS = new int[0];
+
+    /** Names in lower case, with the spelling first given for each. */
+    private final String[] keys;
+    private final String[] names;
+    /** Number of distinct bigrams of each name. */
+    private final int[] bigramCounts;
+    /** For each bigram, the names that contain it, in ascending order. */
+    private final Map<Integer, int[]> postings = new HashMap<>();
+    private final String[] sortedKeys;
+
+    private FuzzyMatcher(Collection<String> values) {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String value : values) {
+            if (value != null && !value.isEmpty()) {
+                distinct.putIfAbsent(value.toLowerCase(Locale.ROOT), value);
+            }
+        }
+        keys = distinct.keySet().toArray(String[]::new);
+        names = distinct.values().toArray(String[]::new);
+        bigramCounts = new int[keys.length];
+
+        Map<Integer, List<Integer>> lists = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            int[] bigrams = bigrams(keys[i]);
+            bigramCounts[i] = bigrams.length;
+            for (int bigram : bigrams) {
+                lists.computeIfAbsent(bigram, b -> new ArrayList<>()).add(i);
+            }
+        }
+        lists.forEach((bigram, list) -> postings.put(bigram, list.stream().mapToInt(Integer::intValue).toArray()));
+
+        sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+    }
+
+    /**
+     * Builds a matcher over the given names. Names that differ only in case are held once, under the first
+     * spelling given.
+     *
+     * @param values the names, which may contain duplicates
+     * @return the matcher
+     */
+    public static FuzzyMatcher build(Collection<String> values) {
+        return new FuzzyMatcher(values);
+    }
+
+    /**
+     * Tests whether a name is known, ignoring case.
+     *
+     * @param name the name to test
+     * @return {@code true} if the name is one of the names of the matcher
+     */
+    public boolean contains(String name) {
+        return Arrays.binarySearch(sortedKeys, name.toLowerCase(Locale.ROOT)) >= 0;
+    }
+
+    /**
+     * Tests whether any known name starts with the given prefix, ignoring case.
+     *
+     * @param prefix the start of a name
+     * @return {@code true} if a name starts with the prefix
+     */
+    public boolean containsPrefix(String prefix) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int i = Arrays.binarySearch(sortedKeys, key);
+        if (i >= 0) {
+            return true;
+        }
+        int next = -i - 1;
+        return next < sortedKeys.length && sortedKeys[next].startsWith(key);
+    }
+
+    /**
+     * Returns the known names within the given distance of a name, closest first and then in alphabetical order.
+     *
+     * @param name the name to match, for example a misspelled region
+     * @param maxDistance the largest number of edits allowed
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} names, spelled as they were given to the matcher
+     */
+    public List<String> closest(String name, int maxDistance, int limit) {
+        String key = name.toLowerCase(Locale.ROOT);
+        int[] bigrams = bigrams(key);
+        int[] shared = new int[keys.length];
+        for (int bigram : bigrams) {
+            for (int i : postings.getOrDefault(bigram, NO_POSTINGS)) {
+                shared[i]++;
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (Math.abs(keys[i].length() - key.length()) > maxDistance) {
+                continue;
+            }
+            int required = Math.max(bigrams.length, bigramCounts[i]) - 2 * maxDistance;
+            if (shared[i] >= required) {
+                int d = distance(keys[i], key);
+                if (d <= maxDistance) {
+                    matches.add(new Match(names[i], d));
+                }
+            }
+        }
+        matches.sort(CLOSEST_FIRST);
+        return matches.stream().limit(limit).map(Match::name).toList();
+    }
+
+    /** @return the number of distinct names */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the distinct bigrams of a name padded with a start and an end mark, each packed into an int.
+     *
+     * @param key the name in lower case
+     * @return the bigrams in ascending order
+     */
+    private static int[] bigrams(String key) {
+        int[] bigrams = new int[key.length() + 1];
+        char previous = '\0';
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            bigrams[i] = (previous << 16) | c;
+            previous = c;
+        }
+        bigrams[key.length()] = (previous << 16) | '\uffff';
+        return Arrays.stream(bigrams).sorted().distinct().toArray();
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, keeping only two rows of the edit table.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @return the number of edits that turn {@code a} into {@code b}
+     */
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String t = a;
+            a = b;
+            b = t;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + ((c == b.charAt(j - 1)) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] t = previous;
+            previous = current;
+            current = t;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,71 @@
+package cqu.wis.data;
+
+import cqu.wis.data.UserData.UserDetails;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link UserRepository} that holds the user accounts in memory. Changes are lost when the application
+ * exits; {@link FileUserRepository} keeps them in a file instead.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final Map<String, String> passwords = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new repository with no accounts.
+     */
+    public InMemoryUserRepository() {
+    }
+
+    /**
+     * Constructs a new repository holding the given accounts.
+     *
+     * @param users the accounts to hold
+     */
+    public InMemoryUserRepository(Collection<UserDetails> users) {
+        replaceAll(users);
+    }
+
+    /**
+     * Replaces every account with the given accounts.
+     *
+     * @param users the accounts to hold
+     */
+    public final void replaceAll(Collection<UserDetails> users) {
+        passwords.clear();
+        for (UserDetails u : users) {
+            passwords.put(u.user(), u.password());
+        }
+    }
+
+    @Override
+    public void connect() throws SQLException {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public UserDetails getUser(String username) throws SQLException {
+        String password = passwords.get(username);
+        return (password == null) ? null : new UserDetails(username, password);
+    }
+
+    @Override
+    public int updatePassword(String username, String newPassword) throws SQLException {
+        return (passwords.replace(username, newPassword) != null) ? 1 : 0;
+    }
+
+    /**
+     * @return a copy of every account, in no particular order
+     */
+    protected Map<String, String> accounts() {
+        return Map.copyOf(passwords);
+    }
+}
@@ -0,0 +1,76 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link WhiskeyRepository} that holds the catalog as a list in memory and answers each query by scanning it.
+ *
+ * It needs no database server, which suits tests, benchmarks and small catalogs. For large catalogs a
+ * {@link WhiskeySnapshot} over this repository answers the range queries from sorted indexes instead.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class InMemoryWhiskeyRepository implements WhiskeyRepository {
+
+    private volatile List<WhiskeyDetails> malts = List.of();
+
+    /**
+     * Constructs a new, empty repository.
+     */
+    public InMemoryWhiskeyRepository() {
+    }
+
+    /**
+     * Constructs a new repository holding the given records.
+     *
+     * @param malts the records to hold
+     */
+    public InMemoryWhiskeyRepository(Collection<WhiskeyDetails> malts) {
+        replaceAll(malts);
+    }
+
+    /**
+     * Replaces every record with the given records.
+     *
+     * @param details the records to hold
+     * @throws IllegalArgumentException if two records share a (distillery, age) key
+     */
+    public final void replaceAll(Collection<WhiskeyDetails> details) {
+        WhiskeyDetails duplicate = WhiskeyRepository.findDuplicateKey(details);
+        if (duplicate != null) {
+            throw new IllegalArgumentException("Duplicate malt: " + duplicate.distillery() + " " + duplicate.age());
+        }
+        malts = List.copyOf(details);
+    }
+
+    @Override
+    public void connect() throws SQLException {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public List<WhiskeyDetails> getAllMalts() {
+        return malts;
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsFromRegion(String r) {
+        return malts.stream().filter(d -> d.region().equalsIgnoreCase(r)).toList();
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) {
+        return malts.stream().filter(d -> d.age() >= r1 && d.age() <= r2).toList();
+    }
+
+    @Override
+    public int countAllMalts() {
+        return malts.size();
+    }
+}
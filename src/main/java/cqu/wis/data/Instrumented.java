@@ -0,0 +1,142 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One instrumented database call: it is timed from its start and, when it finishes, recorded in the
+ * operation's {@link QueryStats}, committed as a {@link QueryEvent} and passed to the shared
+ * {@link SlowQueryLog}, whether it succeeded or failed.
+ *
+ * Most calls use {@link #run}, which borrows a pooled connection for the body and records the call when
+ * the body returns or throws. A call whose result outlives the method that started it, such as a stream,
+ * uses {@link #start} and calls {@link #finish} itself, and reports the time spent outside the database,
+ * such as a stream's consumer handling each row, with {@link #exclude} so it is not counted.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class Instrumented {
+
+    /**
+     * The body of a call, run on a borrowed connection.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface Body<T> {
+        T run(PooledConnection pc) throws SQLException;
+    }
+
+    /**
+     * Counts the rows a call returned or updated, for its statistics.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface RowCount<T> {
+        long of(T result);
+    }
+
+    private static final SlowQueryLog SLOW_QUERIES = SlowQueryLog.shared();
+
+    private final QueryStats stats;
+    private final ConnectionPool pool;
+    private final String sql;
+    private final int parametersHash;
+    private final ParameterBinder binder;
+    private final QueryEvent event;
+    private final long start;
+    /** Set by the first {@link #finish}, which a stream may reach both when it runs out and when it is closed. */
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final AtomicLong excludedNanos = new AtomicLong();
+
+    private Instrumented(QueryStats stats, ConnectionPool pool, String sql, int parametersHash, ParameterBinder binder) {
+        this.stats = stats;
+        this.pool = pool;
+        this.sql = sql;
+        this.parametersHash = parametersHash;
+        this.binder = binder;
+        this.event = QueryEvent.start(stats);
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts timing a call that is finished later with {@link #finish}.
+     *
+     * @param stats the statistics of the operation
+     * @param pool the pool the call runs on, which the slow query log explains the statement with
+     * @param sql the SQL text of the statement
+     * @param parametersHash a hash of the statement parameters, for the {@link QueryEvent}
+     * @param binder sets the statement parameters, for the slow query log
+     * @return the call, timing from now
+     */
+    static Instrumented start(QueryStats stats, ConnectionPool pool, String sql, int parametersHash,
+                              ParameterBinder binder) {
+        return new Instrumented(stats, pool, sql, parametersHash, binder);
+    }
+
+    /**
+     * Runs a call on a connection borrowed from the pool and records it. If the body fails, the statement
+     * for the SQL is evicted from the connection's statement cache so the next use prepares it again.
+     *
+     * @param stats the statistics of the operation
+     * @param pool the pool to borrow the connection from
+     * @param sql the SQL text of the statement
+     * @param parametersHash a hash of the statement parameters, for the {@link QueryEvent}
+     * @param binder sets the statement parameters, for the slow query log
+     * @param rows counts the rows of the result
+     * @param body runs the statement and reads its result
+     * @param <T> the result type
+     * @return the result of the body
+     * @throws SQLException if no connection can be borrowed or the body fails
+     */
+    static <T> T run(QueryStats stats, ConnectionPool pool, String sql, int parametersHash, ParameterBinder binder,
+                     RowCount<T> rows, Body<T> body) throws SQLException {
+        Instrumented call = start(stats, pool, sql, parametersHash, binder);
+        try (PooledConnection pc = pool.borrow()) {
+            try {
+                T result = body.run(pc);
+                call.finish(rows.of(result), false);
+                return result;
+            } catch (SQLException e) {
+                pc.getStatementCache().evict(sql);
+                throw e;
+            }
+        } catch (SQLException e) {
+            call.finish(0, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Leaves time that was not spent on the call, such as a stream consumer's handling of a row, out of
+     * the time recorded for it.
+     *
+     * @param nanos the time to leave out
+     */
+    void exclude(long nanos) {
+        excludedNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records the call, unless it has already been recorded. The time recorded runs from the start of the
+     * call to now, less any time {@linkplain #exclude excluded}.
+     *
+     * @param rowCount the number of rows returned or updated
+     * @param failed whether the call failed
+     */
+    void finish(long rowCount, boolean failed) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        long from = start + excludedNanos.get();
+        if (failed) {
+            stats.recordError(from);
+        } else {
+            stats.record(from, rowCount);
+        }
+        event.finish(sql, parametersHash, rowCount, failed);
+        SLOW_QUERIES.record(stats, pool, sql, binder, from, rowCount, failed);
+    }
+}
@@ -0,0 +1,111 @@
+package cqu.wis.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of latencies in microseconds.
+ *
+ * Buckets are log-linear: each power of two is split into {@value #SUB_BUCKETS} equal buckets, so a value is
+ * placed within 12.5% of its true size from 1 microsecond up to about 12 days, in {@value #BUCKETS} counters.
+ * Values below {@code 2 * SUB_BUCKETS} microseconds have a bucket each. Recording is one atomic increment and
+ * allocates nothing; reading walks the counters, so a percentile read while values are being recorded may
+ * miss the latest of them.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a latency.
+     *
+     * @param micros the latency in microseconds; negative values count as 0
+     */
+    void record(long micros) {
+        counts.incrementAndGet(bucket(micros));
+    }
+
+    /**
+     * Returns the bucket a value falls into.
+     *
+     * @param micros the value
+     * @return the bucket index
+     */
+    static int bucket(long micros) {
+        long v = Math.min(Math.max(micros, 0), MAX_VALUE);
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value that falls into a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the upper bound of the bucket in microseconds
+     */
+    static long upperBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /** @return the number of values recorded */
+    long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall, rounded up to the
+     * upper bound of its bucket.
+     *
+     * @param fraction the fraction, for example {@code 0.99} for the 99th percentile
+     * @return the percentile in microseconds, or 0 if nothing has been recorded
+     */
+    long percentile(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Clears every bucket.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A read-only {@link WhiskeyRepository} that serves the catalog straight from a memory-mapped {@link CatalogFile}.
+ *
+ * {@link #connect()} maps the file, decodes its small string dictionary and checks the file once: its
+ * checksum, and that every dictionary id and row position in the columns is in range. The row columns are
+ * then read in place through {@link IntBuffer} views of the mapping without further checks, nothing is
+ * copied onto the heap, and processes on the same host that map the same file share its pages in the
+ * operating system's page cache. Because rows are stored in paging order and the file holds age and price
+ * orderings, paging and range queries are binary searches over the mapping.
+ *
+ * The file is not watched for changes. Replacing it, as {@link CatalogFile#write} does, leaves this
+ * repository reading the file it mapped until it is connected again.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class MappedWhiskeyRepository implements WhiskeyRepository {
+
+    /**
+     * One mapping of the catalog file: its header fields, column views and dictionary.
+     */
+    private record Mapping(MappedByteBuffer buffer, int size, long changeVersion, int checksum,
+                           IntBuffer[] columns, String[] strings) {
+
+        int get(int column, int row) {
+            return columns[column].get(row);
+        }
+
+        WhiskeyDetails row(int i) {
+            return new WhiskeyDetails(strings[get(CatalogFile.DISTILLERY, i)], get(CatalogFile.AGE, i),
+                    strings[get(CatalogFile.REGION, i)], get(CatalogFile.PRICE, i));
+        }
+
+        List<WhiskeyDetails> rows(int from, int to) {
+            List<WhiskeyDetails> result = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                result.add(row(i));
+            }
+            return result;
+        }
+
+        /** Finds the first position in the given order column whose value is not less than the bound. */
+        int lowerBound(int orderColumn, int valueColumn, long bound) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (get(valueColumn, get(orderColumn, mid)) < bound) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        List<WhiskeyDetails> inRange(int orderColumn, int valueColumn, int lower, int upper) {
+            int from = lowerBound(orderColumn, valueColumn, lower);
+            int to = lowerBound(orderColumn, valueColumn, (long) upper + 1);
+            List<WhiskeyDetails> result = new ArrayList<>(Math.max(0, to - from));
+            for (int p = from; p < to; p++) {
+                result.add(row(get(orderColumn, p)));
+            }
+            return result;
+        }
+
+        int compareKey(int row, WhiskeyDetails key) {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(strings[get(CatalogFile.DISTILLERY, row)], key.distillery());
+            return c != 0 ? c : Integer.compare(get(CatalogFile.AGE, row), key.age());
+        }
+
+        /** Finds the first row whose key is greater than ({@code strict}) or not less than the given key. */
+        int keyPosition(WhiskeyDetails key, boolean strict) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compareKey(mid, key);
+                if (c < 0 || (strict && c == 0)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private final Path file;
+    private volatile Mapping mapping;
+    private volatile DistilleryIndex distilleries;
+    private volatile List<RegionStats> regionStats;
+
+    /**
+     * Constructs a new repository that serves the given catalog file.
+     *
+     * @param file the catalog file, written by {@link CatalogFile#write}
+     */
+    public MappedWhiskeyRepository(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Maps the catalog file and checks its header, length and checksum, and that the dictionary ids and row
+     * positions in its columns are in range, so queries can read the columns without checking them.
+     *
+     * @throws SQLException if the file cannot be mapped, is not a catalog file of a supported version, or is
+     *         corrupt; the repository is left unchanged
+     */
+    @Override
+    public void connect() throws SQLException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < CatalogFile.HEADER_SIZE) {
+                throw new SQLException("Catalog file is truncated: " + file);
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new SQLException("Catalog file is larger than 2 GB: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != CatalogFile.MAGIC) {
+                throw new SQLException("Not a catalog file: " + file);
+            }
+            if (buffer.getInt(4) != CatalogFile.FORMAT_VERSION) {
+                throw new SQLException("Unsupported catalog file version " + buffer.getInt(4) + ": " + file);
+            }
+            int size = buffer.getInt(8);
+            int stringCount = buffer.getInt(12);
+            long offsetsStart = CatalogFile.HEADER_SIZE + (long) CatalogFile.COLUMNS * 4 * size;
+            long stringsStart = offsetsStart + 4L * (stringCount + 1);
+            if (size < 0 || stringCount < 0 || stringsStart > length) {
+                throw new SQLException("Catalog file is truncated: " + file);
+            }
+
+            IntBuffer[] columns = new IntBuffer[CatalogFile.COLUMNS];
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = buffer.slice(CatalogFile.HEADER_SIZE + c * 4 * size, 4 * size)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            }
+            String[] strings = new String[stringCount];
+            for (int s = 0; s < stringCount; s++) {
+                int from = buffer.getInt((int) offsetsStart + 4 * s);
+                int to = buffer.getInt((int) offsetsStart + 4 * (s + 1));
+                if (from < 0 || to < from || stringsStart + to > length) {
+                    throw new SQLException("Catalog file is truncated: " + file);
+                }
+                byte[] bytes = new byte[to - from];
+                buffer.get((int) stringsStart + from, bytes);
+                strings[s] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            Mapping m = new Mapping(buffer, size, buffer.getLong(16), buffer.getInt(24), columns, strings);
+            if (!checksumMatches(m)) {
+                throw new SQLException("Checksum mismatch in catalog file: " + file);
+            }
+            checkRange(m, CatalogFile.DISTILLERY, stringCount);
+            checkRange(m, CatalogFile.REGION, stringCount);
+            checkRange(m, CatalogFile.AGE_ORDER, size);
+            checkRange(m, CatalogFile.PRICE_ORDER, size);
+            mapping = m;
+            distilleries = null;
+            regionStats = null;
+        } catch (IOException e) {
+            throw new SQLException("Error mapping catalog file: " + e.getMessage());
+        }
+    }
+
+    private void checkRange(Mapping m, int column, int bound) throws SQLException {
+        IntBuffer values = m.columns()[column];
+        for (int i = 0; i < m.size(); i++) {
+            int v = values.get(i);
+            if (v < 0 || v >= bound) {
+                throw new SQLException("Value " + v + " out of range in column " + column + " of catalog file: " + file);
+            }
+        }
+    }
+
+    private static boolean checksumMatches(Mapping m) {
+        CRC32 crc = new CRC32();
+        crc.update(m.buffer().slice(CatalogFile.HEADER_SIZE, m.buffer().capacity() - CatalogFile.HEADER_SIZE));
+        return (int) crc.getValue() == m.checksum();
+    }
+
+    /**
+     * Releases the mapping. The pages are unmapped once no query still refers to them.
+     */
+    @Override
+    public void disconnect() {
+        mapping = null;
+        distilleries = null;
+        regionStats = null;
+    }
+
+    /**
+     * Reads every byte of the catalog after the header again and compares its CRC-32 with the one in the
+     * header, to detect a file changed in place since it was mapped.
+     *
+     * @return {@code true} if the checksum matches
+     * @throws SQLException if the repository is not connected
+     */
+    public boolean verify() throws SQLException {
+        return checksumMatches(mapped());
+    }
+
+    /**
+     * Returns the change log version recorded when the catalog file was written.
+     *
+     * @return the change version, or 0 if the file was not exported from a change log
+     * @throws SQLException if the repository is not connected
+     */
+    public long getChangeVersion() throws SQLException {
+        return mapped().changeVersion();
+    }
+
+    private Mapping mapped() throws SQLException {
+        Mapping m = mapping;
+        if (m == null) {
+            throw new SQLException("Catalog file is not mapped: " + file);
+        }
+        return m;
+    }
+
+    @Override
+    public List<WhiskeyDetails> getAllMalts() throws SQLException {
+        Mapping m = mapped();
+        return m.rows(0, m.size());
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsFromRegion(String r) throws SQLException {
+        Mapping m = mapped();
+        int[] ids = new int[m.strings().length];
+        int count = 0;
+        for (int s = 0; s < ids.length; s++) {
+            if (m.strings()[s].equalsIgnoreCase(r)) {
+                ids[count++] = s;
+            }
+        }
+        List<WhiskeyDetails> result = new ArrayList<>();
+        for (int i = 0; i < m.size() && count > 0; i++) {
+            int region = m.get(CatalogFile.REGION, i);
+            for (int k = 0; k < count; k++) {
+                if (ids[k] == region) {
+                    result.add(m.row(i));
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves single malt whiskeys within the specified age range by binary search in the age order column.
+     * Results are returned in ascending age order.
+     *
+     * @param r1 the minimum age (inclusive)
+     * @param r2 the maximum age (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the age range
+     * @throws SQLException if the repository is not connected
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) throws SQLException {
+        return mapped().inRange(CatalogFile.AGE_ORDER, CatalogFile.AGE, r1, r2);
+    }
+
+    /**
+     * Retrieves single malt whiskeys within the specified price range by binary search in the price order column.
+     * Results are returned in ascending price order.
+     *
+     * @param p1 the minimum price (inclusive)
+     * @param p2 the maximum price (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the price range
+     * @throws SQLException if the repository is not connected
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) throws SQLException {
+        return mapped().inRange(CatalogFile.PRICE_ORDER, CatalogFile.PRICE, p1, p2);
+    }
+
+    /**
+     * Suggests distillery names from a {@link DistilleryIndex} built from the mapping on first use.
+     *
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names in alphabetical order
+     * @throws SQLException if the repository is not connected
+     */
+    @Override
+    public List<String> suggestDistilleries(String prefix, int limit) throws SQLException {
+        DistilleryIndex index = distilleries;
+        if (index == null) {
+            Mapping m = mapped();
+            List<String> names = new ArrayList<>(m.size());
+            for (int i = 0; i < m.size(); i++) {
+                names.add(m.strings()[m.get(CatalogFile.DISTILLERY, i)]);
+            }
+            index = DistilleryIndex.build(names);
+            distilleries = index;
+        }
+        return index.suggest(prefix, limit);
+    }
+
+    /**
+     * Computes the statistics of each region from the mapping on first use; the file does not change
+     * while it is mapped, so they are kept until the next connect.
+     *
+     * @return the statistics of each region, ordered by region name
+     * @throws SQLException if the repository is not connected
+     */
+    @Override
+    public List<RegionStats> getRegionStats() throws SQLException {
+        List<RegionStats> stats = regionStats;
+        if (stats == null) {
+            Mapping m = mapped();
+            int[] region = new int[m.size()];
+            int[] age = new int[m.size()];
+            int[] price = new int[m.size()];
+            m.columns()[CatalogFile.REGION].get(0, region);
+            m.columns()[CatalogFile.AGE].get(0, age);
+            m.columns()[CatalogFile.PRICE].get(0, price);
+            stats = RegionStatsIndex.build(m.size(), region, age, price, m.strings()).stats();
+            regionStats = stats;
+        }
+        return stats;
+    }
+
+    @Override
+    public int countAllMalts() throws SQLException {
+        return mapped().size();
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageAfter(WhiskeyDetails after, int limit) throws SQLException {
+        Mapping m = mapped();
+        int from = (after == null) ? 0 : m.keyPosition(after, true);
+        return m.rows(from, Math.min(m.size(), from + limit));
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageBefore(WhiskeyDetails before, int limit) throws SQLException {
+        Mapping m = mapped();
+        int to = (before == null) ? m.size() : m.keyPosition(before, false);
+        return m.rows(Math.max(0, to - limit), to);
+    }
+}
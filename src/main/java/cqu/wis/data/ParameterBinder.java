@@ -0,0 +1,17 @@
+package cqu.wis.data;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Functional interface used to set the parameters of a prepared statement before it is executed.
+ *
+ * A binder only sets parameters, so it can be applied again to another statement of the same shape, as
+ * {@link SlowQueryLog} does to record the parameters of a slow statement and explain it.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@FunctionalInterface
+interface ParameterBinder {
+    void bind(PreparedStatement stmt) throws SQLException;
+}
@@ -0,0 +1,133 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A physical JDBC connection on loan from a {@link ConnectionPool}.
+ *
+ * Closing a {@code PooledConnection} returns it to the pool rather than closing the underlying
+ * connection, so it is intended to be used in a try-with-resources block around a single query.
+ * Each connection keeps its own {@link StatementCache}, which lives as long as the physical connection.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private volatile long lastUsedNanos;
+    private volatile long borrowedAtNanos;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    /**
+     * Constructs a new wrapper around a freshly opened connection.
+     *
+     * @param pool the pool that owns the connection
+     * @param connection the physical connection
+     * @param statementCache the statement cache for {@code connection}
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the underlying connection. It must not be closed or used after this wrapper is closed.
+     *
+     * @return the physical {@link Connection}
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns a cached prepared statement for the given SQL, preparing it on first use.
+     * The statement belongs to this connection's cache and must not be closed by the caller.
+     *
+     * @param sql the SQL text of the statement
+     * @return a prepared statement with its parameters cleared
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statementCache.prepare(sql);
+    }
+
+    /**
+     * Returns the statement cache of this connection.
+     *
+     * @return the {@link StatementCache}
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Returns the connection to its pool.
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    void markBorrowed(Throwable site) {
+        borrowedAtNanos = System.nanoTime();
+        borrowSite = site;
+        leakReported = false;
+    }
+
+    void markReturned() {
+        lastUsedNanos = System.nanoTime();
+        borrowSite = null;
+    }
+
+    void markLeakReported() {
+        leakReported = true;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    long getBorrowedAtNanos() {
+        return borrowedAtNanos;
+    }
+
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    boolean isPhysicallyClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    void closePhysical() {
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+}
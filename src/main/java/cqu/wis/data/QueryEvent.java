@@ -0,0 +1,81 @@
+package cqu.wis.data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one database query or update, so a recording can line up slow
+ * screens with the JDBC calls behind them and with GC pauses.
+ *
+ * The event records the SQL text, which contains placeholders rather than values, and a hash of the
+ * values instead, so it shows whether slow calls share their parameters without recording user input.
+ * The fields are only filled in when the event is enabled and passes its threshold; with Flight Recorder
+ * off, a call costs an object the JIT can usually eliminate and a check of one flag.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@Name("cqu.wis.Query")
+@Label("Database Query")
+@Category({"Whiskey Information System", "Database"})
+@Description("A query or update run on the whiskey or user database")
+@StackTrace(false)
+final class QueryEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Parameters Hash")
+    int parametersHash;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    private transient QueryStats stats;
+
+    /**
+     * Begins an event for a call of the given operation.
+     *
+     * @param stats the statistics of the operation, which name it
+     * @return the event, timing from now
+     */
+    static QueryEvent start(QueryStats stats) {
+        QueryEvent event = new QueryEvent();
+        event.stats = stats;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if it is enabled and lasted longer than its threshold.
+     *
+     * @param sql the SQL text that was run
+     * @param parametersHash a hash of the parameter values
+     * @param rows the number of rows returned or updated
+     * @param failed whether the call failed
+     */
+    void finish(String sql, int parametersHash, long rows, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.source = stats.getSource();
+            this.operation = stats.getName();
+            this.sql = sql;
+            this.parametersHash = parametersHash;
+            this.rows = rows;
+            this.failed = failed;
+            commit();
+        }
+    }
+}
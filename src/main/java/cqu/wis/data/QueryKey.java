@@ -0,0 +1,29 @@
+package cqu.wis.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Identifies one query and its parameter values, for example {@code ("region", ["islay"])}.
+ * Two keys are equal when they name the same query with equal parameters, so a key can be used
+ * to look up a cached or in-flight result for an identical query.
+ *
+ * @param query the name of the query
+ * @param parameters the parameter values of the query
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public record QueryKey(String query, List<Object> parameters) {
+
+    /**
+     * Creates a key for the given query and parameter values.
+     *
+     * @param query the name of the query
+     * @param parameters the parameter values of the query, which may include {@code null}
+     * @return the key
+     */
+    public static QueryKey of(String query, Object... parameters) {
+        return new QueryKey(query, Collections.unmodifiableList(Arrays.asList(parameters.clone())));
+    }
+}
@@ -0,0 +1,74 @@
+package cqu.wis.data;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The {@link QueryStats} of the operations of one data source, such as {@link WhiskeyData}.
+ *
+ * There is one set of statistics per data source for the whole process, shared by every instance of it.
+ * Each operation's statistics are registered with the platform MBean server as
+ * {@code cqu.wis:type=QueryStats,source=<source>,name=<operation>} when they are first created, so JConsole
+ * or any other JMX client can read them while the application runs.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class QueryMetrics {
+
+    /** JMX domain of the statistics. */
+    public static final String DOMAIN = "cqu.wis";
+
+    private static final Map<String, QueryMetrics> SOURCES = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final Map<String, QueryStats> operations = new ConcurrentSkipListMap<>();
+
+    private QueryMetrics(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns the statistics of the given data source, creating them on first use.
+     *
+     * @param source the name of the data source, for example {@code WhiskeyData}
+     * @return the statistics of the source
+     */
+    public static QueryMetrics forSource(String source) {
+        return SOURCES.computeIfAbsent(source, QueryMetrics::new);
+    }
+
+    /**
+     * Returns the statistics of an operation, creating and registering them on first use. Data sources look
+     * their operations up once and keep them, so no lookup is made when a call is recorded.
+     *
+     * @param name the name of the operation, for example {@code getAllMalts}
+     * @return the statistics of the operation
+     */
+    public QueryStats operation(String name) {
+        return operations.computeIfAbsent(name, n -> {
+            QueryStats stats = new QueryStats(source, n);
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(DOMAIN
+                        + ":type=QueryStats,source=" + source + ",name=" + n));
+            } catch (JMException e) {
+                System.err.println("Error publishing statistics of " + source + "." + n + ": " + e.getMessage());
+            }
+            return stats;
+        });
+    }
+
+    /** @return the statistics of every operation of the source, in name order */
+    public Collection<QueryStats> operations() {
+        return operations.values();
+    }
+
+    /** @return the name of the data source */
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,147 @@
+package cqu.wis.data;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency, row count and errors of every call of one data access operation.
+ *
+ * Recording is lock-free and does not allocate: the latency goes into a {@link LatencyHistogram} and the
+ * totals into {@link LongAdder}s, so concurrent callers do not contend on one counter. Failed calls are
+ * counted as errors and their latency is recorded with the others, since a slow failure is as visible to
+ * the user as a slow success.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class QueryStats implements QueryStatsMXBean {
+
+    private final String source;
+    private final String name;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    QueryStats(String source, String name) {
+        this.source = source;
+        this.name = name;
+    }
+
+    /**
+     * Records a successful call.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the call started
+     * @param rowCount the number of rows returned or updated
+     */
+    public void record(long startNanos, long rowCount) {
+        recordLatency(startNanos);
+        rows.add(rowCount);
+    }
+
+    /**
+     * Records a successful call that returned the given rows.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the call started
+     * @param result the rows returned
+     * @param <T> the type of the result
+     * @return the result, so a call can be recorded as it is returned
+     */
+    public <T extends Collection<?>> T recordRows(long startNanos, T result) {
+        record(startNanos, result.size());
+        return result;
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the call started
+     */
+    public void recordError(long startNanos) {
+        recordLatency(startNanos);
+        errors.increment();
+    }
+
+    private void recordLatency(long startNanos) {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        latencies.record(micros);
+        totalMicros.add(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // another caller raised the maximum; compare again
+        }
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latencies.count();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = getCount();
+        return (n == 0) ? 0 : totalMicros.sum() / 1000.0 / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latencies.percentile(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latencies.percentile(0.90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latencies.percentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latencies.percentile(0.999) / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+        totalMicros.reset();
+        rows.reset();
+        errors.reset();
+        maxMicros.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s: %d calls, %d errors, %d rows, mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                source, name, getCount(), getErrorCount(), getRowCount(), getMeanMillis(), getP50Millis(),
+                getP99Millis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,49 @@
+package cqu.wis.data;
+
+/**
+ * The latency, row and error statistics of one data access operation, as published over JMX.
+ *
+ * Latencies are in milliseconds; percentiles are accurate to within 12.5%.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public interface QueryStatsMXBean {
+
+    /** @return the data source the operation belongs to, for example {@code WhiskeyData} */
+    String getSource();
+
+    /** @return the name of the operation, for example {@code getAllMalts} */
+    String getName();
+
+    /** @return the number of calls, including failed ones */
+    long getCount();
+
+    /** @return the number of calls that failed */
+    long getErrorCount();
+
+    /** @return the total number of rows returned or updated */
+    long getRowCount();
+
+    /** @return the mean latency */
+    double getMeanMillis();
+
+    /** @return the longest latency */
+    double getMaxMillis();
+
+    /** @return the median latency */
+    double getP50Millis();
+
+    /** @return the 90th percentile latency */
+    double getP90Millis();
+
+    /** @return the 99th percentile latency */
+    double getP99Millis();
+
+    /** @return the 99.9th percentile latency */
+    double getP999Millis();
+
+    /**
+     * Clears the statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,56 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Helpers that build the region-to-malts map returned by {@link WhiskeyRepository#getMaltsFromRegions}.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class RegionGroups {
+
+    private RegionGroups() {
+    }
+
+    /**
+     * Creates a map with an empty list for each distinct region, ignoring case, keyed by the region as
+     * first given and in the order the regions were given.
+     *
+     * @param regions the requested regions
+     * @return the map of empty, mutable lists
+     */
+    static Map<String, List<WhiskeyDetails>> empty(Collection<String> regions) {
+        Map<String, String> seen = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, List<WhiskeyDetails>> grouped = new LinkedHashMap<>();
+        for (String r : regions) {
+            if (seen.putIfAbsent(r, r) == null) {
+                grouped.put(r, new ArrayList<>());
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Adds each record to the list of the region it belongs to, matching regions without regard to case.
+     * Records of regions that are not in the map are ignored.
+     *
+     * @param rows the records to group
+     * @param grouped a map created by {@link #empty}
+     */
+    static void addAll(List<WhiskeyDetails> rows, Map<String, List<WhiskeyDetails>> grouped) {
+        Map<String, List<WhiskeyDetails>> byRegion = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byRegion.putAll(grouped);
+        for (WhiskeyDetails d : rows) {
+            List<WhiskeyDetails> list = byRegion.get(d.region());
+            if (list != null) {
+                list.add(d);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package cqu.wis.data;
+
+/**
+ * Aggregate price and age statistics of the single malts of one region.
+ *
+ * @param region the region name
+ * @param count the number of malts from the region
+ * @param minPrice the lowest price
+ * @param maxPrice the highest price
+ * @param averagePrice the mean price
+ * @param medianPrice the median price; the mean of the two middle prices when the count is even
+ * @param minAge the lowest age
+ * @param maxAge the highest age
+ * @param averageAge the mean age
+ * @param medianAge the median age; the mean of the two middle ages when the count is even
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public record RegionStats(String region, int count,
+                          int minPrice, int maxPrice, double averagePrice, double medianPrice,
+                          int minAge, int maxAge, double averageAge, double medianAge) {
+}
@@ -0,0 +1,205 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * The sorted prices and ages of the malts of each region, from which {@link RegionStats} are read without
+ * scanning the catalog.
+ *
+ * Each region holds its prices and ages in sorted {@code int[]} arrays together with their sums, so the count,
+ * minimum, maximum, mean and median are each read in constant time. Regions are grouped without regard to case,
+ * as the database groups them. The index is immutable; {@link #update} returns a new index in which only the
+ * regions of the changed rows are rebuilt, by merging their sorted arrays with the changed values.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class RegionStatsIndex {
+
+    /** The sorted values of one region. */
+    private record Region(String name, int[] prices, long priceSum, int[] ages, long ageSum) {
+
+        RegionStats stats() {
+            int n = prices.length;
+            return new RegionStats(name, n,
+                    prices[0], prices[n - 1], (double) priceSum / n, median(prices),
+                    ages[0], ages[n - 1], (double) ageSum / n, median(ages));
+        }
+
+        private static double median(int[] sorted) {
+            int n = sorted.length;
+            return (n % 2 == 1) ? sorted[n / 2] : (sorted[n / 2 - 1] + (double) sorted[n / 2]) / 2;
+        }
+    }
+
+    private static final RegionStatsIndex EMPTY = new RegionStatsIndex(new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+
+    private final TreeMap<String, Region> regions;
+
+    private RegionStatsIndex(TreeMap<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Builds the index from columns of the catalog in one pass that buckets each row by region id, followed by
+     * a sort of each region's values.
+     *
+     * @param size the number of rows
+     * @param region the region id of each row
+     * @param age the age of each row
+     * @param price the price of each row
+     * @param regionNames the name of each region id
+     * @return the index
+     */
+    static RegionStatsIndex build(int size, int[] region, int[] age, int[] price, String[] regionNames) {
+        // Region ids whose names differ only in case share a group, named with the spelling of its first id
+        TreeMap<String, Integer> groupIds = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int[] group = new int[regionNames.length];
+        for (int id = 0; id < regionNames.length; id++) {
+            group[id] = groupIds.computeIfAbsent(regionNames[id], name -> groupIds.size());
+        }
+        int groups = groupIds.size();
+        int[] counts = new int[groups];
+        for (int i = 0; i < size; i++) {
+            counts[group[region[i]]]++;
+        }
+        int[][] prices = new int[groups][];
+        int[][] ages = new int[groups][];
+        for (int g = 0; g < groups; g++) {
+            prices[g] = new int[counts[g]];
+            ages[g] = new int[counts[g]];
+        }
+        int[] filled = new int[groups];
+        for (int i = 0; i < size; i++) {
+            int g = group[region[i]];
+            prices[g][filled[g]] = price[i];
+            ages[g][filled[g]++] = age[i];
+        }
+
+        TreeMap<String, Region> built = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, Integer> e : groupIds.entrySet()) {
+            int g = e.getValue();
+            if (counts[g] > 0) {
+                Arrays.sort(prices[g]);
+                Arrays.sort(ages[g]);
+                built.put(e.getKey(), new Region(e.getKey(),
+                        prices[g], Arrays.stream(prices[g]).asLongStream().sum(),
+                        ages[g], Arrays.stream(ages[g]).asLongStream().sum()));
+            }
+        }
+        return new RegionStatsIndex(built);
+    }
+
+    /**
+     * Builds the index from a list of malts.
+     *
+     * @param malts the malts
+     * @return the index
+     */
+    static RegionStatsIndex build(Collection<WhiskeyDetails> malts) {
+        return EMPTY.update(List.of(), malts);
+    }
+
+    /**
+     * Returns the index that results from removing and adding the given rows. A region is dropped once its
+     * last malt has been removed.
+     *
+     * @param removed the rows removed, with the values they had
+     * @param added the rows added, with their new values
+     * @return the updated index
+     */
+    RegionStatsIndex update(Collection<WhiskeyDetails> removed, Collection<WhiskeyDetails> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+        TreeMap<String, List<WhiskeyDetails>> removedByRegion = byRegion(removed);
+        TreeMap<String, List<WhiskeyDetails>> addedByRegion = byRegion(added);
+        TreeMap<String, Region> updated = new TreeMap<>(regions);
+        TreeSet<String> changed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        changed.addAll(removedByRegion.keySet());
+        changed.addAll(addedByRegion.keySet());
+
+        for (String r : changed) {
+            Region old = regions.get(r);
+            List<WhiskeyDetails> out = removedByRegion.getOrDefault(r, List.of());
+            List<WhiskeyDetails> in = addedByRegion.getOrDefault(r, List.of());
+            int[] prices = merge((old == null) ? new int[0] : old.prices(),
+                    sorted(out, WhiskeyDetails::price), sorted(in, WhiskeyDetails::price));
+            int[] ages = merge((old == null) ? new int[0] : old.ages(),
+                    sorted(out, WhiskeyDetails::age), sorted(in, WhiskeyDetails::age));
+            if (prices.length == 0) {
+                updated.remove(r);
+                continue;
+            }
+            long priceSum = (old == null) ? 0 : old.priceSum();
+            long ageSum = (old == null) ? 0 : old.ageSum();
+            for (WhiskeyDetails d : out) {
+                priceSum -= d.price();
+                ageSum -= d.age();
+            }
+            for (WhiskeyDetails d : in) {
+                priceSum += d.price();
+                ageSum += d.age();
+            }
+            String name = (old != null) ? old.name() : in.get(0).region();
+            updated.put(name, new Region(name, prices, priceSum, ages, ageSum));
+        }
+        return new RegionStatsIndex(updated);
+    }
+
+    /**
+     * @return the statistics of every region, ordered by region name without regard to case
+     */
+    List<RegionStats> stats() {
+        List<RegionStats> result = new ArrayList<>(regions.size());
+        for (Region r : regions.values()) {
+            result.add(r.stats());
+        }
+        return result;
+    }
+
+    private static TreeMap<String, List<WhiskeyDetails>> byRegion(Collection<WhiskeyDetails> rows) {
+        TreeMap<String, List<WhiskeyDetails>> grouped = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (WhiskeyDetails d : rows) {
+            grouped.computeIfAbsent(d.region(), r -> new ArrayList<>()).add(d);
+        }
+        return grouped;
+    }
+
+    private static int[] sorted(List<WhiskeyDetails> rows, ToIntFunction<WhiskeyDetails> value) {
+        return rows.stream().mapToInt(value).sorted().toArray();
+    }
+
+    /**
+     * Merges sorted arrays: the result holds the values of {@code base}, less one occurrence of each value
+     * in {@code removed}, plus the values in {@code added}, in ascending order. Every removed value must
+     * occur in {@code base}.
+     */
+    private static int[] merge(int[] base, int[] removed, int[] added) {
+        int[] merged = new int[base.length - removed.length + added.length];
+        int out = 0;
+        int r = 0;
+        int a = 0;
+        for (int value : base) {
+            if (r < removed.length && removed[r] == value) {
+                r++;
+                continue;
+            }
+            while (a < added.length && added[a] < value) {
+                merged[out++] = added[a++];
+            }
+            merged[out++] = value;
+        }
+        while (a < added.length) {
+            merged[out++] = added[a++];
+        }
+        return merged;
+    }
+}
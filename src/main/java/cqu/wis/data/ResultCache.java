@@ -0,0 +1,303 @@
+package cqu.wis.data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded, thread-safe cache of query results.
+ *
+ * Entries are evicted in least-recently-used order whenever the cache holds more than its maximum
+ * number of entries or its total weight (for example the number of rows cached) exceeds the maximum
+ * weight. Each entry also expires a fixed time after it was stored. Entries can be invalidated
+ * individually, by predicate or all at once. Hit, miss, eviction and expiry counts are kept.
+ *
+ * Values are loaded outside the cache lock, so a slow query never blocks lookups of other keys.
+ * A value whose load started before an invalidation is returned to its caller but not cached.
+ *
+ * @param <K> the key type
+ * @param <V> the value type; values should be immutable because they are shared between callers
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class ResultCache<K, V> {
+
+    /**
+     * Loads a value that is missing from the cache.
+     *
+     * @param <V> the value type
+     * @param <E> the exception the load may throw
+     */
+    @FunctionalInterface
+    public interface Loader<V, E extends Exception> {
+        V load() throws E;
+    }
+
+    /**
+     * Loads several values that are missing from the cache in one operation.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param <E> the exception the load may throw
+     */
+    @FunctionalInterface
+    public interface BulkLoader<K, V, E extends Exception> {
+        Map<K, V> load(List<K> missing) throws E;
+    }
+
+    /**
+     * Configuration values for a {@link ResultCache}.
+     *
+     * @param maxEntries the maximum number of entries held
+     * @param maxWeight the maximum total weight of the entries held
+     * @param ttl how long an entry stays valid after it is stored
+     */
+    public record Settings(int maxEntries, long maxWeight, Duration ttl) {}
+
+    private record Entry<V>(V value, int weight, long expiresAtNanos) {}
+
+    private final Settings settings;
+    private final ToIntFunction<V> weigher;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long generation;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param settings the cache limits
+     * @param weigher computes the weight of a value
+     */
+    public ResultCache(Settings settings, ToIntFunction<V> weigher) {
+        this(settings, weigher, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new cache that reads the time from the given clock, used for testing expiry.
+     *
+     * @param settings the cache limits
+     * @param weigher computes the weight of a value
+     * @param clock returns the current time in nanoseconds
+     */
+    ResultCache(Settings settings, ToIntFunction<V> weigher, LongSupplier clock) {
+        this.settings = settings;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it if it is missing or expired.
+     *
+     * @param key the key to look up
+     * @param loader loads the value on a miss
+     * @param <E> the exception the loader may throw
+     * @return the cached or newly loaded value
+     * @throws E if the loader fails; nothing is cached in that case
+     */
+    public <E extends Exception> V get(K key, Loader<V, E> loader) throws E {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        V value = loader.load();
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached values for several keys, loading all of the missing ones with a single call to the loader.
+     *
+     * @param keys the keys to look up
+     * @param loader loads the values of the missing keys; a key it returns no value for is left out of the result
+     * @param <E> the exception the loader may throw
+     * @return the cached or newly loaded value of each distinct key, in the order of {@code keys}
+     * @throws E if the loader fails; nothing is cached in that case
+     */
+    public <E extends Exception> Map<K, V> getAll(Collection<K> keys, BulkLoader<K, V, E> loader) throws E {
+        Map<K, V> found = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (this) {
+            for (K key : new LinkedHashSet<>(keys)) {
+                V cached = getIfPresent(key);
+                if (cached != null) {
+                    found.put(key, cached);
+                } else {
+                    missing.add(key);
+                }
+            }
+            loadGeneration = generation;
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<K, V> loaded = loader.load(missing);
+        synchronized (this) {
+            for (K key : missing) {
+                V value = loaded.get(key);
+                if (value != null && generation == loadGeneration) {
+                    put(key, value);
+                }
+            }
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.containsKey(key) ? found.get(key) : loaded.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached value for the key, counting a hit or a miss.
+     *
+     * @param key the key to look up
+     * @return the cached value or {@code null} if it is missing or expired
+     */
+    public synchronized V getIfPresent(K key) {
+        Entry<V> e = entries.get(key);
+        if (e != null && e.expiresAtNanos() - clock.getAsLong() <= 0) {
+            remove(key);
+            expirations++;
+            e = null;
+        }
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.value();
+    }
+
+    /**
+     * Stores a value, evicting least recently used entries until the cache is within its limits.
+     * A value heavier than the maximum weight is not stored.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public synchronized void put(K key, V value) {
+        int weight = weigher.applyAsInt(value);
+        remove(key);
+        if (weight > settings.maxWeight()) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, weight, clock.getAsLong() + settings.ttl().toNanos()));
+        totalWeight += weight;
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > settings.maxEntries() || totalWeight > settings.maxWeight()) && eldest.hasNext()) {
+            totalWeight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the entry for the given key.
+     *
+     * @param key the key to invalidate
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        remove(key);
+    }
+
+    /**
+     * Removes every entry whose key matches the predicate.
+     *
+     * @param predicate selects the keys to invalidate
+     */
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        generation++;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey())) {
+                totalWeight -= e.getValue().weight();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    private void remove(K key) {
+        Entry<V> old = entries.remove(key);
+        if (old != null) {
+            totalWeight -= old.weight();
+        }
+    }
+
+    /** @return a number that changes whenever entries are invalidated */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /** @return the number of entries held */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** @return the total weight of the entries held */
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    /** @return the number of lookups answered from the cache */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of lookups that were not answered from the cache */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** @return the fraction of lookups answered from the cache, or 0 if there have been none */
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /** @return the number of entries removed to stay within the size and weight limits */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /** @return the number of entries removed because they expired */
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+}
@@ -0,0 +1,88 @@
+package cqu.wis.data;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses identical concurrent loads into one.
+ *
+ * The first caller for a key runs the load; callers that ask for the same key while it is still running
+ * wait for it and receive the same result, or the same exception, instead of running the load again.
+ * Once a load finishes the key is forgotten, so later calls load afresh. Counts of calls, loads actually
+ * run and calls collapsed into another caller's load are kept.
+ *
+ * @param <K> the key type, for example {@link QueryKey}
+ * @param <V> the value type; values should be immutable because they are shared between callers
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    /**
+     * Runs the load for the key, or waits for the load already running for it.
+     *
+     * @param key the key identifying the load
+     * @param loader loads the value if no load for the key is running
+     * @param <E> the exception the loader may throw
+     * @return the loaded value
+     * @throws E if the load fails
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Exception> V execute(K key, ResultCache.Loader<V, E> loader) throws E {
+        calls.increment();
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException re) {
+                    throw re;
+                }
+                if (cause instanceof Error err) {
+                    throw err;
+                }
+                throw (E) cause;
+            }
+        }
+
+        executions.increment();
+        try {
+            V value = loader.load();
+            mine.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** @return the number of calls to {@link #execute} */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /** @return the number of loads actually run */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /** @return the number of calls that shared a load already running for the same key */
+    public long getCoalescedCount() {
+        return calls.sum() - executions.sum();
+    }
+
+    /** @return the number of loads running now */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
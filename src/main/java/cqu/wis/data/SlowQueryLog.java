@@ -0,0 +1,216 @@
+package cqu.wis.data;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs the statements of {@link WhiskeyData} and {@link UserData} that take longer than a threshold, with
+ * their SQL, bound parameters, duration and row count. The first time a statement shape is slow, its
+ * {@code EXPLAIN} plan is captured from the database and logged with it, so a missing index shows up as a
+ * full table scan next to the slow calls it causes.
+ *
+ * The query path only compares the elapsed time with the threshold and, for a slow statement, queues an
+ * entry. Reading the parameters, running {@code EXPLAIN} on a connection of its own and writing the entry
+ * all happen on a single background thread. If the queue is full, the entry is dropped and counted rather
+ * than waited for.
+ *
+ * The shared log is configured with system properties:
+ * {@code -Dwis.slowquery.millis=<ms>} sets the threshold, 1000 ms by default, and a negative value turns
+ * the log off; {@code -Dwis.slowquery.file=<path>} appends the log to a file instead of standard error.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class SlowQueryLog {
+
+    /** Number of entries that can wait to be written before further entries are dropped. */
+    private static final int QUEUE_SIZE = 256;
+
+    private static final SlowQueryLog SHARED = configured();
+
+    /** A slow statement waiting to be written. */
+    private record Entry(Instant time, QueryStats stats, ConnectionPool pool, String sql, ParameterBinder binder,
+            long nanos, long rows, boolean failed) {}
+
+    private final long thresholdNanos;
+    private final PrintStream out;
+    private final ThreadPoolExecutor writer;
+    private final Set<String> explained = ConcurrentHashMap.newKeySet();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a log that writes statements taking at least the given time to the given stream.
+     *
+     * @param thresholdMillis the threshold in milliseconds, or a negative value to log nothing
+     * @param out the stream to write the log to
+     */
+    SlowQueryLog(long thresholdMillis, PrintStream out) {
+        this.thresholdNanos = thresholdMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.out = out;
+        this.writer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+                Thread.ofVirtual().name("SLOW-QUERY-LOG").factory());
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the log shared by the data sources, configured from the system properties described above.
+     *
+     * @return the shared log
+     */
+    public static SlowQueryLog shared() {
+        return SHARED;
+    }
+
+    private static SlowQueryLog configured() {
+        long millis = Long.getLong("wis.slowquery.millis", 1000);
+        String file = System.getProperty("wis.slowquery.file");
+        PrintStream out = System.err;
+        if (file != null && millis >= 0) {
+            try {
+                out = new PrintStream(new FileOutputStream(file, true), false, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Error opening slow query log, using standard error: " + e.getMessage());
+            }
+        }
+        return new SlowQueryLog(millis, out);
+    }
+
+    /**
+     * Records a statement that has just finished if it took at least the threshold. The entry is written in
+     * the background, and the binder is applied again there to read the parameters and to explain the statement,
+     * so it must not depend on state that changes after the call.
+     *
+     * @param stats the statistics of the operation, which name it
+     * @param pool the pool to borrow a connection from to explain the statement
+     * @param sql the SQL text of the statement
+     * @param binder sets the parameters of the statement
+     * @param startNanos the {@link System#nanoTime()} at which the statement started
+     * @param rows the number of rows returned or updated
+     * @param failed whether the statement failed
+     */
+    void record(QueryStats stats, ConnectionPool pool, String sql, ParameterBinder binder,
+            long startNanos, long rows, boolean failed) {
+        long nanos = System.nanoTime() - startNanos;
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        Entry entry = new Entry(Instant.now(), stats, pool, sql, binder, nanos, rows, failed);
+        try {
+            writer.execute(() -> write(entry));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Returns the number of slow statements written to the log.
+     *
+     * @return the number of entries written
+     */
+    public long getLoggedCount() {
+        return logged.sum();
+    }
+
+    /**
+     * Returns the number of slow statements that were not logged because too many were waiting to be written.
+     *
+     * @return the number of entries dropped
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void write(Entry entry) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s slow %s.%s: %d ms, %s%n", entry.time(), entry.stats().getSource(),
+                entry.stats().getName(), TimeUnit.NANOSECONDS.toMillis(entry.nanos()),
+                entry.failed() ? "failed" : entry.rows() + " rows"));
+        sb.append(String.format("  SQL: %s%n", entry.sql()));
+        try {
+            sb.append(String.format("  Parameters: %s%n", format(parameters(entry.binder()))));
+        } catch (SQLException | RuntimeException e) {
+            sb.append(String.format("  Parameters: unavailable (%s)%n", e.getMessage()));
+        }
+        if (explained.add(entry.sql())) {
+            explain(entry, sb);
+        }
+        out.print(sb);
+        out.flush();
+        logged.increment();
+    }
+
+    /**
+     * Runs {@code EXPLAIN} for the statement of an entry with the same parameters and appends the plan, one
+     * line per row. If the plan cannot be read, it is tried again the next time the statement is slow.
+     */
+    private void explain(Entry entry, StringBuilder sb) {
+        sb.append(String.format("  Plan:%n"));
+        try (PooledConnection pc = entry.pool().borrow();
+                PreparedStatement stmt = pc.getConnection().prepareStatement("EXPLAIN " + entry.sql())) {
+            entry.binder().bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData md = rs.getMetaData();
+                while (rs.next()) {
+                    sb.append("    ");
+                    for (int i = 1; i <= md.getColumnCount(); i++) {
+                        sb.append(i > 1 ? ", " : "").append(md.getColumnLabel(i)).append('=').append(rs.getString(i));
+                    }
+                    sb.append(System.lineSeparator());
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            explained.remove(entry.sql());
+            sb.append(String.format("    unavailable (%s)%n", e.getMessage()));
+        }
+    }
+
+    /**
+     * Reads the parameters a binder sets by applying it to a statement that only records them.
+     *
+     * @param binder the binder to read
+     * @return the parameter values in order of their index
+     * @throws SQLException if the binder fails
+     */
+    static List<Object> parameters(ParameterBinder binder) throws SQLException {
+        Map<Integer, Object> values = new TreeMap<>();
+        PreparedStatement recorder = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        values.put(index, method.getName().equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        binder.bind(recorder);
+        return new ArrayList<>(values.values());
+    }
+
+    private static String format(List<Object> parameters) {
+        List<String> values = new ArrayList<>(parameters.size());
+        for (Object value : parameters) {
+            values.add(value instanceof String s ? "'" + s + "'" : String.valueOf(value));
+        }
+        return values.toString();
+    }
+}
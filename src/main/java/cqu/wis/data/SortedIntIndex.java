@@ -0,0 +1,187 @@
+package cqu.wis.data;
+
+import java.util.Arrays;
+
+/**
+ * A read-only secondary index over an {@code int} column, used for in-process range lookups.
+ *
+ * The index holds the column values in sorted order together with the row id each value came from.
+ * A range lookup finds both ends of the range by binary search and returns the row ids in between,
+ * so it costs O(log n + k) for k matching rows and allocates a single {@code int[]} rather than one
+ * object per row.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class SortedIntIndex {
+
+    private final int[] values;
+    private final int[] rowIds;
+
+    private SortedIntIndex(int[] values, int[] rowIds) {
+        this.values = values;
+        this.rowIds = rowIds;
+    }
+
+    /**
+     * Builds an index over the first {@code size} entries of a column. Rows with equal values
+     * keep their row id order.
+     *
+     * @param column the column values, indexed by row id
+     * @param size the number of rows in the column
+     * @return the index
+     */
+    public static SortedIntIndex build(int[] column, int size) {
+        long[] packed = sortPacked(column, size);
+        int[] values = new int[size];
+        int[] rowIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (int) (packed[i] >> 32);
+            rowIds[i] = (int) packed[i];
+        }
+        return new SortedIntIndex(values, rowIds);
+    }
+
+    /**
+     * Returns the ids of the first {@code size} rows of a column sorted by value, with rows of equal value
+     * in row id order, without boxing the ids.
+     *
+     * @param column the column values, indexed by row id
+     * @param size the number of rows in the column
+     * @return the sorted row ids
+     */
+    static int[] sortedRowIds(int[] column, int size) {
+        long[] packed = sortPacked(column, size);
+        int[] rowIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowIds[i] = (int) packed[i];
+        }
+        return rowIds;
+    }
+
+    private static long[] sortPacked(int[] column, int size) {
+        // Pack each (value, row id) pair into one long so a primitive sort orders by value, then row id
+        long[] packed = new long[size];
+        for (int row = 0; row < size; row++) {
+            packed[row] = ((long) column[row] << 32) | row;
+        }
+        Arrays.sort(packed);
+        return packed;
+    }
+
+    /**
+     * Builds the index for a modified column from this one without sorting the unchanged rows again.
+     * Rows that were neither removed nor changed keep their relative order, so they are carried across in
+     * one pass under their new ids and merged with the changed rows, which are the only ones sorted.
+     * The result is the same as {@link #build(int[], int)} over the modified column.
+     *
+     * @param remap for each row id of this index, the new id of the row, or -1 if the row was removed or
+     *              may have changed its value; the new ids must keep the order of the old ones
+     * @param column the modified column values, indexed by new row id
+     * @param changedRows the new ids of the rows that were added or changed
+     * @return the index over the modified column
+     */
+    public SortedIntIndex update(int[] remap, int[] column, int[] changedRows) {
+        long[] changed = new long[changedRows.length];
+        for (int i = 0; i < changedRows.length; i++) {
+            changed[i] = ((long) column[changedRows[i]] << 32) | changedRows[i];
+        }
+        Arrays.sort(changed);
+
+        int size = changed.length;
+        for (int row : rowIds) {
+            if (remap[row] >= 0) {
+                size++;
+            }
+        }
+        int[] mergedValues = new int[size];
+        int[] mergedRowIds = new int[size];
+        int out = 0;
+        int c = 0;
+        for (int i = 0; i < values.length; i++) {
+            int row = remap[rowIds[i]];
+            if (row < 0) {
+                continue;
+            }
+            long kept = ((long) values[i] << 32) | row;
+            while (c < changed.length && changed[c] < kept) {
+                mergedValues[out] = (int) (changed[c] >> 32);
+                mergedRowIds[out++] = (int) changed[c++];
+            }
+            mergedValues[out] = values[i];
+            mergedRowIds[out++] = row;
+        }
+        while (c < changed.length) {
+            mergedValues[out] = (int) (changed[c] >> 32);
+            mergedRowIds[out++] = (int) changed[c++];
+        }
+        return new SortedIntIndex(mergedValues, mergedRowIds);
+    }
+
+    /**
+     * Returns the ids of the rows whose value lies within the given bounds, in ascending value order.
+     *
+     * @param lower the lower bound (inclusive)
+     * @param upper the upper bound (inclusive)
+     * @return the matching row ids, possibly empty
+     */
+    public int[] rowsInRange(int lower, int upper) {
+        if (upper < lower) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(rowIds, firstAtLeast(lower), firstGreaterThan(upper));
+    }
+
+    /**
+     * Returns the number of rows whose value lies within the given bounds.
+     *
+     * @param lower the lower bound (inclusive)
+     * @param upper the upper bound (inclusive)
+     * @return the number of matching rows
+     */
+    public int countInRange(int lower, int upper) {
+        return (upper < lower) ? 0 : firstGreaterThan(upper) - firstAtLeast(lower);
+    }
+
+    /** @return the number of rows in the index */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value at the given position in sorted order.
+     *
+     * @param position a position between 0 and {@link #size()} - 1
+     * @return the value at that position
+     */
+    public int valueAt(int position) {
+        return values[position];
+    }
+
+    /**
+     * Returns the row id at the given position in sorted order.
+     *
+     * @param position a position between 0 and {@link #size()} - 1
+     * @return the row id at that position
+     */
+    public int rowAt(int position) {
+        return rowIds[position];
+    }
+
+    private int firstAtLeast(int v) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int firstGreaterThan(int v) {
+        return (v == Integer.MAX_VALUE) ? values.length : firstAtLeast(v + 1);
+    }
+}
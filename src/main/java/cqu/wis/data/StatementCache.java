@@ -0,0 +1,121 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least-recently-used cache of {@link PreparedStatement} objects for a single connection, keyed by SQL text.
+ *
+ * Reusing a prepared statement skips parsing the SQL again and, with server-side prepared statements,
+ * the prepare round trip to the database. Statements handed out by the cache stay owned by it: callers
+ * must not close them, only their result sets. The least recently used statement is closed when the
+ * cache grows past its capacity.
+ *
+ * A cache belongs to one {@link PooledConnection} and is only used by the thread currently holding
+ * that connection, so it is not synchronized.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class StatementCache {
+
+    private final Connection connection;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private final LongAdder poolHits;
+    private final LongAdder poolMisses;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a new cache for the given connection.
+     *
+     * @param connection the connection statements are prepared on
+     * @param capacity the maximum number of statements kept open
+     * @param poolHits a counter shared by every cache in the pool, incremented on each hit
+     * @param poolMisses a counter shared by every cache in the pool, incremented on each miss
+     */
+    StatementCache(Connection connection, int capacity, LongAdder poolHits, LongAdder poolMisses) {
+        this.connection = connection;
+        this.poolHits = poolHits;
+        this.poolMisses = poolMisses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for the given SQL, preparing and caching it on a miss.
+     * Parameters left over from a previous use are cleared.
+     *
+     * @param sql the SQL text of the statement
+     * @return a prepared statement for {@code sql}
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            hits++;
+            poolHits.increment();
+            stmt.clearParameters();
+            return stmt;
+        }
+        misses++;
+        poolMisses.increment();
+        stmt = connection.prepareStatement(sql);
+        statements.put(sql, stmt);
+        return stmt;
+    }
+
+    /**
+     * Removes and closes the statement cached for the given SQL, for example after it failed.
+     *
+     * @param sql the SQL text of the statement
+     */
+    public void evict(String sql) {
+        PreparedStatement stmt = statements.remove(sql);
+        if (stmt != null) {
+            closeQuietly(stmt);
+        }
+    }
+
+    /**
+     * Closes every cached statement and empties the cache.
+     */
+    public void clear() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    /** @return the number of statements currently cached */
+    public int size() {
+        return statements.size();
+    }
+
+    /** @return the number of lookups answered from this cache */
+    public long getHits() {
+        return hits;
+    }
+
+    /** @return the number of lookups that had to prepare a new statement */
+    public long getMisses() {
+        return misses;
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing prepared statement: " + e.getMessage());
+        }
+    }
+}
@@ -6,16 +6,22 @@ import java.sql.*;
  * Provides data access functionality for user authentication and password management,
  * interacting with a MySQL database that stores usernames and passwords.
  *
- * This class manages database connections, retrieves user details and updates passwords.
+ * This class manages a {@link ConnectionPool} for the user database, retrieves user details and updates passwords.
+ * Each operation borrows its own connection from the pool and reuses that connection's cached prepared statement;
+ * a statement that fails is evicted from the cache so the next use prepares it again.
+ * It is the JDBC implementation of {@link UserRepository}. The latency, row count and errors of every
+ * operation are recorded in {@link #METRICS} and published over JMX, and each call is also emitted as a
+ * {@link QueryEvent} to Java Flight Recorder. Statements over the threshold of the {@link SlowQueryLog} are
+ * logged with their parameters and plan.
  * 
  * Note: Connection parameters such as database URL, user and password must be updated appropriately
  * for your local setup.
  * 
  * @author Ayush Bhandari S12157470
  */
-public class UserData {
+public class UserData implements UserRepository {
 
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/USERS"; // Update as needed
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/USERS?useServerPrepStmts=true"; // Update as needed
     private static final String DB_USER = "root"; // Update as needed
     private static final String DB_PASSWORD = "pass"; // Update as needed
 
@@ -36,8 +42,14 @@ public class UserData {
         }
     }
 
-    /** Active database connection instance. */
-    private Connection connection;
+    /** Latency, row and error statistics of each operation, published over JMX. */
+    public static final QueryMetrics METRICS = QueryMetrics.forSource("UserData");
+
+    private static final QueryStats GET_USER = METRICS.operation("getUser");
+    private static final QueryStats UPDATE_PASSWORD = METRICS.operation("updatePassword");
+
+    /** Pool of connections to the user database, created by {@link #connect()}. */
+    private ConnectionPool pool;
 
     /**
      * Default constructor for {@code UserData}.
@@ -47,32 +59,44 @@ public class UserData {
     }
 
     /**
-     * Establishes a connection to the user database.
+     * Creates the connection pool for the user database and opens a first connection
+     * to check that the database is reachable.
      *
      * @throws SQLException if a database access error occurs
      */
+    @Override
     public void connect() throws SQLException {
+        ConnectionPool p = ConnectionPool.open("USERS",
+                () -> DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD),
+                ConnectionPool.Settings.defaults());
         try {
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            p.borrow().close();
         } catch (SQLException e) {
+            p.close();
             throw new SQLException("Failed to connect to user database: " + e.getMessage());
         }
+        pool = p;
     }
 
     /**
-     * Closes the database connection if it is open.
-     * Logs any errors that occur during closure.
+     * Closes the connection pool and every idle connection to the user database.
      */
+    @Override
     public void disconnect() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
+        if (pool != null) {
+            pool.close();
         }
     }
 
+    /**
+     * Returns the connection pool used by this data source, for example to inspect its metrics.
+     *
+     * @return the {@link ConnectionPool} or {@code null} if not connected
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
     /**
      * Retrieves the user details for the specified username.
      *
@@ -80,25 +104,24 @@ public class UserData {
      * @return a {@link UserDetails} object if found; {@code null} otherwise
      * @throws SQLException if a database access error occurs
      */
+    @Override
     public UserDetails getUser(String username) throws SQLException {
         String sql = "SELECT USERNAME, PASSWORD FROM PASSWORDS WHERE USERNAME = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, username);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new UserDetails(
-                        rs.getString("USERNAME"),
-                        rs.getString("PASSWORD")
-                    );
-                }
-            }
+        ParameterBinder binder = stmt -> stmt.setString(1, username);
+        try {
+            return Instrumented.run(GET_USER, pool, sql, username.hashCode(), binder,
+                    details -> (details == null) ? 0 : 1, pc -> {
+                        PreparedStatement stmt = pc.prepareStatement(sql);
+                        binder.bind(stmt);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            return rs.next()
+                                    ? new UserDetails(rs.getString("USERNAME"), rs.getString("PASSWORD"))
+                                    : null;
+                        }
+                    });
         } catch (SQLException e) {
             throw new SQLException("Error finding user: " + e.getMessage());
         }
-
-        return null;
     }
 
     /**
@@ -109,14 +132,22 @@ public class UserData {
      * @return {@code 1} if the update was successful (at least one row affected), {@code 0} otherwise
      * @throws SQLException if a database access error occurs
      */
+    @Override
     public int updatePassword(String username, String newPassword) throws SQLException {
         String sql = "UPDATE PASSWORDS SET PASSWORD = ? WHERE USERNAME = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, newPassword);
+        // The slow query log sees the statement without the password, and the password is left out of the
+        // parameters hash
+        ParameterBinder redacted = stmt -> {
+            stmt.setString(1, "<redacted>");
             stmt.setString(2, username);
-
-            int rowsAffected = stmt.executeUpdate();
+        };
+        try {
+            int rowsAffected = Instrumented.run(UPDATE_PASSWORD, pool, sql, username.hashCode(), redacted, n -> n, pc -> {
+                PreparedStatement stmt = pc.prepareStatement(sql);
+                stmt.setString(1, newPassword);
+                stmt.setString(2, username);
+                return stmt.executeUpdate();
+            });
             return (rowsAffected > 0) ? 1 : 0;
         } catch (SQLException e) {
             throw new SQLException("Error updating password: " + e.getMessage());
@@ -0,0 +1,46 @@
+package cqu.wis.data;
+
+import cqu.wis.data.UserData.UserDetails;
+import java.sql.SQLException;
+
+/**
+ * A source of user accounts, as used by {@link cqu.wis.roles.UserDataManager}.
+ *
+ * {@link UserData} keeps the accounts in the MySQL database, {@link InMemoryUserRepository} in memory and
+ * {@link FileUserRepository} in a local file, so the application can run without a database server.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public interface UserRepository {
+
+    /**
+     * Connects to the underlying data source.
+     *
+     * @throws SQLException if a data access error occurs
+     */
+    void connect() throws SQLException;
+
+    /**
+     * Disconnects from the underlying data source.
+     */
+    void disconnect();
+
+    /**
+     * Retrieves the user details for the specified username.
+     *
+     * @param username the username to search for
+     * @return a {@link UserDetails} object if found; {@code null} otherwise
+     * @throws SQLException if a data access error occurs
+     */
+    UserDetails getUser(String username) throws SQLException;
+
+    /**
+     * Updates the password for the specified username.
+     *
+     * @param username the username whose password will be updated
+     * @param newPassword the new password to set
+     * @return {@code 1} if the user exists and the password was updated, {@code 0} otherwise
+     * @throws SQLException if a data access error occurs
+     */
+    int updatePassword(String username, String newPassword) throws SQLException;
+}
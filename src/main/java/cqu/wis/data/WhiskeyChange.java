@@ -0,0 +1,25 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+
+/**
+ * One entry of the SINGLEMALTS change log: the (distillery, age) key of a row that was inserted,
+ * updated or deleted, together with the row as it is now.
+ *
+ * A change carries the current state of the row rather than the operation that was performed, so
+ * applying it is idempotent: the row is stored if it still exists and removed if it does not.
+ *
+ * @param version the position of the change in the change log
+ * @param distillery the distillery of the changed row
+ * @param age the age of the changed row
+ * @param current the row as it is now, or {@code null} if it has been deleted
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public record WhiskeyChange(long version, String distillery, int age, WhiskeyDetails current) {
+
+    /** @return {@code true} if the row no longer exists */
+    public boolean isDelete() {
+        return current == null;
+    }
+}
@@ -0,0 +1,57 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A source of incremental changes to the SINGLEMALTS catalog, used by {@link WhiskeySnapshot#sync()}
+ * to bring an in-memory copy up to date without reading the whole table again.
+ *
+ * Changes are numbered by an increasing version. A reader records the latest version before it loads
+ * the catalog and afterwards asks only for the changes that follow it.
+ *
+ * Versions are assigned when a change is written, not when its transaction commits, so a change can
+ * become visible after changes with higher versions have already been read. Readers therefore look
+ * back below the highest version they have seen rather than only beyond it.
+ *
+ * The log only keeps changes for {@link #RETENTION}; a reader that has not caught up within that time
+ * must load the catalog again. A log can also be missing altogether, for example on a database created
+ * before the log was added; readers check {@link #isAvailable()} and fall back to full loads.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public interface WhiskeyChangeLog {
+
+    /** How long changes are kept in the log before they are pruned. */
+    Duration RETENTION = Duration.ofDays(7);
+
+    /**
+     * Returns whether the change log can be read. A log that is not available is neither versioned nor
+     * read, and the catalog is only ever loaded in full.
+     *
+     * @return {@code true} if the log exists
+     * @throws SQLException if a database access error other than a missing log occurs
+     */
+    default boolean isAvailable() throws SQLException {
+        return true;
+    }
+
+    /**
+     * Returns the version of the most recent change, or 0 if there have been none.
+     *
+     * @return the latest change version
+     * @throws SQLException if a database access error occurs
+     */
+    long getLatestChangeVersion() throws SQLException;
+
+    /**
+     * Retrieves the changes that follow the given version, in version order.
+     *
+     * @param version the last version already applied
+     * @param limit the maximum number of changes to return
+     * @return up to {@code limit} changes with a version greater than {@code version}
+     * @throws SQLException if a database access error occurs
+     */
+    List<WhiskeyChange> getChangesSince(long version, int limit) throws SQLException;
+}
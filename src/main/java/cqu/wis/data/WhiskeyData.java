@@ -1,24 +1,69 @@
 package cqu.wis.data;
 
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides data access functionality for whiskey-related information stored in a MySQL database.
  * 
- * This class establishes and manages connections to the database, performs SQL queries to retrieve whiskey data,
- * and maps the results to {@link WhiskeyDetails} records. It supports queries to fetch all single malts, 
- * malts from a specific region, and malts within a specific age range.
+ * This class manages a {@link ConnectionPool} for the database, performs SQL queries to retrieve whiskey data,
+ * and maps the results to {@link WhiskeyDetails} records. Each query borrows its own connection from the pool,
+ * so queries issued from different threads can run concurrently, and reuses that connection's cached
+ * prepared statement for the query's SQL. It supports queries to fetch all single malts, 
+ * malts from a specific region, and malts within a specific age range. The latency, row count and errors
+ * of every operation are recorded in {@link #METRICS} and published over JMX, and each call is also
+ * emitted as a {@link QueryEvent} to Java Flight Recorder. Statements over the threshold of the
+ * {@link SlowQueryLog} are logged with their parameters and plan.
+ * 
+ * The keyset paging queries, the change log join and every in-memory copy of the catalog rely on
+ * (DISTILLERY, AGE) identifying a single row. The schema enforces this with a unique key, which also serves
+ * the row comparisons of the paging queries and the join:
+ * <pre>
+ * ALTER TABLE SINGLEMALTS ADD CONSTRAINT SINGLEMALTS_KEY UNIQUE (DISTILLERY, AGE);
+ * </pre>
+ * 
+ * It also reads incremental changes from a SINGLEMALTS_CHANGES table, which triggers on SINGLEMALTS fill
+ * with the (distillery, age) key of every inserted, updated or deleted row:
+ * <pre>
+ * CREATE TABLE SINGLEMALTS_CHANGES (VERSION BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *                                   DISTILLERY VARCHAR(30) NOT NULL, AGE INT NOT NULL,
+ *                                   CHANGED_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+ * CREATE TRIGGER SINGLEMALTS_AI AFTER INSERT ON SINGLEMALTS FOR EACH ROW
+ *     INSERT INTO SINGLEMALTS_CHANGES (DISTILLERY, AGE) VALUES (NEW.DISTILLERY, NEW.AGE);
+ * CREATE TRIGGER SINGLEMALTS_AU AFTER UPDATE ON SINGLEMALTS FOR EACH ROW
+ *     INSERT INTO SINGLEMALTS_CHANGES (DISTILLERY, AGE) VALUES (OLD.DISTILLERY, OLD.AGE), (NEW.DISTILLERY, NEW.AGE);
+ * CREATE TRIGGER SINGLEMALTS_AD AFTER DELETE ON SINGLEMALTS FOR EACH ROW
+ *     INSERT INTO SINGLEMALTS_CHANGES (DISTILLERY, AGE) VALUES (OLD.DISTILLERY, OLD.AGE);
+ * </pre>
+ * The change log is pruned by a scheduled event that deletes changes older than
+ * {@link WhiskeyChangeLog#RETENTION}. Only the key of a change is stored and the row is read from SINGLEMALTS,
+ * so a pruned change is never needed by a reader that syncs within that time:
+ * <pre>
+ * CREATE EVENT SINGLEMALTS_CHANGES_PRUNE ON SCHEDULE EVERY 1 HOUR DO
+ *     DELETE FROM SINGLEMALTS_CHANGES WHERE CHANGED_AT &lt; NOW() - INTERVAL 7 DAY;
+ * </pre>
  * 
  * Note: Connection parameters such as database URL, user, and password must be updated appropriately
  * for your local setup.
  * 
  * @author Ayush Bhandari S12157470
  */
-public class WhiskeyData {
+public class WhiskeyData implements WhiskeyRepository, WhiskeyChangeLog {
 
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/WHISKEY"; // Update as needed
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/WHISKEY?useServerPrepStmts=true"; // Update as needed
     private static final String DB_USER = "root"; // Update as needed
     private static final String DB_PASSWORD = "pass"; // Update as needed
 
@@ -37,8 +82,43 @@ public class WhiskeyData {
         }
     }
 
-    /** Active database connection instance. */
-    public Connection connection;
+    /**
+     * Fetch size that asks MySQL Connector/J to stream a result set row by row instead of
+     * reading the whole result into memory first.
+     */
+    public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /** Latency, row and error statistics of each operation, published over JMX. */
+    public static final QueryMetrics METRICS = QueryMetrics.forSource("WhiskeyData");
+
+    private static final QueryStats ALL_MALTS = METRICS.operation("getAllMalts");
+    private static final QueryStats FROM_REGION = METRICS.operation("getMaltsFromRegion");
+    private static final QueryStats FROM_REGIONS = METRICS.operation("getMaltsFromRegions");
+    private static final QueryStats MATCHING = METRICS.operation("getMaltsMatching");
+    private static final QueryStats IN_AGE_RANGE = METRICS.operation("getMaltsInAgeRange");
+    private static final QueryStats IN_PRICE_RANGE = METRICS.operation("getMaltsInPriceRange");
+    private static final QueryStats COUNT_ALL = METRICS.operation("countAllMalts");
+    private static final QueryStats REGION_STATS = METRICS.operation("getRegionStats");
+    private static final QueryStats DISTILLERIES = METRICS.operation("getDistilleries");
+    private static final QueryStats REGIONS = METRICS.operation("getRegions");
+    private static final QueryStats PAGE_AFTER = METRICS.operation("getMaltsPageAfter");
+    private static final QueryStats PAGE_BEFORE = METRICS.operation("getMaltsPageBefore");
+    private static final QueryStats LATEST_CHANGE = METRICS.operation("getLatestChangeVersion");
+    private static final QueryStats CHANGES_SINCE = METRICS.operation("getChangesSince");
+    private static final QueryStats STREAM_ALL = METRICS.operation("streamAllMalts");
+    private static final QueryStats STREAM_FROM_REGION = METRICS.operation("streamMaltsFromRegion");
+    private static final QueryStats STREAM_IN_AGE_RANGE = METRICS.operation("streamMaltsInAgeRange");
+
+    private static final ParameterBinder NO_PARAMETERS = stmt -> {};
+
+    /** SQL state MySQL reports for a table that does not exist. */
+    private static final String NO_SUCH_TABLE = "42S02";
+
+    /** Pool of connections to the whiskey database, created by {@link #connect()}. */
+    private ConnectionPool pool;
+
+    /** Whether SINGLEMALTS_CHANGES exists, or {@code null} until {@link #isAvailable()} has checked. */
+    private volatile Boolean changeLogAvailable;
 
     /** SQL query to retrieve all single malt records. */
     public String getAllMaltsQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS";
@@ -49,34 +129,160 @@ public class WhiskeyData {
     /** SQL query to retrieve single malts within a given age range. */
     public String getMaltsInAgeRangeQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS WHERE AGE BETWEEN ? AND ?";
 
+    /** JDBC fetch size used by the streaming queries. */
+    private int fetchSize = STREAMING_FETCH_SIZE;
+
+    /** SQL query to retrieve single malts within a given price range. */
+    public String getMaltsInPriceRangeQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS WHERE PRICE BETWEEN ? AND ?";
+
+    /** Prefix of the SQL query that retrieves single malts from any of several regions; see {@link #getMaltsFromRegionsQuery(int)}. */
+    public String getMaltsFromRegionsQueryPrefix = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS WHERE REGION IN ";
+
+    /** SQL text of the multi-region query, by number of regions. */
+    private final Map<Integer, String> regionsQueries = new ConcurrentHashMap<>();
+
+    /** SQL text of the composite filter query, by {@link WhiskeyQuery#shape()}. */
+    private final Map<String, String> matchingQueries = new ConcurrentHashMap<>();
+
+    /** SQL query to count all single malt records. */
+    public String countAllMaltsQuery = "SELECT COUNT(*) FROM SINGLEMALTS";
+
+    /** SQL query to retrieve the distinct distillery names, read from the (DISTILLERY, AGE) key. */
+    public String getDistilleriesQuery = "SELECT DISTINCT DISTILLERY FROM SINGLEMALTS";
+
+    /** SQL query to retrieve the distinct region names. */
+    public String getRegionsQuery = "SELECT DISTINCT REGION FROM SINGLEMALTS";
+
+    /** How long a change version read for distillery suggestions is trusted before it is read again. */
+    private static final Duration SUGGESTIONS_RECHECK = Duration.ofSeconds(1);
+
+    /**
+     * How long the suggestion index is updated from the change log before it is built again, which also
+     * picks up changes that committed late and bounds how stale it gets without a change log.
+     */
+    private static final Duration SUGGESTIONS_MAX_AGE = Duration.ofMinutes(1);
+
+    /** The most changes read to update the suggestion index; with more, it is built again. */
+    private static final int SUGGESTIONS_CHANGE_LIMIT = 500;
+
+    /** Type-ahead index over {@link #getDistilleriesQuery}, created on first use. */
+    private volatile DistillerySuggestions distilleries;
+
+    /**
+     * SQL query to compute the price and age statistics of each region in one pass with {@code GROUP BY}.
+     * The medians come from the row numbers of each region's rows in price and age order: the middle row,
+     * or the mean of the two middle rows when a region has an even number of rows.
+     */
+    public String getRegionStatsQuery = "SELECT REGION, COUNT(*) AS N, "
+            + "MIN(PRICE) AS MIN_PRICE, MAX(PRICE) AS MAX_PRICE, AVG(PRICE) AS AVG_PRICE, "
+            + "AVG(CASE WHEN PRICE_ROW IN (FLOOR((ROWS_IN_REGION + 1) / 2), CEIL((ROWS_IN_REGION + 1) / 2)) THEN PRICE END) AS MEDIAN_PRICE, "
+            + "MIN(AGE) AS MIN_AGE, MAX(AGE) AS MAX_AGE, AVG(AGE) AS AVG_AGE, "
+            + "AVG(CASE WHEN AGE_ROW IN (FLOOR((ROWS_IN_REGION + 1) / 2), CEIL((ROWS_IN_REGION + 1) / 2)) THEN AGE END) AS MEDIAN_AGE "
+            + "FROM (SELECT REGION, PRICE, AGE, "
+            + "ROW_NUMBER() OVER (PARTITION BY REGION ORDER BY PRICE) AS PRICE_ROW, "
+            + "ROW_NUMBER() OVER (PARTITION BY REGION ORDER BY AGE) AS AGE_ROW, "
+            + "COUNT(*) OVER (PARTITION BY REGION) AS ROWS_IN_REGION FROM SINGLEMALTS) R "
+            + "GROUP BY REGION ORDER BY REGION";
+
+    /** SQL query to retrieve the first page of single malts in (distillery, age) order. */
+    public String getFirstPageQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS "
+            + "ORDER BY DISTILLERY, AGE LIMIT ?";
+
+    /** SQL query to retrieve the page of single malts that follows a given (distillery, age) key. */
+    public String getPageAfterQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS "
+            + "WHERE (DISTILLERY, AGE) > (?, ?) ORDER BY DISTILLERY, AGE LIMIT ?";
+
+    /** SQL query to retrieve the last page of single malts, in reverse (distillery, age) order. */
+    public String getLastPageQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS "
+            + "ORDER BY DISTILLERY DESC, AGE DESC LIMIT ?";
+
+    /** SQL query to retrieve the page of single malts that precedes a given (distillery, age) key, in reverse order. */
+    public String getPageBeforeQuery = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS "
+            + "WHERE (DISTILLERY, AGE) < (?, ?) ORDER BY DISTILLERY DESC, AGE DESC LIMIT ?";
+
+    /** SQL query to retrieve the version of the most recent change to SINGLEMALTS. */
+    public String getLatestChangeVersionQuery = "SELECT COALESCE(MAX(VERSION), 0) FROM SINGLEMALTS_CHANGES";
+
+    /**
+     * SQL query to retrieve the changes to SINGLEMALTS after a given version, joined with the current row
+     * for each changed key. A change whose row no longer exists has a {@code NULL} region.
+     */
+    public String getChangesSinceQuery = "SELECT C.VERSION, C.DISTILLERY, C.AGE, S.REGION, S.PRICE "
+            + "FROM SINGLEMALTS_CHANGES C LEFT JOIN SINGLEMALTS S ON S.DISTILLERY = C.DISTILLERY AND S.AGE = C.AGE "
+            + "WHERE C.VERSION > ? ORDER BY C.VERSION LIMIT ?";
+
+    /**
+     * Creates a data source that is not connected yet; see {@link #connect()}.
+     */
+    public WhiskeyData() {
+    }
+
+    /**
+     * Creates a data source that uses the given pool instead of connecting to MySQL, for tests.
+     *
+     * @param pool the pool to borrow connections from
+     */
+    WhiskeyData(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
     /**
-     * Establishes a connection to the whiskey database.
+     * Creates the connection pool for the whiskey database and opens a first connection
+     * to check that the database is reachable.
      * 
      * @throws SQLException if a database access error occurs
      */
     public void connect() throws SQLException {
+        ConnectionPool p = ConnectionPool.open("WHISKEY",
+                () -> DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD),
+                ConnectionPool.Settings.defaults());
         try {
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            p.borrow().close();
         } catch (SQLException e) {
+            p.close();
             throw new SQLException("Failed to connect to whiskey database: " + e.getMessage());
         }
+        pool = p;
+        changeLogAvailable = null;
     }
 
     /**
-     * Closes the connection to the whiskey database if it is open.
-     *
-     * @throws SQLException if a database error occurs
+     * Closes the connection pool and every idle connection to the whiskey database.
      */
     public void disconnect() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
+        if (pool != null) {
+            pool.close();
         }
     }
 
+    /**
+     * Returns the connection pool used by this data source, for example to inspect its metrics.
+     *
+     * @return the {@link ConnectionPool} or {@code null} if not connected
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the JDBC fetch size used by the streaming queries. Use {@link #STREAMING_FETCH_SIZE} for
+     * MySQL's row-by-row streaming mode or a positive value to fetch rows in batches of that size.
+     *
+     * @param fetchSize the fetch size hint passed to the driver
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns the JDBC fetch size used by the streaming queries.
+     *
+     * @return the fetch size hint passed to the driver
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
     /**
      * Retrieves all single malt whiskey records from the database.
      * 
@@ -84,9 +290,8 @@ public class WhiskeyData {
      * @throws SQLException if a database access error occurs
      */
     public List<WhiskeyDetails> getAllMalts() throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(getAllMaltsQuery);
-             ResultSet rs = stmt.executeQuery()) {
-            return getWhiskeyDetailsFromResultSet(rs);
+        try {
+            return query(ALL_MALTS, getAllMaltsQuery, 0, NO_PARAMETERS);
         } catch (SQLException e) {
             throw new SQLException("Error getting all malts: " + e.getMessage());
         }
@@ -100,15 +305,124 @@ public class WhiskeyData {
      * @throws SQLException if a database access error occurs
      */
     public List<WhiskeyDetails> getMaltsFromRegion(String r) throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(getMaltsFromRegionQuery)) {
-            stmt.setString(1, r);
-            ResultSet rs = stmt.executeQuery();
-            return getWhiskeyDetailsFromResultSet(rs);
+        try {
+            return query(FROM_REGION, getMaltsFromRegionQuery, r.hashCode(), stmt -> stmt.setString(1, r));
         } catch (SQLException e) {
             throw new SQLException("Error getting malts from region: " + e.getMessage());
         }
     }
 
+    /**
+     * Retrieves single malt whiskeys from several regions with one {@code IN (...)} query.
+     * 
+     * @param regions the regions to filter malts by
+     * @return the malts of each distinct region, in the order the regions were given
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public Map<String, List<WhiskeyDetails>> getMaltsFromRegions(Collection<String> regions) throws SQLException {
+        Map<String, List<WhiskeyDetails>> grouped = RegionGroups.empty(regions);
+        if (grouped.isEmpty()) {
+            return grouped;
+        }
+        List<String> distinct = List.copyOf(grouped.keySet());
+        try {
+            List<WhiskeyDetails> rows = query(FROM_REGIONS, getMaltsFromRegionsQuery(distinct.size()), distinct.hashCode(), stmt -> {
+                for (int i = 0; i < distinct.size(); i++) {
+                    stmt.setString(i + 1, distinct.get(i));
+                }
+            });
+            RegionGroups.addAll(rows, grouped);
+            return grouped;
+        } catch (SQLException e) {
+            throw new SQLException("Error getting malts from regions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the SQL text of the multi-region query for the given number of regions. The text is built once
+     * per size, so each size maps to one cached prepared statement.
+     * 
+     * @param count the number of regions
+     * @return the query with {@code count} placeholders
+     */
+    public String getMaltsFromRegionsQuery(int count) {
+        return regionsQueries.computeIfAbsent(count,
+                n -> getMaltsFromRegionsQueryPrefix + "(" + String.join(", ", Collections.nCopies(n, "?")) + ")");
+    }
+
+    /**
+     * Retrieves the single malt whiskeys that pass every filter of a composite query, with one SQL statement
+     * that contains only the predicates of the filters that are set. The database does the filtering, so it
+     * can use its indexes; the distillery prefix becomes a {@code LIKE 'prefix%'} predicate for that reason.
+     * 
+     * @param q the filters to apply
+     * @return a list of {@link WhiskeyDetails} matching the query
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsMatching(WhiskeyQuery q) throws SQLException {
+        try {
+            return query(MATCHING, getMaltsMatchingQuery(q), q.hashCode(), stmt -> {
+                int i = 1;
+                for (String r : q.regions()) {
+                    stmt.setString(i++, r);
+                }
+                if (q.hasAgeRange()) {
+                    stmt.setInt(i++, q.minAge());
+                    stmt.setInt(i++, q.maxAge());
+                }
+                if (q.hasPriceRange()) {
+                    stmt.setInt(i++, q.minPrice());
+                    stmt.setInt(i++, q.maxPrice());
+                }
+                if (q.distilleryPrefix() != null) {
+                    stmt.setString(i, escapeLike(q.distilleryPrefix()) + "%");
+                }
+            });
+        } catch (SQLException e) {
+            throw new SQLException("Error getting matching malts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the SQL text of the composite filter query for the shape of the given query. The text is built
+     * once per shape, so each shape maps to one cached prepared statement.
+     * 
+     * @param q the query whose shape to compile
+     * @return the query with a placeholder for each filter value
+     */
+    public String getMaltsMatchingQuery(WhiskeyQuery q) {
+        return matchingQueries.computeIfAbsent(q.shape(), shape -> {
+            List<String> predicates = new ArrayList<>();
+            if (!q.regions().isEmpty()) {
+                predicates.add("REGION IN (" + String.join(", ", Collections.nCopies(q.regions().size(), "?")) + ")");
+            }
+            if (q.hasAgeRange()) {
+                predicates.add("AGE BETWEEN ? AND ?");
+            }
+            if (q.hasPriceRange()) {
+                predicates.add("PRICE BETWEEN ? AND ?");
+            }
+            if (q.distilleryPrefix() != null) {
+                predicates.add("DISTILLERY LIKE ? ESCAPE '!'");
+            }
+            return predicates.isEmpty()
+                    ? getAllMaltsQuery
+                    : getAllMaltsQuery + " WHERE " + String.join(" AND ", predicates);
+        });
+    }
+
+    /**
+     * Helper method that escapes the {@code LIKE} wildcards in a literal prefix, using {@code !} as the escape character.
+     * 
+     * @param s the literal text
+     * @return the text with {@code !}, {@code %} and {@code _} escaped
+     */
+    private static String escapeLike(String s) {
+        return s.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     /**
      * Retrieves single malt whiskeys within the specified age range.
      * 
@@ -118,16 +432,508 @@ public class WhiskeyData {
      * @throws SQLException if a database access error occurs
      */
     public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(getMaltsInAgeRangeQuery)) {
-            stmt.setInt(1, r1);
-            stmt.setInt(2, r2);
-            ResultSet rs = stmt.executeQuery();
-            return getWhiskeyDetailsFromResultSet(rs);
+        try {
+            return query(IN_AGE_RANGE, getMaltsInAgeRangeQuery, 31 * r1 + r2, stmt -> {
+                stmt.setInt(1, r1);
+                stmt.setInt(2, r2);
+            });
+        } catch (SQLException e) {
+            throw new SQLException("Error getting malts in age range: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves single malt whiskeys within the specified price range.
+     * 
+     * @param p1 the minimum price (inclusive)
+     * @param p2 the maximum price (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the price range
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) throws SQLException {
+        try {
+            return query(IN_PRICE_RANGE, getMaltsInPriceRangeQuery, 31 * p1 + p2, stmt -> {
+                stmt.setInt(1, p1);
+                stmt.setInt(2, p2);
+            });
+        } catch (SQLException e) {
+            throw new SQLException("Error getting malts in price range: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts all single malt whiskey records in the database.
+     * 
+     * @return the number of records in SINGLEMALTS
+     * @throws SQLException if a database access error occurs
+     */
+    public int countAllMalts() throws SQLException {
+        try {
+            return Instrumented.run(COUNT_ALL, pool, countAllMaltsQuery, 0, NO_PARAMETERS, count -> 1, pc -> {
+                try (ResultSet rs = pc.prepareStatement(countAllMaltsQuery).executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+        } catch (SQLException e) {
+            throw new SQLException("Error counting malts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the distinct distillery names with one {@code SELECT DISTINCT}, which reads the unique
+     * (distillery, age) key rather than the rows.
+     * 
+     * @return the distinct distillery names
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<String> getDistilleries() throws SQLException {
+        try {
+            return queryNames(DISTILLERIES, getDistilleriesQuery);
+        } catch (SQLException e) {
+            throw new SQLException("Error getting distilleries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the distinct region names with one {@code SELECT DISTINCT}.
+     * 
+     * @return the distinct region names
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<String> getRegions() throws SQLException {
+        try {
+            return queryNames(REGIONS, getRegionsQuery);
+        } catch (SQLException e) {
+            throw new SQLException("Error getting regions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method that runs a query without parameters and returns the first column of each row.
+     * 
+     * @param stats the statistics of the operation
+     * @param sql the SQL query to execute
+     * @return the values of the first column
+     * @throws SQLException if a database access error occurs
+     */
+    private List<String> queryNames(QueryStats stats, String sql) throws SQLException {
+        return Instrumented.run(stats, pool, sql, 0, NO_PARAMETERS, List::size, pc -> {
+            try (ResultSet rs = pc.prepareStatement(sql).executeQuery()) {
+                List<String> names = new ArrayList<>();
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+                return names;
+            }
+        });
+    }
+
+    /**
+     * Suggests distillery names from an index of the distinct names that is kept between calls. The latest
+     * change version is read at most once a second, and when it has moved on the names of the changed rows
+     * are merged into the index rather than reading every name again from {@link #getDistilleriesQuery}.
+     * Without a change log the version stays at 0 and the index is only built again when it is a minute old.
+     * 
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names in alphabetical order
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<String> suggestDistilleries(String prefix, int limit) throws SQLException {
+        DistillerySuggestions suggestions = distilleries;
+        if (suggestions == null) {
+            synchronized (this) {
+                suggestions = distilleries;
+                if (suggestions == null) {
+                    suggestions = new DistillerySuggestions(this::getDistilleries, this::suggestionsVersion,
+                            SUGGESTIONS_RECHECK, this::distilleryChangesSince, SUGGESTIONS_MAX_AGE);
+                    distilleries = suggestions;
+                }
+            }
+        }
+        return suggestions.suggest(prefix, limit);
+    }
+
+    private long suggestionsVersion() throws SQLException {
+        return isAvailable() ? getLatestChangeVersion() : 0;
+    }
+
+    /**
+     * Reads the distillery names added and removed by the changes since a version. The name of a row
+     * that still exists is present; the name of a deleted row is only removed if no malt from that
+     * distillery is left, which the distillery filter query checks.
+     *
+     * @param version the version the suggestion index is at
+     * @return the changed names, or {@code null} if there are too many changes to merge
+     * @throws SQLException if a database access error occurs
+     */
+    private DistillerySuggestions.Delta distilleryChangesSince(long version) throws SQLException {
+        List<WhiskeyChange> changes = getChangesSince(version, SUGGESTIONS_CHANGE_LIMIT);
+        if (changes.size() >= SUGGESTIONS_CHANGE_LIMIT) {
+            return null;
+        }
+        Set<String> added = new HashSet<>();
+        Set<String> deleted = new HashSet<>();
+        for (WhiskeyChange c : changes) {
+            (c.isDelete() ? deleted : added).add(c.distillery());
+        }
+        deleted.removeAll(added);
+        List<String> removed = new ArrayList<>();
+        for (String name : deleted) {
+            boolean left = getMaltsMatching(WhiskeyQuery.ALL.withDistilleryPrefix(name)).stream()
+                    .anyMatch(d -> d.distillery().equals(name));
+            if (!left) {
+                removed.add(name);
+            }
+        }
+        return new DistillerySuggestions.Delta(removed, added);
+    }
+
+    /**
+     * Computes the price and age statistics of each region with one {@code GROUP BY} query, so no rows
+     * are transferred beyond one per region.
+     * 
+     * @return the statistics of each region, ordered by region name
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<RegionStats> getRegionStats() throws SQLException {
+        try {
+            return Instrumented.run(REGION_STATS, pool, getRegionStatsQuery, 0, NO_PARAMETERS, List::size, pc -> {
+                try (ResultSet rs = pc.prepareStatement(getRegionStatsQuery).executeQuery()) {
+                    List<RegionStats> stats = new ArrayList<>();
+                    while (rs.next()) {
+                        stats.add(new RegionStats(rs.getString("REGION"), rs.getInt("N"),
+                                rs.getInt("MIN_PRICE"), rs.getInt("MAX_PRICE"),
+                                rs.getDouble("AVG_PRICE"), rs.getDouble("MEDIAN_PRICE"),
+                                rs.getInt("MIN_AGE"), rs.getInt("MAX_AGE"),
+                                rs.getDouble("AVG_AGE"), rs.getDouble("MEDIAN_AGE")));
+                    }
+                    return stats;
+                }
+            });
+        } catch (SQLException e) {
+            throw new SQLException("Error getting region statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the page of single malts that follows the given record in (distillery, age) order.
+     * Pages are located by key rather than by offset, so the cost does not grow with the page position.
+     * (distillery, age) identifies a single malt, which keeps the order stable between pages.
+     * 
+     * @param after the last record of the previous page or {@code null} for the first page
+     * @param limit the maximum number of records to return
+     * @return up to {@code limit} records in ascending (distillery, age) order
+     * @throws SQLException if a database access error occurs
+     */
+    public List<WhiskeyDetails> getMaltsPageAfter(WhiskeyDetails after, int limit) throws SQLException {
+        try {
+            if (after == null) {
+                return query(PAGE_AFTER, getFirstPageQuery, limit, stmt -> stmt.setInt(1, limit));
+            }
+            return query(PAGE_AFTER, getPageAfterQuery, 31 * after.hashCode() + limit,
+                    stmt -> bindPageKey(stmt, after, limit));
+        } catch (SQLException e) {
+            throw new SQLException("Error getting page of malts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the page of single malts that precedes the given record in (distillery, age) order.
+     * 
+     * @param before the first record of the following page or {@code null} for the last page
+     * @param limit the maximum number of records to return
+     * @return up to {@code limit} records in ascending (distillery, age) order
+     * @throws SQLException if a database access error occurs
+     */
+    public List<WhiskeyDetails> getMaltsPageBefore(WhiskeyDetails before, int limit) throws SQLException {
+        try {
+            List<WhiskeyDetails> page = (before == null)
+                    ? query(PAGE_BEFORE, getLastPageQuery, limit, stmt -> stmt.setInt(1, limit))
+                    : query(PAGE_BEFORE, getPageBeforeQuery, 31 * before.hashCode() + limit,
+                            stmt -> bindPageKey(stmt, before, limit));
+            Collections.reverse(page);
+            return page;
+        } catch (SQLException e) {
+            throw new SQLException("Error getting page of malts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the version of the most recent change to SINGLEMALTS.
+     * 
+     * @return the latest change version, or 0 if the change log is empty
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public long getLatestChangeVersion() throws SQLException {
+        try {
+            return Instrumented.run(LATEST_CHANGE, pool, getLatestChangeVersionQuery, 0, NO_PARAMETERS,
+                    version -> 1, pc -> {
+                        try (ResultSet rs = pc.prepareStatement(getLatestChangeVersionQuery).executeQuery()) {
+                            return rs.next() ? rs.getLong(1) : 0L;
+                        }
+                    });
+        } catch (SQLException e) {
+            throw new SQLException("Error getting latest change version: " + e.getMessage(),
+                    e.getSQLState(), e.getErrorCode());
+        }
+    }
+
+    /**
+     * Checks once whether the SINGLEMALTS_CHANGES table exists, by reading its latest version. A database
+     * created before the change log was added has only SINGLEMALTS, and is then only ever loaded in full.
+     * 
+     * @return {@code true} if the change log exists
+     * @throws SQLException if the check fails for a reason other than a missing table
+     */
+    @Override
+    public boolean isAvailable() throws SQLException {
+        Boolean available = changeLogAvailable;
+        if (available == null) {
+            try {
+                getLatestChangeVersion();
+                available = true;
+            } catch (SQLException e) {
+                if (!NO_SUCH_TABLE.equals(e.getSQLState())) {
+                    throw e;
+                }
+                available = false;
+            }
+            changeLogAvailable = available;
+        }
+        return available;
+    }
+
+    /**
+     * Retrieves the changes to SINGLEMALTS after the given version, each with the current state of its row.
+     * Only the change log and the changed rows are read, so the cost grows with the number of changes
+     * rather than the size of the table.
+     * 
+     * @param version the last version already applied
+     * @param limit the maximum number of changes to return
+     * @return up to {@code limit} changes in version order
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public List<WhiskeyChange> getChangesSince(long version, int limit) throws SQLException {
+        ParameterBinder binder = stmt -> {
+            stmt.setLong(1, version);
+            stmt.setInt(2, limit);
+        };
+        try {
+            return Instrumented.run(CHANGES_SINCE, pool, getChangesSinceQuery, 31 * Long.hashCode(version) + limit,
+                    binder, List::size, pc -> {
+                        PreparedStatement stmt = pc.prepareStatement(getChangesSinceQuery);
+                        binder.bind(stmt);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            List<WhiskeyChange> changes = new ArrayList<>();
+                            while (rs.next()) {
+                                String distillery = rs.getString("DISTILLERY");
+                                int age = rs.getInt("AGE");
+                                String region = rs.getString("REGION");
+                                WhiskeyDetails current = (region == null)
+                                        ? null
+                                        : new WhiskeyDetails(distillery, age, region, rs.getInt("PRICE"));
+                                changes.add(new WhiskeyChange(rs.getLong("VERSION"), distillery, age, current));
+                            }
+                            return changes;
+                        }
+                    });
+        } catch (SQLException e) {
+            throw new SQLException("Error getting changes to malts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method that binds a (distillery, age) page key and page size to a keyset page query.
+     * 
+     * @param stmt the page query
+     * @param key the record whose distillery and age form the key
+     * @param limit the page size
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindPageKey(PreparedStatement stmt, WhiskeyDetails key, int limit) throws SQLException {
+        stmt.setString(1, key.distillery());
+        stmt.setInt(2, key.age());
+        stmt.setInt(3, limit);
+    }
+
+    /**
+     * Streams all single malt whiskey records from the database.
+     * The returned stream holds a pooled connection and must be closed, for example with try-with-resources.
+     * 
+     * @return a stream of {@link WhiskeyDetails} read from the database as it is consumed
+     * @throws SQLException if a database access error occurs
+     */
+    public Stream<WhiskeyDetails> streamAllMalts() throws SQLException {
+        try {
+            return stream(STREAM_ALL, getAllMaltsQuery, 0, NO_PARAMETERS);
+        } catch (SQLException e) {
+            throw new SQLException("Error getting all malts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams single malt whiskeys from the specified region.
+     * The returned stream holds a pooled connection and must be closed, for example with try-with-resources.
+     * 
+     * @param r the region to filter malts by
+     * @return a stream of {@link WhiskeyDetails} read from the database as it is consumed
+     * @throws SQLException if a database access error occurs
+     */
+    public Stream<WhiskeyDetails> streamMaltsFromRegion(String r) throws SQLException {
+        try {
+            return stream(STREAM_FROM_REGION, getMaltsFromRegionQuery, r.hashCode(), stmt -> stmt.setString(1, r));
+        } catch (SQLException e) {
+            throw new SQLException("Error getting malts from region: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams single malt whiskeys within the specified age range.
+     * The returned stream holds a pooled connection and must be closed, for example with try-with-resources.
+     * 
+     * @param r1 the minimum age (inclusive)
+     * @param r2 the maximum age (inclusive)
+     * @return a stream of {@link WhiskeyDetails} read from the database as it is consumed
+     * @throws SQLException if a database access error occurs
+     */
+    public Stream<WhiskeyDetails> streamMaltsInAgeRange(int r1, int r2) throws SQLException {
+        try {
+            return stream(STREAM_IN_AGE_RANGE, getMaltsInAgeRangeQuery, 31 * r1 + r2, stmt -> {
+                stmt.setInt(1, r1);
+                stmt.setInt(2, r2);
+            });
         } catch (SQLException e) {
             throw new SQLException("Error getting malts in age range: " + e.getMessage());
         }
     }
 
+    /**
+     * Helper method that runs a query on a pooled connection using that connection's cached
+     * prepared statement for the SQL. A statement that fails is evicted from the cache so the
+     * next use prepares it again. The call is recorded in the operation's statistics and as a
+     * {@link QueryEvent}.
+     * 
+     * @param stats the statistics of the operation
+     * @param sql the SQL text of the query
+     * @param parametersHash a hash of the query parameters, for the {@link QueryEvent}
+     * @param binder sets the query parameters
+     * @return the rows returned by the query
+     * @throws SQLException if a database access error occurs
+     */
+    private List<WhiskeyDetails> query(QueryStats stats, String sql, int parametersHash, ParameterBinder binder)
+            throws SQLException {
+        return Instrumented.run(stats, pool, sql, parametersHash, binder, List::size, pc -> {
+            PreparedStatement stmt = pc.prepareStatement(sql);
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return getWhiskeyDetailsFromResultSet(rs);
+            }
+        });
+    }
+
+    /**
+     * Helper method that runs a query with a forward-only, read-only statement and the configured fetch size
+     * and exposes the result set as a lazily read stream. The statement is not taken from the statement cache
+     * because a streaming result set occupies its connection until it is closed. Closing the stream closes
+     * the result set and statement and returns the connection to the pool. The call is recorded when the
+     * result set is exhausted or fails, with the time from opening it and the number of rows read, so the
+     * time the caller holds the stream open afterwards is not counted; a stream closed before it is fully
+     * read is recorded when it is closed. The time the caller's action takes to handle each row is left
+     * out too, so a consumer that works at user interface speed does not make the query look slow.
+     * 
+     * @param stats the statistics to record the call in
+     * @param sql the SQL text of the query
+     * @param parametersHash a hash of the query parameters, for the {@link QueryEvent}
+     * @param binder sets the query parameters
+     * @return a stream of the rows returned by the query
+     * @throws SQLException if a database access error occurs
+     */
+    private Stream<WhiskeyDetails> stream(QueryStats stats, String sql, int parametersHash, ParameterBinder binder)
+            throws SQLException {
+        Instrumented call = Instrumented.start(stats, pool, sql, parametersHash, binder);
+        PooledConnection pc;
+        try {
+            pc = pool.borrow();
+        } catch (SQLException e) {
+            call.finish(0, true);
+            throw e;
+        }
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = pc.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, stmt);
+            pc.close();
+            call.finish(0, true);
+            throw e;
+        }
+
+        ResultSet results = rs;
+        PreparedStatement statement = stmt;
+        long[] read = new long[1];
+        Spliterator<WhiskeyDetails> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super WhiskeyDetails> action) {
+                WhiskeyDetails row;
+                try {
+                    if (!results.next()) {
+                        call.finish(read[0], false);
+                        return false;
+                    }
+                    read[0]++;
+                    row = getWhiskeyDetailsFromRow(results);
+                } catch (SQLException e) {
+                    call.finish(read[0], true);
+                    throw new RuntimeException("Error reading malts: " + e.getMessage(), e);
+                }
+                long consumed = System.nanoTime();
+                try {
+                    action.accept(row);
+                } finally {
+                    call.exclude(System.nanoTime() - consumed);
+                }
+                return true;
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            closeQuietly(results, statement);
+            pc.close();
+            call.finish(read[0], false);
+        });
+    }
+
+    /**
+     * Helper method that closes a result set and statement, logging rather than throwing any error.
+     * 
+     * @param rs the result set to close or {@code null}
+     * @param stmt the statement to close or {@code null}
+     */
+    private static void closeQuietly(ResultSet rs, Statement stmt) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing streaming query: " + e.getMessage());
+        }
+    }
+
     /**
      * Helper method that converts a {@link ResultSet} into a list of {@link WhiskeyDetails} records.
      * 
@@ -138,13 +944,24 @@ public class WhiskeyData {
     private List<WhiskeyDetails> getWhiskeyDetailsFromResultSet(ResultSet rs) throws SQLException {
         List<WhiskeyDetails> whiskeys = new ArrayList<>();
         while (rs.next()) {
-            whiskeys.add(new WhiskeyDetails(
-                rs.getString("DISTILLERY"),
-                rs.getInt("AGE"),
-                rs.getString("REGION"),
-                rs.getInt("PRICE")
-            ));
+            whiskeys.add(getWhiskeyDetailsFromRow(rs));
         }
         return whiskeys;
     }
+
+    /**
+     * Helper method that converts the current row of a {@link ResultSet} into a {@link WhiskeyDetails} record.
+     * 
+     * @param rs the {@link ResultSet} positioned on a row
+     * @return the {@link WhiskeyDetails} for the current row
+     * @throws SQLException if a database access error occurs while reading the row
+     */
+    private WhiskeyDetails getWhiskeyDetailsFromRow(ResultSet rs) throws SQLException {
+        return new WhiskeyDetails(
+            rs.getString("DISTILLERY"),
+            rs.getInt("AGE"),
+            rs.getString("REGION"),
+            rs.getInt("PRICE")
+        );
+    }
 }
@@ -0,0 +1,139 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A combination of filters on the SINGLEMALTS catalog: a set of regions, an age range, a price range and a
+ * distillery name prefix. A {@code null} or empty filter is not applied, so {@link #ALL} matches every malt.
+ * Queries are built from {@link #ALL} with the {@code with...} methods, for example
+ * {@code WhiskeyQuery.ALL.withRegions(List.of("Islay")).withAgeRange(10, 18)}.
+ *
+ * Regions and the distillery prefix are matched without regard to case, as the database does.
+ *
+ * @param regions the regions to match, or an empty list for any region
+ * @param minAge the minimum age (inclusive), or {@code null} for no age filter
+ * @param maxAge the maximum age (inclusive), or {@code null} for no age filter
+ * @param minPrice the minimum price (inclusive), or {@code null} for no price filter
+ * @param maxPrice the maximum price (inclusive), or {@code null} for no price filter
+ * @param distilleryPrefix the start of the distillery name, or {@code null} for any distillery
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public record WhiskeyQuery(List<String> regions, Integer minAge, Integer maxAge,
+                           Integer minPrice, Integer maxPrice, String distilleryPrefix) {
+
+    /** The query with no filters, which matches every malt. */
+    public static final WhiskeyQuery ALL = new WhiskeyQuery(List.of(), null, null, null, null, null);
+
+    /**
+     * Creates a query, treating an empty distillery prefix as no prefix.
+     *
+     * @throws IllegalArgumentException if only one bound of the age or price range is given
+     */
+    public WhiskeyQuery {
+        regions = (regions == null) ? List.of() : List.copyOf(regions);
+        if ((minAge == null) != (maxAge == null) || (minPrice == null) != (maxPrice == null)) {
+            throw new IllegalArgumentException("Both bounds of a range must be given");
+        }
+        if (distilleryPrefix != null && distilleryPrefix.isEmpty()) {
+            distilleryPrefix = null;
+        }
+    }
+
+    /**
+     * @param r the regions to match, or an empty collection for any region
+     * @return a copy of this query that matches only the given regions
+     */
+    public WhiskeyQuery withRegions(Collection<String> r) {
+        return new WhiskeyQuery(List.copyOf(r), minAge, maxAge, minPrice, maxPrice, distilleryPrefix);
+    }
+
+    /**
+     * @param lower the minimum age (inclusive)
+     * @param upper the maximum age (inclusive)
+     * @return a copy of this query that matches only malts in the given age range
+     */
+    public WhiskeyQuery withAgeRange(int lower, int upper) {
+        return new WhiskeyQuery(regions, lower, upper, minPrice, maxPrice, distilleryPrefix);
+    }
+
+    /**
+     * @param lower the minimum price (inclusive)
+     * @param upper the maximum price (inclusive)
+     * @return a copy of this query that matches only malts in the given price range
+     */
+    public WhiskeyQuery withPriceRange(int lower, int upper) {
+        return new WhiskeyQuery(regions, minAge, maxAge, lower, upper, distilleryPrefix);
+    }
+
+    /**
+     * @param prefix the start of the distillery name, or {@code null} or empty for any distillery
+     * @return a copy of this query that matches only distilleries whose name starts with the prefix
+     */
+    public WhiskeyQuery withDistilleryPrefix(String prefix) {
+        return new WhiskeyQuery(regions, minAge, maxAge, minPrice, maxPrice, prefix);
+    }
+
+    /** @return {@code true} if the query filters on age */
+    public boolean hasAgeRange() {
+        return minAge != null;
+    }
+
+    /** @return {@code true} if the query filters on price */
+    public boolean hasPriceRange() {
+        return minPrice != null;
+    }
+
+    /**
+     * Returns a description of which filters are set and how many regions are given. Queries with the same
+     * shape compile to the same SQL text and differ only in their parameter values.
+     *
+     * @return the shape of the query, for example {@code "r2,a,d"}
+     */
+    public String shape() {
+        StringBuilder sb = new StringBuilder("r").append(regions.size());
+        if (hasAgeRange()) {
+            sb.append(",a");
+        }
+        if (hasPriceRange()) {
+            sb.append(",p");
+        }
+        if (distilleryPrefix != null) {
+            sb.append(",d");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tests whether a record passes every filter of the query.
+     *
+     * @param d the record to test
+     * @return {@code true} if the record matches
+     */
+    public boolean matches(WhiskeyDetails d) {
+        if (!regions.isEmpty() && regions.stream().noneMatch(r -> r.equalsIgnoreCase(d.region()))) {
+            return false;
+        }
+        if (hasAgeRange() && (d.age() < minAge || d.age() > maxAge)) {
+            return false;
+        }
+        if (hasPriceRange() && (d.price() < minPrice || d.price() > maxPrice)) {
+            return false;
+        }
+        return distilleryPrefix == null
+                || d.distillery().regionMatches(true, 0, distilleryPrefix, 0, distilleryPrefix.length());
+    }
+
+    /**
+     * Returns this query with the regions in lower case, so queries that differ only in the case of
+     * their region names compare equal.
+     *
+     * @return the normalized query
+     */
+    public WhiskeyQuery normalized() {
+        return withRegions(regions.stream().map(r -> r.toLowerCase(Locale.ROOT)).distinct().toList());
+    }
+}
@@ -0,0 +1,258 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * A source of single malt whiskey records, as used by {@link cqu.wis.roles.WhiskeyDataManager}.
+ *
+ * {@link WhiskeyData} answers every query from the MySQL database, {@link InMemoryWhiskeyRepository} from a
+ * list in memory, {@link FileWhiskeyRepository} from a local text file and {@link MappedWhiskeyRepository}
+ * from a memory-mapped binary catalog file, while {@link WhiskeySnapshot}
+ * answers them from an in-memory, indexed copy of another repository's catalog. Implementations only have to provide the list
+ * queries; the streaming, counting and paging queries have default implementations built on them.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public interface WhiskeyRepository {
+
+    /**
+     * Order used for paging: case-insensitive distillery name, then age, matching the
+     * default MySQL collation of {@code ORDER BY DISTILLERY, AGE}.
+     */
+    Comparator<WhiskeyDetails> KEY_ORDER = Comparator
+            .comparing(WhiskeyDetails::distillery, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(WhiskeyDetails::age);
+
+    /**
+     * Returns a record whose (distillery, age) key, compared as by {@link #KEY_ORDER}, is shared with an
+     * earlier record. Paging and change tracking need the key to identify a single record, so every
+     * in-memory copy of the catalog rejects records for which this returns a duplicate.
+     *
+     * @param malts the records to check
+     * @return the first record with a duplicate key, or {@code null} if every key is unique
+     */
+    static WhiskeyDetails findDuplicateKey(Collection<WhiskeyDetails> malts) {
+        TreeSet<WhiskeyDetails> keys = new TreeSet<>(KEY_ORDER);
+        for (WhiskeyDetails d : malts) {
+            if (!keys.add(d)) {
+                return d;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Connects to the underlying data source.
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    void connect() throws SQLException;
+
+    /**
+     * Disconnects from the underlying data source.
+     */
+    void disconnect();
+
+    /**
+     * Retrieves all single malt whiskey records.
+     *
+     * @return a list of {@link WhiskeyDetails} representing all malts
+     * @throws SQLException if a database access error occurs
+     */
+    List<WhiskeyDetails> getAllMalts() throws SQLException;
+
+    /**
+     * Retrieves single malt whiskeys from the specified region.
+     *
+     * @param r the region to filter malts by
+     * @return a list of {@link WhiskeyDetails} matching the region
+     * @throws SQLException if a database access error occurs
+     */
+    List<WhiskeyDetails> getMaltsFromRegion(String r) throws SQLException;
+
+    /**
+     * Retrieves single malt whiskeys from several regions. Regions are matched without regard to case,
+     * and a region given more than once is only queried once.
+     *
+     * @param regions the regions to filter malts by
+     * @return the malts of each distinct region, keyed by the region as first given, in the order the
+     *         regions were given; a region with no malts maps to an empty list
+     * @throws SQLException if a database access error occurs
+     */
+    default Map<String, List<WhiskeyDetails>> getMaltsFromRegions(Collection<String> regions) throws SQLException {
+        Map<String, List<WhiskeyDetails>> grouped = RegionGroups.empty(regions);
+        for (Map.Entry<String, List<WhiskeyDetails>> e : grouped.entrySet()) {
+            e.setValue(getMaltsFromRegion(e.getKey()));
+        }
+        return grouped;
+    }
+
+    /**
+     * Retrieves single malt whiskeys within the specified age range.
+     *
+     * @param r1 the minimum age (inclusive)
+     * @param r2 the maximum age (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the age range
+     * @throws SQLException if a database access error occurs
+     */
+    List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) throws SQLException;
+
+    /**
+     * Retrieves single malt whiskeys within the specified price range.
+     *
+     * @param p1 the minimum price (inclusive)
+     * @param p2 the maximum price (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the price range
+     * @throws SQLException if a database access error occurs
+     */
+    default List<WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) throws SQLException {
+        return getAllMalts().stream()
+                .filter(d -> d.price() >= p1 && d.price() <= p2)
+                .toList();
+    }
+
+    /**
+     * Retrieves the single malt whiskeys that pass every filter of a composite query.
+     *
+     * @param q the filters to apply
+     * @return a list of {@link WhiskeyDetails} matching the query
+     * @throws SQLException if a database access error occurs
+     */
+    default List<WhiskeyDetails> getMaltsMatching(WhiskeyQuery q) throws SQLException {
+        return getAllMalts().stream().filter(q::matches).toList();
+    }
+
+    /**
+     * Retrieves the name of every distillery with at least one malt, once each.
+     * This default reads them from all malts.
+     *
+     * @return the distinct distillery names, in no particular order
+     * @throws SQLException if a database access error occurs
+     */
+    default List<String> getDistilleries() throws SQLException {
+        return getAllMalts().stream().map(WhiskeyDetails::distillery).distinct().toList();
+    }
+
+    /**
+     * Retrieves the name of every region with at least one malt, once each.
+     * This default reads them from all malts.
+     *
+     * @return the distinct region names, in no particular order
+     * @throws SQLException if a database access error occurs
+     */
+    default List<String> getRegions() throws SQLException {
+        return getAllMalts().stream().map(WhiskeyDetails::region).distinct().toList();
+    }
+
+    /**
+     * Suggests distillery names that start with the given prefix, ignoring case, for type-ahead search.
+     * This default builds a {@link DistilleryIndex} from {@link #getDistilleries()} on every call;
+     * implementations that are backed by a database keep an index between calls instead.
+     *
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names in alphabetical order
+     * @throws SQLException if a database access error occurs
+     */
+    default List<String> suggestDistilleries(String prefix, int limit) throws SQLException {
+        return DistilleryIndex.build(getDistilleries()).suggest(prefix, limit);
+    }
+
+    /**
+     * Returns the count, minimum, maximum, mean and median of the price and age of the malts of each region.
+     * This default computes them from all malts on every call.
+     *
+     * @return the statistics of each region, ordered by region name without regard to case
+     * @throws SQLException if a database access error occurs
+     */
+    default List<RegionStats> getRegionStats() throws SQLException {
+        return RegionStatsIndex.build(getAllMalts()).stats();
+    }
+
+    /**
+     * Streams all single malt whiskey records. The stream must be closed after use.
+     *
+     * @return a stream of {@link WhiskeyDetails}
+     * @throws SQLException if a database access error occurs
+     */
+    default Stream<WhiskeyDetails> streamAllMalts() throws SQLException {
+        return getAllMalts().stream();
+    }
+
+    /**
+     * Streams single malt whiskeys from the specified region. The stream must be closed after use.
+     *
+     * @param r the region to filter malts by
+     * @return a stream of {@link WhiskeyDetails}
+     * @throws SQLException if a database access error occurs
+     */
+    default Stream<WhiskeyDetails> streamMaltsFromRegion(String r) throws SQLException {
+        return getMaltsFromRegion(r).stream();
+    }
+
+    /**
+     * Streams single malt whiskeys within the specified age range. The stream must be closed after use.
+     *
+     * @param r1 the minimum age (inclusive)
+     * @param r2 the maximum age (inclusive)
+     * @return a stream of {@link WhiskeyDetails}
+     * @throws SQLException if a database access error occurs
+     */
+    default Stream<WhiskeyDetails> streamMaltsInAgeRange(int r1, int r2) throws SQLException {
+        return getMaltsInAgeRange(r1, r2).stream();
+    }
+
+    /**
+     * Counts all single malt whiskey records.
+     *
+     * @return the number of records
+     * @throws SQLException if a database access error occurs
+     */
+    default int countAllMalts() throws SQLException {
+        return getAllMalts().size();
+    }
+
+    /**
+     * Retrieves the page of single malts that follows the given record in {@link #KEY_ORDER}.
+     *
+     * @param after the last record of the previous page or {@code null} for the first page
+     * @param limit the maximum number of records to return
+     * @return up to {@code limit} records in ascending key order
+     * @throws SQLException if a database access error occurs
+     */
+    default List<WhiskeyDetails> getMaltsPageAfter(WhiskeyDetails after, int limit) throws SQLException {
+        List<WhiskeyDetails> page = new ArrayList<>();
+        getAllMalts().stream()
+                .filter(d -> after == null || KEY_ORDER.compare(d, after) > 0)
+                .sorted(KEY_ORDER)
+                .limit(limit)
+                .forEachOrdered(page::add);
+        return page;
+    }
+
+    /**
+     * Retrieves the page of single malts that precedes the given record in {@link #KEY_ORDER}.
+     *
+     * @param before the first record of the following page or {@code null} for the last page
+     * @param limit the maximum number of records to return
+     * @return up to {@code limit} records in ascending key order
+     * @throws SQLException if a database access error occurs
+     */
+    default List<WhiskeyDetails> getMaltsPageBefore(WhiskeyDetails before, int limit) throws SQLException {
+        List<WhiskeyDetails> page = new ArrayList<>();
+        getAllMalts().stream()
+                .filter(d -> before == null || KEY_ORDER.compare(d, before) < 0)
+                .sorted(KEY_ORDER.reversed())
+                .limit(limit)
+                .forEachOrdered(d -> page.add(0, d));
+        return page;
+    }
+}
@@ -0,0 +1,880 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory, column-oriented copy of the SINGLEMALTS catalog.
+ *
+ * The snapshot loads every record from a source {@link WhiskeyRepository} once, on {@link #connect()}
+ * or {@link #reload()}, and stores it in primitive columns: {@code int[]} age and price columns and
+ * dictionary-encoded distillery and region columns, where each row holds an index into a small table
+ * of distinct names. The region and all malts queries are then answered by scanning these arrays, and the
+ * age and price range queries by binary search in a {@link SortedIntIndex} over each column, with no
+ * round trip to the database. Per-region price and age statistics are read from a {@link RegionStatsIndex}
+ * built in the same load.
+ *
+ * Region matching ignores case, as the database does with its default collation.
+ *
+ * When the source is also a {@link WhiskeyChangeLog}, {@link #sync()} keeps the snapshot current without
+ * a full reload: it reads only the rows changed since the last load or sync and applies them all at once,
+ * so every query sees either the old catalog or the fully updated one. {@link #startSync(Duration)} runs
+ * {@link #refresh()} periodically in the background, which syncs when it can and reloads otherwise. Because a change can commit after changes with higher versions,
+ * the sync remembers the versions it has not seen within {@link #SYNC_WINDOW} of the newest one and reads
+ * them again until they appear; after a full load, which cannot tell which versions it saw, the first sync
+ * reads back over the whole window. Applying a change twice is harmless, as each change carries the
+ * current row.
+ *
+ * The snapshot can be saved to a checksummed {@link CatalogFile} with {@link #save(Path)} and loaded from it on
+ * the next start with {@link #loadSaved(Path)}, so queries can be answered before the source is connected;
+ * {@link #refresh()} then connects and catches up with the source.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class WhiskeySnapshot implements WhiskeyRepository {
+
+    /**
+     * One immutable load of the catalog in column form. A reload builds a new instance and swaps it in,
+     * so a query always sees a single consistent load.
+     */
+    private static final class Columns {
+        final int size;
+        final int[] distillery;
+        final int[] age;
+        final int[] region;
+        final int[] price;
+        final String[] distilleryNames;
+        final String[] regionNames;
+        /** Row ids sorted by {@link WhiskeyRepository#KEY_ORDER}, used for paging. */
+        final int[] keyOrder;
+        final SortedIntIndex ageIndex;
+        final SortedIntIndex priceIndex;
+        final DistilleryIndex distilleries;
+        final RegionStatsIndex regionStats;
+
+        /**
+         * Creates the columns and their key order and indexes. Without a base they are sorted from scratch;
+         * with one, the base's key order and indexes are carried across for the rows in {@code remap} and
+         * merged with the rows in {@code changedRows}, as described in {@link SortedIntIndex#update}, and the
+         * base's distillery and region statistics indexes are updated with each removed and added row.
+         */
+        Columns(int size, int[] distillery, int[] age, int[] region, int[] price,
+                String[] distilleryNames, String[] regionNames, Columns base, int[] remap, int[] changedRows,
+                List<WhiskeyDetails> removedRows, List<WhiskeyDetails> addedRows) {
+            this.size = size;
+            this.distillery = distillery;
+            this.age = age;
+            this.region = region;
+            this.price = price;
+            this.distilleryNames = distilleryNames;
+            this.regionNames = regionNames;
+            if (base == null) {
+                this.keyOrder = sortByKey(IntStream.range(0, size).toArray());
+                this.ageIndex = SortedIntIndex.build(age, size);
+                this.priceIndex = SortedIntIndex.build(price, size);
+                this.distilleries = DistilleryIndex.build(
+                        IntStream.range(0, size).mapToObj(i -> distilleryNames[distillery[i]]).toList());
+                this.regionStats = RegionStatsIndex.build(size, region, age, price, regionNames);
+            } else {
+                this.keyOrder = mergeKeyOrder(base.keyOrder, remap, sortByKey(changedRows));
+                this.ageIndex = base.ageIndex.update(remap, age, changedRows);
+                this.priceIndex = base.priceIndex.update(remap, price, changedRows);
+                this.distilleries = base.distilleries.update(
+                        removedRows.stream().map(WhiskeyDetails::distillery).toList(),
+                        addedRows.stream().map(WhiskeyDetails::distillery).toList());
+                this.regionStats = base.regionStats.update(removedRows, addedRows);
+            }
+        }
+
+        /**
+         * Sorts row ids into key order without boxing them. Each id is packed into a long with the rank of
+         * its distillery name in case-insensitive order and sorted, and each run of rows from the same
+         * distillery is then packed with the age instead and sorted again. Rows with equal keys stay in
+         * row id order.
+         */
+        private int[] sortByKey(int[] rowIds) {
+            int[] rank = distilleryRanks();
+            long[] packed = new long[rowIds.length];
+            for (int i = 0; i < rowIds.length; i++) {
+                packed[i] = ((long) rank[distillery[rowIds[i]]] << 32) | rowIds[i];
+            }
+            Arrays.sort(packed);
+            int from = 0;
+            while (from < packed.length) {
+                long distilleryRank = packed[from] >>> 32;
+                int to = from + 1;
+                while (to < packed.length && packed[to] >>> 32 == distilleryRank) {
+                    to++;
+                }
+                if (to - from > 1) {
+                    for (int i = from; i < to; i++) {
+                        int row = (int) packed[i];
+                        packed[i] = ((long) age[row] << 32) | row;
+                    }
+                    Arrays.sort(packed, from, to);
+                }
+                from = to;
+            }
+            int[] sorted = new int[packed.length];
+            for (int i = 0; i < packed.length; i++) {
+                sorted[i] = (int) packed[i];
+            }
+            return sorted;
+        }
+
+        /**
+         * Returns the rank of each distillery dictionary entry in case-insensitive order, where names that
+         * differ only in case share a rank.
+         */
+        private int[] distilleryRanks() {
+            String[] sorted = distilleryNames.clone();
+            Arrays.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+            int[] dense = new int[sorted.length];
+            for (int i = 1; i < sorted.length; i++) {
+                dense[i] = dense[i - 1] + (String.CASE_INSENSITIVE_ORDER.compare(sorted[i - 1], sorted[i]) == 0 ? 0 : 1);
+            }
+            int[] rank = new int[distilleryNames.length];
+            for (int id = 0; id < rank.length; id++) {
+                rank[id] = dense[Arrays.binarySearch(sorted, distilleryNames[id], String.CASE_INSENSITIVE_ORDER)];
+            }
+            return rank;
+        }
+
+        private int[] mergeKeyOrder(int[] baseOrder, int[] remap, int[] changed) {
+            int[] merged = new int[size];
+            int out = 0;
+            int c = 0;
+            for (int oldRow : baseOrder) {
+                int row = remap[oldRow];
+                if (row < 0) {
+                    continue;
+                }
+                while (c < changed.length && compareKey(changed[c], row) < 0) {
+                    merged[out++] = changed[c++];
+                }
+                merged[out++] = row;
+            }
+            while (c < changed.length) {
+                merged[out++] = changed[c++];
+            }
+            return merged;
+        }
+
+        /**
+         * Builds the columns that result from applying the given changes in order, so the last change to a
+         * key wins. Unchanged rows are copied across by dictionary id and the key order and indexes are merged
+         * rather than sorted again, so apart from copying the arrays the cost grows with the number of changes.
+         */
+        Columns apply(List<WhiskeyChange> changes) {
+            TreeMap<WhiskeyDetails, WhiskeyDetails> latest = new TreeMap<>(KEY_ORDER);
+            for (WhiskeyChange change : changes) {
+                latest.put(new WhiskeyDetails(change.distillery(), change.age(), null, 0), change.current());
+            }
+
+            boolean[] removed = new boolean[size];
+            WhiskeyDetails[] updated = new WhiskeyDetails[size];
+            List<WhiskeyDetails> inserted = new ArrayList<>();
+            int removedCount = 0;
+            int updatedCount = 0;
+            for (Map.Entry<WhiskeyDetails, WhiskeyDetails> e : latest.entrySet()) {
+                int p = keyPosition(e.getKey(), false);
+                if (p < size && compareKey(keyOrder[p], e.getKey()) == 0) {
+                    int row = keyOrder[p];
+                    if (e.getValue() == null) {
+                        removed[row] = true;
+                        removedCount++;
+                    } else {
+                        updated[row] = e.getValue();
+                        updatedCount++;
+                    }
+                } else if (e.getValue() != null) {
+                    inserted.add(e.getValue());
+                }
+            }
+
+            ColumnBuilder builder = new ColumnBuilder(this, size - removedCount + inserted.size());
+            int[] remap = new int[size];
+            int[] changedRows = new int[updatedCount + inserted.size()];
+            List<WhiskeyDetails> removedRows = new ArrayList<>();
+            List<WhiskeyDetails> addedRows = new ArrayList<>(inserted);
+            int c = 0;
+            for (int row = 0; row < size; row++) {
+                if (removed[row]) {
+                    remap[row] = -1;
+                    removedRows.add(row(row));
+                } else if (updated[row] != null) {
+                    remap[row] = -1;
+                    changedRows[c++] = builder.size;
+                    builder.add(updated[row]);
+                    removedRows.add(row(row));
+                    addedRows.add(updated[row]);
+                } else {
+                    remap[row] = builder.size;
+                    builder.add(distillery[row], age[row], region[row], price[row]);
+                }
+            }
+            for (WhiskeyDetails d : inserted) {
+                changedRows[c++] = builder.size;
+                builder.add(d);
+            }
+            return builder.build(this, remap, changedRows, removedRows, addedRows);
+        }
+
+        List<WhiskeyDetails> rows(int[] rowIds) {
+            List<WhiskeyDetails> result = new ArrayList<>(rowIds.length);
+            for (int id : rowIds) {
+                result.add(row(id));
+            }
+            return result;
+        }
+
+        WhiskeyDetails row(int i) {
+            return new WhiskeyDetails(distilleryNames[distillery[i]], age[i], regionNames[region[i]], price[i]);
+        }
+
+        int compareKey(int a, int b) {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(distilleryNames[distillery[a]], distilleryNames[distillery[b]]);
+            return c != 0 ? c : Integer.compare(age[a], age[b]);
+        }
+
+        /**
+         * Returns a row that shares its key with the row before it in key order.
+         *
+         * @return the row, or {@code null} if every key is unique
+         */
+        WhiskeyDetails duplicateKey() {
+            for (int i = 1; i < size; i++) {
+                if (compareKey(keyOrder[i - 1], keyOrder[i]) == 0) {
+                    return row(keyOrder[i]);
+                }
+            }
+            return null;
+        }
+
+        int compareKey(int row, WhiskeyDetails key) {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(distilleryNames[distillery[row]], key.distillery());
+            return c != 0 ? c : Integer.compare(age[row], key.age());
+        }
+
+        /**
+         * Finds the position in {@link #keyOrder} of the first row whose key is greater than
+         * ({@code strict}) or not less than the given key.
+         */
+        int keyPosition(WhiskeyDetails key, boolean strict) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compareKey(keyOrder[mid], key);
+                if (c < 0 || (strict && c == 0)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Accumulates rows into growable column arrays and dictionaries while a load is read.
+     */
+    private static final class ColumnBuilder {
+        private int size;
+        private int[] distillery;
+        private int[] age;
+        private int[] region;
+        private int[] price;
+        private final Map<String, Integer> distilleryIds = new HashMap<>();
+        private final List<String> distilleryNames = new ArrayList<>();
+        private final Map<String, Integer> regionIds = new HashMap<>();
+        private final List<String> regionNames = new ArrayList<>();
+
+        ColumnBuilder() {
+            this(64);
+        }
+
+        ColumnBuilder(int capacity) {
+            capacity = Math.max(capacity, 16);
+            distillery = new int[capacity];
+            age = new int[capacity];
+            region = new int[capacity];
+            price = new int[capacity];
+        }
+
+        /**
+         * Creates a builder that starts with the dictionaries of the given columns, so their rows can be
+         * added by dictionary id.
+         */
+        ColumnBuilder(Columns base, int capacity) {
+            this(capacity);
+            for (String name : base.distilleryNames) {
+                encode(name, distilleryIds, distilleryNames);
+            }
+            for (String name : base.regionNames) {
+                encode(name, regionIds, regionNames);
+            }
+        }
+
+        void add(WhiskeyDetails d) {
+            add(encode(d.distillery(), distilleryIds, distilleryNames), d.age(),
+                    encode(d.region(), regionIds, regionNames), d.price());
+        }
+
+        void add(int distilleryId, int ageValue, int regionId, int priceValue) {
+            if (size == age.length) {
+                int capacity = size * 2;
+                distillery = Arrays.copyOf(distillery, capacity);
+                age = Arrays.copyOf(age, capacity);
+                region = Arrays.copyOf(region, capacity);
+                price = Arrays.copyOf(price, capacity);
+            }
+            distillery[size] = distilleryId;
+            age[size] = ageValue;
+            region[size] = regionId;
+            price[size] = priceValue;
+            size++;
+        }
+
+        Columns build() {
+            return build(null, null, null, null, null);
+        }
+
+        Columns build(Columns base, int[] remap, int[] changedRows,
+                      List<WhiskeyDetails> removedRows, List<WhiskeyDetails> addedRows) {
+            return new Columns(size, Arrays.copyOf(distillery, size), Arrays.copyOf(age, size),
+                    Arrays.copyOf(region, size), Arrays.copyOf(price, size),
+                    distilleryNames.toArray(String[]::new), regionNames.toArray(String[]::new),
+                    base, remap, changedRows, removedRows, addedRows);
+        }
+
+        private static int encode(String value, Map<String, Integer> ids, List<String> names) {
+            return ids.computeIfAbsent(value, v -> {
+                names.add(v);
+                return names.size() - 1;
+            });
+        }
+    }
+
+    /** Maximum number of changes read from the change log in one query. */
+    public static final int SYNC_BATCH_SIZE = 500;
+
+    /**
+     * Number of versions below the newest change seen in which a change that commits late is still picked
+     * up. A version missing for longer is taken to belong to a rolled back transaction.
+     */
+    public static final int SYNC_WINDOW = 1000;
+
+    private final WhiskeyRepository source;
+    private final WhiskeyChangeLog changeLog;
+    private volatile Columns columns = new ColumnBuilder().build();
+    /** The change log version the snapshot reflects; guarded by {@code this} for updates. */
+    private volatile long version;
+    /** Versions within {@link #SYNC_WINDOW} below {@code version} not seen yet; guarded by {@code this}. */
+    private final TreeSet<Long> gaps = new TreeSet<>();
+    /** Whether the versions below {@code version} are unknown because of a full load; guarded by {@code this}. */
+    private boolean rescan;
+    private ScheduledExecutorService syncer;
+    /** Whether the source has been connected; guarded by {@code this}. */
+    private boolean sourceConnected;
+
+    /**
+     * Constructs a new snapshot that loads its records from the given source. If the source is also a
+     * {@link WhiskeyChangeLog} it is used by {@link #sync()}.
+     *
+     * @param source the repository the catalog is loaded from, typically a {@link WhiskeyData}
+     */
+    public WhiskeySnapshot(WhiskeyRepository source) {
+        this(source, (source instanceof WhiskeyChangeLog log) ? log : null);
+    }
+
+    /**
+     * Constructs a new snapshot that loads its records from the given source and its changes from the
+     * given change log.
+     *
+     * @param source the repository the catalog is loaded from
+     * @param changeLog the change log used by {@link #sync()}, or {@code null} if the snapshot is only reloaded
+     */
+    public WhiskeySnapshot(WhiskeyRepository source, WhiskeyChangeLog changeLog) {
+        this.source = source;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Connects to the source and loads the catalog into memory.
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public synchronized void connect() throws SQLException {
+        connectSource();
+        reload();
+    }
+
+    private void connectSource() throws SQLException {
+        if (!sourceConnected) {
+            source.connect();
+            sourceConnected = true;
+        }
+    }
+
+    /**
+     * Stops any background sync and disconnects from the source. The loaded records remain available.
+     */
+    @Override
+    public synchronized void disconnect() {
+        stopSync();
+        if (sourceConnected) {
+            source.disconnect();
+            sourceConnected = false;
+        }
+    }
+
+    /**
+     * Loads the snapshot from a catalog file written by {@link #save(Path)}, without connecting to the source.
+     * The whole file is checked against its checksum before any of it is used, and the change version saved
+     * with it becomes the snapshot's version, so a later {@link #refresh()} only reads newer changes. When the
+     * snapshot has a change log, a file older than {@link WhiskeyChangeLog#RETENTION} is refused, since the
+     * changes made after it was saved may have been pruned.
+     *
+     * @param file the saved catalog file
+     * @return the number of records loaded
+     * @throws SQLException if the file cannot be read, is not a catalog file, fails its checksum or is
+     *         older than the change log keeps changes; the snapshot is left unchanged
+     */
+    public synchronized int loadSaved(Path file) throws SQLException {
+        if (changeLog != null) {
+            checkRetained(file);
+        }
+        MappedWhiskeyRepository saved = new MappedWhiskeyRepository(file);
+        saved.connect();
+        try {
+            ColumnBuilder builder = new ColumnBuilder(saved.countAllMalts());
+            saved.getAllMalts().forEach(builder::add);
+            columns = checkKeys(builder.build());
+            loaded(saved.getChangeVersion());
+            return columns.size;
+        } finally {
+            saved.disconnect();
+        }
+    }
+
+    private static void checkRetained(Path file) throws SQLException {
+        try {
+            Instant saved = Files.getLastModifiedTime(file).toInstant();
+            if (saved.isBefore(Instant.now().minus(WhiskeyChangeLog.RETENTION))) {
+                throw new SQLException("Saved snapshot is older than the change log retention: " + file);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Error reading saved snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Sets the version of a full load. The versions below it may include changes that had not committed
+     * when the load was read, so the next sync reads back over the whole window.
+     */
+    private void loaded(long loadVersion) {
+        version = loadVersion;
+        gaps.clear();
+        rescan = true;
+    }
+
+    /**
+     * Saves the snapshot and its change version to a checksummed catalog file, which
+     * {@link #loadSaved(Path)} can load on the next start.
+     *
+     * @param file the catalog file to write; it is replaced in one step
+     * @throws SQLException if the file cannot be written
+     */
+    public synchronized void save(Path file) throws SQLException {
+        CatalogFile.write(file, getAllMalts(), version);
+    }
+
+    /**
+     * Connects to the source if needed and brings the snapshot up to date with it. When the snapshot has a
+     * change version and the source an available change log, only the changes since that version are
+     * read; otherwise the catalog is reloaded in full. Either way the new data is swapped in once it has been read.
+     *
+     * @return the number of records held afterwards
+     * @throws SQLException if a database access error occurs; the snapshot is left unchanged
+     */
+    public synchronized int refresh() throws SQLException {
+        connectSource();
+        if (hasChangeLog() && version > 0) {
+            sync();
+            return columns.size;
+        }
+        return reload();
+    }
+
+    /**
+     * Reads the whole catalog from the source again and swaps it in once it has been fully loaded.
+     * The latest change version is read first, so a change made during the load is applied again by
+     * the next {@link #sync()} rather than lost.
+     *
+     * @return the number of records loaded
+     * @throws SQLException if a database access error occurs
+     */
+    public synchronized int reload() throws SQLException {
+        long loadVersion = hasChangeLog() ? changeLog.getLatestChangeVersion() : 0;
+        ColumnBuilder builder = new ColumnBuilder();
+        try (Stream<WhiskeyDetails> s = source.streamAllMalts()) {
+            s.forEachOrdered(builder::add);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SQLException se) {
+                throw se;
+            }
+            throw e;
+        }
+        columns = checkKeys(builder.build());
+        loaded(loadVersion);
+        return columns.size;
+    }
+
+    /**
+     * Replaces the snapshot contents with the given records, without reading from the source.
+     *
+     * @param details the records to hold
+     * @throws IllegalArgumentException if two records share a (distillery, age) key
+     */
+    public synchronized void load(List<WhiskeyDetails> details) {
+        ColumnBuilder builder = new ColumnBuilder(details.size());
+        details.forEach(builder::add);
+        Columns loaded = builder.build();
+        WhiskeyDetails duplicate = loaded.duplicateKey();
+        if (duplicate != null) {
+            throw new IllegalArgumentException("Duplicate malt: " + duplicate.distillery() + " " + duplicate.age());
+        }
+        columns = loaded;
+    }
+
+    /**
+     * Checks that a full load has a single row per (distillery, age) key, which paging and
+     * {@link #apply(List)} rely on.
+     */
+    private static Columns checkKeys(Columns loaded) throws SQLException {
+        WhiskeyDetails duplicate = loaded.duplicateKey();
+        if (duplicate != null) {
+            throw new SQLException("Duplicate malt in catalog: " + duplicate.distillery() + " " + duplicate.age());
+        }
+        return loaded;
+    }
+
+    /**
+     * Reads the changes made since the last load or sync from the change log and applies them all at once.
+     * Only the changed rows are read, in batches of {@link #SYNC_BATCH_SIZE}, starting from the oldest version
+     * within {@link #SYNC_WINDOW} that has not been seen yet.
+     *
+     * If the change log does not exist in the source, nothing is read.
+     *
+     * @return the number of changes applied that had not been seen before
+     * @throws SQLException if a database access error occurs; the snapshot is left unchanged
+     * @throws IllegalStateException if the snapshot has no change log
+     */
+    public synchronized int sync() throws SQLException {
+        if (changeLog == null) {
+            throw new IllegalStateException("No change log to sync from");
+        }
+        if (!hasChangeLog()) {
+            return 0;
+        }
+        long floor = Math.max(0, version - SYNC_WINDOW);
+        long from = rescan ? floor : gaps.isEmpty() ? version : Math.max(floor, gaps.first() - 1);
+        List<WhiskeyChange> read = new ArrayList<>();
+        long next = from;
+        List<WhiskeyChange> batch;
+        do {
+            batch = changeLog.getChangesSince(next, SYNC_BATCH_SIZE);
+            if (!batch.isEmpty()) {
+                read.addAll(batch);
+                next = batch.get(batch.size() - 1).version();
+            }
+        } while (batch.size() == SYNC_BATCH_SIZE);
+
+        long latest = Math.max(version, next);
+        long keptFrom = Math.max(0, latest - SYNC_WINDOW);
+        TreeSet<Long> unseen = new TreeSet<>();
+        List<WhiskeyChange> pending = new ArrayList<>();
+        int fresh = 0;
+        long expected = from + 1;
+        for (WhiskeyChange change : read) {
+            long v = change.version();
+            for (long missing = Math.max(expected, keptFrom + 1); missing < v; missing++) {
+                if (missing > version || rescan || gaps.contains(missing)) {
+                    unseen.add(missing);
+                }
+            }
+            expected = v + 1;
+            boolean isNew = v > version || gaps.contains(v);
+            if (isNew || rescan) {
+                pending.add(change);
+                fresh += isNew ? 1 : 0;
+            }
+        }
+        apply(pending);
+        gaps.clear();
+        gaps.addAll(unseen);
+        rescan = false;
+        return fresh;
+    }
+
+    /**
+     * Returns whether the snapshot has a change log and the log exists in the source, so that loads are
+     * versioned and {@link #sync()} can read changes. Without one, {@link #refresh()} reloads in full.
+     *
+     * @return {@code true} if the change log can be read
+     * @throws SQLException if the check fails for a reason other than a missing log
+     */
+    public synchronized boolean hasChangeLog() throws SQLException {
+        return changeLog != null && changeLog.isAvailable();
+    }
+
+    /**
+     * Applies the given changes to the snapshot in one step. Queries running at the same time see
+     * either none or all of the changes.
+     *
+     * @param changes the changes to apply, in version order
+     */
+    public synchronized void apply(List<WhiskeyChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        columns = columns.apply(changes);
+        version = Math.max(version, changes.get(changes.size() - 1).version());
+    }
+
+    /**
+     * Returns the highest version of the changes applied to the snapshot.
+     *
+     * @return the change log version, or 0 if none has been applied
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts calling {@link #refresh()} in the background at the given interval, so the snapshot is kept
+     * current from the change log when the source has one and by full reloads when it does not. A failed
+     * refresh is reported and retried at the next interval.
+     *
+     * @param interval the time between the end of one sync and the start of the next
+     */
+    public synchronized void startSync(Duration interval) {
+        stopSync();
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WHISKEY-snapshot-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodMillis = interval.toMillis();
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Error refreshing whiskey snapshot: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background sync, if it is running.
+     */
+    public synchronized void stopSync() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+            syncer = null;
+        }
+    }
+
+    @Override
+    public List<WhiskeyDetails> getAllMalts() {
+        Columns c = columns;
+        List<WhiskeyDetails> result = new ArrayList<>(c.size);
+        for (int i = 0; i < c.size; i++) {
+            result.add(c.row(i));
+        }
+        return result;
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsFromRegion(String r) {
+        Columns c = columns;
+        boolean[] match = new boolean[c.regionNames.length];
+        boolean any = false;
+        for (int id = 0; id < match.length; id++) {
+            match[id] = c.regionNames[id].equalsIgnoreCase(r);
+            any |= match[id];
+        }
+        List<WhiskeyDetails> result = new ArrayList<>();
+        if (!any) {
+            return result;
+        }
+        for (int i = 0; i < c.size; i++) {
+            if (match[c.region[i]]) {
+                result.add(c.row(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves single malt whiskeys from several regions in a single scan of the region column.
+     *
+     * @param regions the regions to filter malts by
+     * @return the malts of each distinct region, in the order the regions were given
+     */
+    @Override
+    public Map<String, List<WhiskeyDetails>> getMaltsFromRegions(Collection<String> regions) {
+        Columns c = columns;
+        Map<String, List<WhiskeyDetails>> grouped = RegionGroups.empty(regions);
+        List<List<WhiskeyDetails>> target = new ArrayList<>(c.regionNames.length);
+        boolean any = false;
+        for (String name : c.regionNames) {
+            List<WhiskeyDetails> list = null;
+            for (Map.Entry<String, List<WhiskeyDetails>> e : grouped.entrySet()) {
+                if (e.getKey().equalsIgnoreCase(name)) {
+                    list = e.getValue();
+                    any = true;
+                    break;
+                }
+            }
+            target.add(list);
+        }
+        if (!any) {
+            return grouped;
+        }
+        for (int i = 0; i < c.size; i++) {
+            List<WhiskeyDetails> list = target.get(c.region[i]);
+            if (list != null) {
+                list.add(c.row(i));
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Retrieves single malt whiskeys within the specified age range using the age index.
+     * Results are returned in ascending age order.
+     *
+     * @param r1 the minimum age (inclusive)
+     * @param r2 the maximum age (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the age range
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) {
+        Columns c = columns;
+        return c.rows(c.ageIndex.rowsInRange(r1, r2));
+    }
+
+    /**
+     * Retrieves single malt whiskeys within the specified price range using the price index.
+     * Results are returned in ascending price order.
+     *
+     * @param p1 the minimum price (inclusive)
+     * @param p2 the maximum price (inclusive)
+     * @return a list of {@link WhiskeyDetails} within the price range
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) {
+        Columns c = columns;
+        return c.rows(c.priceIndex.rowsInRange(p1, p2));
+    }
+
+    /**
+     * Retrieves the single malt whiskeys that pass every filter of a composite query. The candidates are taken
+     * from the age or price index when the query has that range, and the remaining filters are checked per row.
+     *
+     * @param q the filters to apply
+     * @return a list of {@link WhiskeyDetails} matching the query
+     */
+    @Override
+    public List<WhiskeyDetails> getMaltsMatching(WhiskeyQuery q) {
+        Columns c = columns;
+        List<WhiskeyDetails> candidates;
+        if (q.hasAgeRange() && q.hasPriceRange()) {
+            candidates = (c.ageIndex.countInRange(q.minAge(), q.maxAge()) <= c.priceIndex.countInRange(q.minPrice(), q.maxPrice()))
+                    ? c.rows(c.ageIndex.rowsInRange(q.minAge(), q.maxAge()))
+                    : c.rows(c.priceIndex.rowsInRange(q.minPrice(), q.maxPrice()));
+        } else if (q.hasAgeRange()) {
+            candidates = c.rows(c.ageIndex.rowsInRange(q.minAge(), q.maxAge()));
+        } else if (q.hasPriceRange()) {
+            candidates = c.rows(c.priceIndex.rowsInRange(q.minPrice(), q.maxPrice()));
+        } else {
+            candidates = getAllMalts();
+        }
+        candidates.removeIf(d -> !q.matches(d));
+        return candidates;
+    }
+
+    /**
+     * Suggests distillery names that start with the given prefix from the in-memory distillery index,
+     * which is kept up to date as changes are applied.
+     *
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names in alphabetical order
+     */
+    @Override
+    public List<String> suggestDistilleries(String prefix, int limit) {
+        return columns.distilleries.suggest(prefix, limit);
+    }
+
+    /**
+     * Returns the price and age statistics of each region from the in-memory statistics index, which is
+     * kept up to date as changes are applied.
+     *
+     * @return the statistics of each region, ordered by region name
+     */
+    @Override
+    public List<RegionStats> getRegionStats() {
+        return columns.regionStats.stats();
+    }
+
+    @Override
+    public int countAllMalts() {
+        return columns.size;
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageAfter(WhiskeyDetails after, int limit) {
+        Columns c = columns;
+        int from = (after == null) ? 0 : c.keyPosition(after, true);
+        int to = Math.min(c.size, from + limit);
+        List<WhiskeyDetails> page = new ArrayList<>(Math.max(0, to - from));
+        for (int p = from; p < to; p++) {
+            page.add(c.row(c.keyOrder[p]));
+        }
+        return page;
+    }
+
+    @Override
+    public List<WhiskeyDetails> getMaltsPageBefore(WhiskeyDetails before, int limit) {
+        Columns c = columns;
+        int to = (before == null) ? c.size : c.keyPosition(before, false);
+        int from = Math.max(0, to - limit);
+        List<WhiskeyDetails> page = new ArrayList<>(to - from);
+        for (int p = from; p < to; p++) {
+            page.add(c.row(c.keyOrder[p]));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,61 @@
+package cqu.wis.roles;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs database operations off the JavaFX application thread for the data managers.
+ *
+ * Each operation runs on its own virtual thread, so a thread blocked in JDBC costs almost nothing and
+ * the number of operations in flight is limited only by the connection pool. Results are delivered as
+ * {@link CompletableFuture}s; a {@link SQLException} thrown by an operation completes the future
+ * exceptionally with that exception as the cause.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class DatabaseExecutor {
+
+    /**
+     * A database operation that produces a result.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface DatabaseTask<T> {
+        T run() throws SQLException;
+    }
+
+    private DatabaseExecutor() {
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread.
+     *
+     * @param name the prefix of the thread names, for example {@code "WHISKEY"}
+     * @return the executor
+     */
+    public static Executor newExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-db-", 0).factory());
+    }
+
+    /**
+     * Runs a database task on the given executor.
+     *
+     * @param executor the executor to run the task on
+     * @param task the task to run
+     * @param <T> the result type
+     * @return a future completed with the task's result or exception
+     */
+    public static <T> CompletableFuture<T> supply(Executor executor, DatabaseTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.run();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
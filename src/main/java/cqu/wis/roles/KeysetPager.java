@@ -0,0 +1,177 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides cyclic record-by-record navigation over an ordered data set that is fetched a page at a time.
+ *
+ * Pages are requested from a {@link PageSource} by key: the page after the last record seen or the page
+ * before the first record seen. The key must identify a single record, as the unique (distillery, age) key
+ * of SINGLEMALTS does, or records sharing a key with a page boundary would be skipped. Only a small window
+ * of recently visited pages is kept in memory, so memory use stays the same however large the data set is.
+ * Navigation wraps around from the last record to the first and from the first to the last, as it does
+ * for a fully loaded list.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class KeysetPager {
+
+    /**
+     * Supplies pages of records in a stable order.
+     */
+    public interface PageSource {
+
+        /**
+         * Returns the page of records that follows the given record.
+         *
+         * @param after the last record of the previous page or {@code null} for the first page
+         * @param limit the maximum number of records to return
+         * @return up to {@code limit} records in ascending order
+         * @throws SQLException if the page cannot be read
+         */
+        List<WhiskeyDetails> after(WhiskeyDetails after, int limit) throws SQLException;
+
+        /**
+         * Returns the page of records that precedes the given record.
+         *
+         * @param before the first record of the following page or {@code null} for the last page
+         * @param limit the maximum number of records to return
+         * @return up to {@code limit} records in ascending order
+         * @throws SQLException if the page cannot be read
+         */
+        List<WhiskeyDetails> before(WhiskeyDetails before, int limit) throws SQLException;
+    }
+
+    private final PageSource source;
+    private final int pageSize;
+    private final int maxPages;
+    private final List<List<WhiskeyDetails>> window = new ArrayList<>();
+    private int page = -1;
+    private int row = -1;
+
+    /**
+     * Constructs a new pager.
+     *
+     * @param source the source of pages
+     * @param pageSize the number of records fetched per page
+     * @param maxPages the maximum number of pages kept in memory
+     */
+    public KeysetPager(PageSource source, int pageSize, int maxPages) {
+        if (pageSize < 1 || maxPages < 1) {
+            throw new IllegalArgumentException("Page size and window size must be positive");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Moves to the first record, fetching the first page.
+     *
+     * @return the first record or {@code null} if the data set is empty
+     * @throws SQLException if the page cannot be read
+     */
+    public WhiskeyDetails first() throws SQLException {
+        window.clear();
+        List<WhiskeyDetails> p = source.after(null, pageSize);
+        if (p.isEmpty()) {
+            page = row = -1;
+            return null;
+        }
+        window.add(p);
+        page = 0;
+        row = 0;
+        return p.get(0);
+    }
+
+    /**
+     * Moves to the next record, fetching the following page when the end of the window is reached.
+     * Wraps around to the first record after the last one.
+     *
+     * @return the next record or {@code null} if the data set is empty
+     * @throws SQLException if a page cannot be read
+     */
+    public WhiskeyDetails next() throws SQLException {
+        if (window.isEmpty()) {
+            return first();
+        }
+        List<WhiskeyDetails> current = window.get(page);
+        if (row + 1 < current.size()) {
+            return current.get(++row);
+        }
+        if (page + 1 < window.size()) {
+            page++;
+            row = 0;
+            return window.get(page).get(row);
+        }
+
+        List<WhiskeyDetails> p = source.after(current.get(current.size() - 1), pageSize);
+        if (p.isEmpty()) {
+            p = source.after(null, pageSize);
+        }
+        if (p.isEmpty()) {
+            return reset();
+        }
+        window.add(p);
+        if (window.size() > maxPages) {
+            window.remove(0);
+        }
+        page = window.size() - 1;
+        row = 0;
+        return p.get(row);
+    }
+
+    /**
+     * Moves to the previous record, fetching the preceding page when the start of the window is reached.
+     * Wraps around to the last record before the first one.
+     *
+     * @return the previous record or {@code null} if the data set is empty
+     * @throws SQLException if a page cannot be read
+     */
+    public WhiskeyDetails previous() throws SQLException {
+        if (window.isEmpty()) {
+            return first();
+        }
+        if (row > 0) {
+            return window.get(page).get(--row);
+        }
+        if (page > 0) {
+            page--;
+            row = window.get(page).size() - 1;
+            return window.get(page).get(row);
+        }
+
+        List<WhiskeyDetails> p = source.before(window.get(0).get(0), pageSize);
+        if (p.isEmpty()) {
+            p = source.before(null, pageSize);
+        }
+        if (p.isEmpty()) {
+            return reset();
+        }
+        window.add(0, p);
+        if (window.size() > maxPages) {
+            window.remove(window.size() - 1);
+        }
+        page = 0;
+        row = p.size() - 1;
+        return p.get(row);
+    }
+
+    /**
+     * Returns the number of pages currently held in memory.
+     *
+     * @return the size of the page window
+     */
+    public int getWindowSize() {
+        return window.size();
+    }
+
+    private WhiskeyDetails reset() {
+        window.clear();
+        page = row = -1;
+        return null;
+    }
+}
@@ -1,17 +1,37 @@
 package cqu.wis.roles;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 /**
  * Manages scene transitions within the Whiskey Information System JavaFX application.
- * 
+ *
  * This class acts as a central coordinator for switching between different UI scenes,
  * such as login, password change and query views. It maintains a mapping between
  * {@link SceneKey} identifiers and {@link Scene} objects and it can set the active
  * scene on the application stage as needed.
- * 
+ *
+ * A scene can be added ready-built, or as a {@link SceneFactory} that builds it when it is first shown or
+ * when it is preloaded in the background. Asking for a scene that is still being preloaded switches to it
+ * once it is ready. At most a given number of scenes are kept; beyond that, the least recently shown scenes
+ * that have a factory are dropped and built again when they are next shown.
+ *
+ * Apart from {@link #preload}, the methods of this class must be called on the JavaFX application thread.
+ *
  * @author Ayush Bhandari S12157470
  */
 public class SceneCoordinator {
@@ -21,42 +41,172 @@ public class SceneCoordinator {
      */
     public enum SceneKey { LOGIN, PASSWORD, QUERY }
 
+    /**
+     * Builds the root of a scene, including loading its layout and injecting its controller. A factory may
+     * be run on a background thread, so it must not touch any node that is already showing.
+     */
+    @FunctionalInterface
+    public interface SceneFactory {
+        Parent create() throws IOException;
+    }
+
+    private static final Executor PRELOADER =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SCENE-", 0).factory());
+
     private final Stage stage;
-    private final HashMap<SceneKey, Scene> scenes;
+    private final int maxScenes;
+    /** Built scenes, least recently shown first. */
+    private final LinkedHashMap<SceneKey, Scene> scenes;
+    private final Map<SceneKey, SceneFactory> factories = new EnumMap<>(SceneKey.class);
+    private final Map<SceneKey, CompletableFuture<Void>> preloading = new ConcurrentHashMap<>();
+    private SceneKey current;
+    private SceneKey pending;
 
     /**
-     * Constructs a new {@code SceneCoordinator} with the given primary stage.
+     * Constructs a new {@code SceneCoordinator} with the given primary stage that keeps every scene.
      *
      * @param s the primary {@link Stage} of the application
      */
     public SceneCoordinator(Stage s) {
-        this.scenes = new HashMap<>();
+        this(s, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new {@code SceneCoordinator} with the given primary stage that keeps at most the given
+     * number of scenes.
+     *
+     * @param s the primary {@link Stage} of the application
+     * @param maxScenes the number of scenes to keep, at least 1
+     */
+    public SceneCoordinator(Stage s, int maxScenes) {
+        if (maxScenes < 1) {
+            throw new IllegalArgumentException("maxScenes must be at least 1");
+        }
+        this.scenes = new LinkedHashMap<>(4, 0.75f, true);
         this.stage = s;
+        this.maxScenes = maxScenes;
     }
 
     /**
-     * Adds a new scene to the coordinator's registry.
+     * Adds a new scene to the coordinator's registry. A scene added this way is never dropped.
      *
      * @param key the unique {@link SceneKey} identifier for the scene
      * @param value the {@link Scene} object to associate with the key
      */
     public void addScene(SceneKey key, Scene value) {
+        factories.remove(key);
         scenes.put(key, value);
+        if (key == pending) {
+            setScene(key);
+        }
+    }
+
+    /**
+     * Adds a factory for a scene to the coordinator's registry. The scene is built when it is first shown
+     * or preloaded, and again if it has been dropped since.
+     *
+     * @param key the unique {@link SceneKey} identifier for the scene
+     * @param factory the factory that builds the scene's root
+     */
+    public void addSceneFactory(SceneKey key, SceneFactory factory) {
+        factories.put(key, factory);
+        scenes.remove(key);
+    }
+
+    /**
+     * Builds a scene in the background, so it is ready by the time it is shown. The factory runs on a
+     * background thread straight away; the scene is created on the JavaFX application thread once the
+     * factory has finished and {@code ready} has completed, for example once the scene's data is connected.
+     * Until then, asking for the scene switches to it when it is ready. If the preload fails, the failure is
+     * reported and a pending switch to the scene is dropped. This method may be called from any thread.
+     *
+     * @param key the key of a scene added with a factory
+     * @param ready a stage that must complete before the scene is added
+     * @return a future completed once the scene has been added, or exceptionally if it could not be built
+     */
+    public CompletableFuture<Void> preload(SceneKey key, CompletionStage<?> ready) {
+        SceneFactory factory = factories.get(key);
+        if (factory == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No factory for scene " + key));
+        }
+        return preloading.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return factory.create();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, PRELOADER).thenCombine(ready, (root, r) -> root).thenAcceptAsync(root -> {
+            preloading.remove(key);
+            if (!scenes.containsKey(key)) {
+                scenes.put(key, new Scene(root));
+            }
+            if (key == pending) {
+                setScene(key);
+            } else {
+                evict();
+            }
+        }, Platform::runLater).whenComplete((v, e) -> {
+            if (e != null) {
+                Platform.runLater(() -> preloadFailed(key, e));
+            }
+        }));
+    }
+
+    /**
+     * Forgets a failed preload, so the scene is built on demand the next time it is asked for, and reports
+     * the failure. If the stage was waiting to switch to the scene, it stays on the current scene instead.
+     *
+     * @param key the key of the scene that could not be preloaded
+     * @param e the failure
+     */
+    private void preloadFailed(SceneKey key, Throwable e) {
+        preloading.remove(key);
+        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+        System.err.println("Failed to preload scene " + key + ": " + cause.getMessage());
+        if (key == pending) {
+            pending = null;
+        }
     }
 
     /**
      * Sets the active scene based on the given key.
      *
      * This method updates the application's main stage to display the new scene
-     * and sets a standard window title.
+     * and sets a standard window title. A scene added with a factory is built first
+     * if it is not already built. If the scene is still being preloaded or has not been
+     * added yet, the stage switches to it when it is added.
      *
      * @param key the {@link SceneKey} of the scene to display
+     * @throws UncheckedIOException if the scene's layout cannot be loaded
      */
     public void setScene(SceneKey key) {
+        SceneSwitchEvent event = new SceneSwitchEvent();
+        event.begin();
+        SceneKey previous = current;
         Scene s = scenes.get(key);
+        boolean built = false;
+        if (s == null) {
+            SceneFactory factory = factories.get(key);
+            if (factory == null || preloading.containsKey(key)) {
+                pending = key;
+                commit(event, key, previous, false, true);
+                return;
+            }
+            try {
+                s = new Scene(factory.create());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            scenes.put(key, s);
+            built = true;
+        }
+        pending = null;
+        current = key;
         stage.setScene(s);
         stage.setTitle("Whiskey Information System");
         stage.show();
+        evict();
+        commit(event, key, previous, built, false);
     }
 
     /**
@@ -68,4 +218,30 @@ public class SceneCoordinator {
     public void start(SceneKey key) {
         setScene(key);
     }
+
+    private static void commit(SceneSwitchEvent event, SceneKey key, SceneKey previous, boolean built, boolean deferred) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.scene = key.name();
+            event.previous = previous == null ? null : previous.name();
+            event.built = built;
+            event.deferred = deferred;
+            event.commit();
+        }
+    }
+
+    /**
+     * Drops the least recently shown scenes that can be built again until no more than the maximum are kept.
+     */
+    private void evict() {
+        Iterator<SceneKey> keys = scenes.keySet().iterator();
+        int excess = scenes.size() - maxScenes;
+        while (excess > 0 && keys.hasNext()) {
+            SceneKey key = keys.next();
+            if (key != current && factories.containsKey(key)) {
+                keys.remove();
+                excess--;
+            }
+        }
+    }
 }
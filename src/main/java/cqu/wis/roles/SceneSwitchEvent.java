@@ -0,0 +1,36 @@
+package cqu.wis.roles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one call of {@link SceneCoordinator#setScene}, covering any building of
+ * the scene and the switch of the stage, so a recording shows which switches stalled the application thread.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@Name("cqu.wis.SceneSwitch")
+@Label("Scene Switch")
+@Category({"Whiskey Information System", "JavaFX"})
+@Description("A switch of the stage to another scene")
+@StackTrace(false)
+final class SceneSwitchEvent extends Event {
+
+    @Label("Scene")
+    String scene;
+
+    @Label("Previous Scene")
+    String previous;
+
+    @Label("Built")
+    @Description("Whether the scene had to be built before it could be shown")
+    boolean built;
+
+    @Label("Deferred")
+    @Description("Whether the switch waits for the scene to be added or preloaded")
+    boolean deferred;
+}
@@ -1,31 +1,50 @@
 package cqu.wis.roles;
 
-import cqu.wis.data.UserData;
 import cqu.wis.data.UserData.UserDetails;
+import cqu.wis.data.UserRepository;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Provides a higher-level interface for managing user authentication data.
  *
- * This class acts as a controller that uses the {@link UserData} data access object
+ * This class acts as a controller that uses the {@link UserRepository} data access object
  * to perform operations related to user records, such as:
  * Finding a user by username
  * Updating a user's password
  * Disconnecting from the user database
+ *
+ * The find and update operations also have asynchronous variants that run on a background executor,
+ * so the user interface thread never waits for the database.
  *  
  * @author Ayush Bhandari S12157470
  */
 public class UserDataManager {
 
-    private final UserData ud;
+    private final UserRepository ud;
+    private final Executor executor;
+
+    /**
+     * Constructs a new {@code UserDataManager} using the given {@link UserRepository} data source.
+     * Asynchronous operations run on virtual threads.
+     *
+     * @param ud the user data source used to retrieve and update user information
+     */
+    public UserDataManager(UserRepository ud) {
+        this(ud, DatabaseExecutor.newExecutor("USERS"));
+    }
 
     /**
-     * Constructs a new {@code UserDataManager} using the given {@link UserData} data source.
+     * Constructs a new {@code UserDataManager} using the given {@link UserRepository} data source
+     * and executor for asynchronous operations.
      *
      * @param ud the user data source used to retrieve and update user information
+     * @param executor the executor the asynchronous operations run on
      */
-    public UserDataManager(UserData ud) {
+    public UserDataManager(UserRepository ud, Executor executor) {
         this.ud = ud;
+        this.executor = executor;
     }
 
     /**
@@ -51,6 +70,27 @@ public class UserDataManager {
         return ud.updatePassword(user, password);
     }
 
+    /**
+     * Finds a user record by username in the background.
+     *
+     * @param name the username to search for
+     * @return a future completed with the {@link UserDetails} or {@code null} if the user does not exist
+     */
+    public CompletableFuture<UserDetails> findUserAsync(String name) {
+        return DatabaseExecutor.supply(executor, () -> findUser(name));
+    }
+
+    /**
+     * Updates the password for a given username in the background.
+     *
+     * @param user the username whose password is to be updated
+     * @param password the new password to set
+     * @return a future completed with {@code 1} if the update was successful, {@code 0} otherwise
+     */
+    public CompletableFuture<Integer> updatePasswordAsync(String user, String password) {
+        return DatabaseExecutor.supply(executor, () -> updatePassword(user, password));
+    }
+
     /**
      * Disconnects from the underlying user database.
      *
@@ -1,39 +1,90 @@
 package cqu.wis.roles;
 
+import cqu.wis.data.RegionStats;
 import cqu.wis.data.WhiskeyData;
 import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import cqu.wis.data.WhiskeyQuery;
+import cqu.wis.data.WhiskeyRepository;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Manages retrieval and navigation of whiskey data records.
  * 
  * This class serves as a controller for accessing, storing, and navigating through a list of {@link WhiskeyDetails}
- * retrieved from a {@link WhiskeyData} data source. It supports fetching all records, filtering by region or age range
- * and cyclic navigation through the result set.
+ * retrieved from a {@link WhiskeyRepository} data source such as {@link WhiskeyData}. It supports fetching all records, filtering by region, age range or price range
+ * or by a {@link WhiskeyQuery} combining several filters,
+ * and cyclic navigation through the result set. Each query can also be run in streaming mode, where a listener is
+ * given the first record as soon as it arrives rather than after the whole result has been read. All malts can be
+ * browsed in paged mode, which keeps only a few pages of records in memory at a time.
  *
  * It also provides methods to connect/disconnect from the data source and is used by the user interface
  * to handle display logic and data access seamlessly.
+ *
+ * Every query and navigation step also has an asynchronous variant that runs on a background executor and
+ * returns a {@link CompletableFuture}, so the user interface thread never waits for the database. Queries
+ * run without holding a lock and the new dataset is swapped in under a short lock once it has been read, so
+ * it is never seen half replaced and a slow query does not block navigation or other queries. If queries
+ * overlap, the dataset of the one started last is kept, and a query that was overtaken reports the size of
+ * that dataset rather than its own. Pages are fetched outside the lock as well, under a second lock that
+ * only keeps navigation steps in order, and a page fetched for a dataset that has since been replaced is
+ * dropped. Both locks are {@link ReentrantLock}s rather than monitors, so a virtual thread waiting on the
+ * database while holding one does not pin its carrier thread.
  * 
  * @author Ayush Bhandari S12157470
  */
 public class WhiskeyDataManager {
 
-    private final WhiskeyData wd;
+    private final WhiskeyRepository wd;
+    private final Executor executor;
+    /** Guards the dataset and navigation state below. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Held while the pager fetches a page, so it moves one step at a time without holding {@code lock}. */
+    private final ReentrantLock pageLock = new ReentrantLock();
+    /** Number of queries started, and the number of the query whose dataset is in use; guarded by {@code lock}. */
+    private long queriesStarted;
+    private long datasetQuery;
     private List<WhiskeyDetails> records = new ArrayList<>();
     private int numberOfRecords = 0;
     private int currentIndex = -1;
     private WhiskeyDetails currentRecord;
+    private KeysetPager pager;
+    /** Completed with how long the first record query took, once one has returned. */
+    private final CompletableFuture<Duration> firstResult = new CompletableFuture<>();
+
+    /** Number of pages kept in memory in paged mode. */
+    private static final int PAGE_WINDOW_SIZE = 3;
+
+    /**
+     * Constructs a new {@code WhiskeyDataManager} using the given {@link WhiskeyRepository} source.
+     * Asynchronous operations run on virtual threads.
+     * 
+     * @param wd the whiskey data source used to fetch records
+     */
+    public WhiskeyDataManager(WhiskeyRepository wd) {
+        this(wd, DatabaseExecutor.newExecutor("WHISKEY"));
+    }
 
     /**
-     * Constructs a new {@code WhiskeyDataManager} using the given {@link WhiskeyData} source.
+     * Constructs a new {@code WhiskeyDataManager} using the given {@link WhiskeyRepository} source
+     * and executor for asynchronous operations.
      * 
      * @param wd the whiskey data source used to fetch records
+     * @param executor the executor the asynchronous operations run on
      */
-    public WhiskeyDataManager(WhiskeyData wd) {
+    public WhiskeyDataManager(WhiskeyRepository wd, Executor executor) {
         this.wd = wd;
+        this.executor = executor;
     }
 
     /**
@@ -43,10 +94,8 @@ public class WhiskeyDataManager {
      * @throws SQLException if an error occurs while querying the data source
      */
     public int findAllMalts() throws SQLException {
-        records = wd.getAllMalts();
-        currentIndex = records.isEmpty() ? -1 : 0;
-        numberOfRecords = records.size();
-        return numberOfRecords;
+        long query = startQuery();
+        return useRecords(query, wd.getAllMalts());
     }
 
     /**
@@ -57,10 +106,25 @@ public class WhiskeyDataManager {
      * @throws SQLException if an error occurs while querying the data source
      */
     public int findMaltsFromRegion(String r) throws SQLException {
-        records = wd.getMaltsFromRegion(r);
-        currentIndex = records.isEmpty() ? -1 : 0;
-        numberOfRecords = records.size();
-        return numberOfRecords;
+        long query = startQuery();
+        return useRecords(query, wd.getMaltsFromRegion(r));
+    }
+
+    /**
+     * Retrieves the malt records of several regions with one query. The current dataset becomes the records
+     * of all the regions, region by region.
+     * 
+     * @param regions the regions to filter malts by
+     * @return the records of each distinct region, in the order the regions were given
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public Map<String, List<WhiskeyDetails>> findMaltsFromRegions(Collection<String> regions) throws SQLException {
+        long query = startQuery();
+        Map<String, List<WhiskeyDetails>> grouped = wd.getMaltsFromRegions(regions);
+        List<WhiskeyDetails> all = new ArrayList<>();
+        grouped.values().forEach(all::addAll);
+        useRecords(query, all);
+        return grouped;
     }
 
     /**
@@ -72,10 +136,298 @@ public class WhiskeyDataManager {
      * @throws SQLException if an error occurs while querying the data source
      */
     public int findMaltsInAgeRange(int r1, int r2) throws SQLException {
-        records = wd.getMaltsInAgeRange(r1, r2);
-        currentIndex = records.isEmpty() ? -1 : 0;
-        numberOfRecords = records.size();
-        return numberOfRecords;
+        long query = startQuery();
+        return useRecords(query, wd.getMaltsInAgeRange(r1, r2));
+    }
+
+    /**
+     * Retrieves all malt records within the specified price range.
+     * 
+     * @param p1 the lower bound of the price range (inclusive)
+     * @param p2 the upper bound of the price range (inclusive)
+     * @return the number of records retrieved
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public int findMaltsInPriceRange(int p1, int p2) throws SQLException {
+        long query = startQuery();
+        return useRecords(query, wd.getMaltsInPriceRange(p1, p2));
+    }
+
+    /**
+     * Retrieves the malt records that pass every filter of a composite query, such as a set of regions
+     * together with an age range. The filtering is done by the data source.
+     * 
+     * @param q the filters to apply
+     * @return the number of records retrieved
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public int findMaltsMatching(WhiskeyQuery q) throws SQLException {
+        long query = startQuery();
+        return useRecords(query, wd.getMaltsMatching(q));
+    }
+
+    /**
+     * Suggests distillery names that start with the given prefix, for type-ahead search.
+     * The current dataset is not changed.
+     * 
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return up to {@code limit} matching names in alphabetical order
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public List<String> suggestDistilleries(String prefix, int limit) throws SQLException {
+        return wd.suggestDistilleries(prefix, limit);
+    }
+
+    /**
+     * Retrieves the count, minimum, maximum, mean and median of the price and age of each region, computed
+     * by the data source rather than by paging through the records. The current dataset is not changed.
+     * 
+     * @return the statistics of each region, ordered by region name
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public List<RegionStats> findRegionStats() throws SQLException {
+        return wd.getRegionStats();
+    }
+
+    /**
+     * Gives the validator the regions and distilleries of the catalog, so misspelled names are caught
+     * before they are queried. Only the distinct names are read, not the records. The current dataset is
+     * not changed.
+     * 
+     * @param wdv the validator to give the names to
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public void loadKnownNames(WhiskeyDataValidator wdv) throws SQLException {
+        wdv.useKnownNames(wd.getRegions(), wd.getDistilleries());
+    }
+
+    /**
+     * Retrieves all malt records from the data source, streaming rows as they arrive.
+     * 
+     * @param firstRecordListener called with the first record as soon as it is read; may be {@code null}
+     * @return the number of records retrieved
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public int findAllMalts(Consumer<WhiskeyDetails> firstRecordListener) throws SQLException {
+        long query = startQuery();
+        try (Stream<WhiskeyDetails> s = wd.streamAllMalts()) {
+            return loadRecords(query, s, firstRecordListener);
+        }
+    }
+
+    /**
+     * Retrieves all malt records from a specific region, streaming rows as they arrive.
+     * 
+     * @param r the region to filter malts by
+     * @param firstRecordListener called with the first record as soon as it is read; may be {@code null}
+     * @return the number of records retrieved
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public int findMaltsFromRegion(String r, Consumer<WhiskeyDetails> firstRecordListener) throws SQLException {
+        long query = startQuery();
+        try (Stream<WhiskeyDetails> s = wd.streamMaltsFromRegion(r)) {
+            return loadRecords(query, s, firstRecordListener);
+        }
+    }
+
+    /**
+     * Retrieves all malt records within the specified age range, streaming rows as they arrive.
+     * 
+     * @param r1 the lower bound of the age range (inclusive)
+     * @param r2 the upper bound of the age range (inclusive)
+     * @param firstRecordListener called with the first record as soon as it is read; may be {@code null}
+     * @return the number of records retrieved
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public int findMaltsInAgeRange(int r1, int r2, Consumer<WhiskeyDetails> firstRecordListener) throws SQLException {
+        long query = startQuery();
+        try (Stream<WhiskeyDetails> s = wd.streamMaltsInAgeRange(r1, r2)) {
+            return loadRecords(query, s, firstRecordListener);
+        }
+    }
+
+    /**
+     * Helper method that reads a stream of records into the current dataset, passing the first
+     * record to the listener as soon as it is read.
+     * 
+     * @param query the number of the query the stream belongs to
+     * @param s the stream of records to read
+     * @param firstRecordListener called with the first record; may be {@code null}
+     * @return the number of records read
+     * @throws SQLException if an error occurs while reading from the data source
+     */
+    private int loadRecords(long query, Stream<WhiskeyDetails> s, Consumer<WhiskeyDetails> firstRecordListener) throws SQLException {
+        List<WhiskeyDetails> loaded = new ArrayList<>();
+        try {
+            s.forEachOrdered(d -> {
+                loaded.add(d);
+                if (loaded.size() == 1 && firstRecordListener != null) {
+                    firstRecordListener.accept(d);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SQLException se) {
+                throw se;
+            }
+            throw e;
+        }
+        return useRecords(query, loaded);
+    }
+
+    /**
+     * Retrieves all malt records in paged mode. Only the record count is read immediately; records are then
+     * fetched a page at a time in (distillery, age) order as {@link #first()}, {@link #next()} and
+     * {@link #previous()} move through them, and only a small window of pages is kept in memory.
+     * 
+     * @param pageSize the number of records fetched per page
+     * @return the number of records available, or the number in the dataset in use if a query started
+     *         later has already replaced it
+     * @throws SQLException if an error occurs while querying the data source
+     */
+    public int findAllMaltsPaged(int pageSize) throws SQLException {
+        long query = startQuery();
+        int count = wd.countAllMalts();
+        KeysetPager.PageSource source = new KeysetPager.PageSource() {
+            @Override
+            public List<WhiskeyDetails> after(WhiskeyDetails after, int limit) throws SQLException {
+                return wd.getMaltsPageAfter(after, limit);
+            }
+
+            @Override
+            public List<WhiskeyDetails> before(WhiskeyDetails before, int limit) throws SQLException {
+                return wd.getMaltsPageBefore(before, limit);
+            }
+        };
+        KeysetPager paged = new KeysetPager(source, pageSize, PAGE_WINDOW_SIZE);
+        lock.lock();
+        try {
+            if (isLatest(query)) {
+                records = new ArrayList<>();
+                pager = paged;
+                numberOfRecords = count;
+                currentIndex = (count == 0) ? -1 : 0;
+                currentRecord = null;
+            }
+            return numberOfRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a future completed with how long the first record query run through this manager took, once
+     * it has returned its records. Name lookups, suggestions and navigation are not record queries.
+     *
+     * @return the future, which is not completed if no record query succeeds
+     */
+    public CompletableFuture<Duration> getFirstResult() {
+        return firstResult;
+    }
+
+    /**
+     * Helper method that runs a record query in the background and times it for {@link #getFirstResult()}.
+     */
+    private <T> CompletableFuture<T> supplyRecords(DatabaseExecutor.DatabaseTask<T> query) {
+        return DatabaseExecutor.supply(executor, () -> {
+            long start = System.nanoTime();
+            T result = query.run();
+            firstResult.complete(Duration.ofNanos(System.nanoTime() - start));
+            return result;
+        });
+    }
+
+    /**
+     * Helper method that numbers a query as it starts, so its result is only used if no query started
+     * after it has already been used.
+     * 
+     * @return the number of the query
+     */
+    private long startQuery() {
+        lock.lock();
+        try {
+            return ++queriesStarted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that records the given query as the source of the dataset if it is newer than the
+     * current one. Must be called holding {@code lock}.
+     */
+    private boolean isLatest(long query) {
+        if (query < datasetQuery) {
+            return false;
+        }
+        datasetQuery = query;
+        return true;
+    }
+
+    /**
+     * Helper method that replaces the current dataset with a fully loaded list of records
+     * and leaves paged mode, unless a query started later has already replaced it.
+     * 
+     * @param query the number of the query the records were read by
+     * @param loaded the records to use
+     * @return the number of records in the dataset in use, which are the loaded records unless a query
+     *         started later has already replaced them
+     */
+    private int useRecords(long query, List<WhiskeyDetails> loaded) {
+        lock.lock();
+        try {
+            if (isLatest(query)) {
+                pager = null;
+                records = loaded;
+                currentIndex = records.isEmpty() ? -1 : 0;
+                currentRecord = records.isEmpty() ? null : records.get(0);
+                numberOfRecords = records.size();
+            }
+            return numberOfRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that performs a navigation step in paged mode, reporting a failure to fetch a page
+     * as an unchecked exception because the navigation methods do not declare {@link SQLException}.
+     * Must be called without holding {@code lock}: the page is fetched holding only {@code pageLock},
+     * so the pager moves one step at a time while queries and their datasets are not held up. If the
+     * pager has been replaced by the time the step returns, its record is dropped and the current
+     * record of the dataset in use is returned instead.
+     * 
+     * @param paged the pager of the dataset the step was asked for
+     * @param step the pager navigation step
+     * @return the record moved to or {@code null} if there are no records
+     */
+    private WhiskeyDetails page(KeysetPager paged, PageStep step) {
+        WhiskeyDetails moved;
+        pageLock.lock();
+        try {
+            moved = step.move();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving page of malts: " + e.getMessage(), e);
+        } finally {
+            pageLock.unlock();
+        }
+        lock.lock();
+        try {
+            if (pager == paged) {
+                currentRecord = moved;
+            }
+            return currentRecord;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A single navigation step of a {@link KeysetPager}.
+     */
+    @FunctionalInterface
+    private interface PageStep {
+        WhiskeyDetails move() throws SQLException;
     }
 
     /**
@@ -84,10 +436,20 @@ public class WhiskeyDataManager {
      * @return the first {@link WhiskeyDetails} record or {@code null} if the dataset is empty
      */
     public WhiskeyDetails first() {
-        if (records.isEmpty()) return null;
-        currentIndex = 0;
-        currentRecord = records.get(currentIndex);
-        return currentRecord;
+        KeysetPager paged;
+        lock.lock();
+        try {
+            paged = pager;
+            if (paged == null) {
+                if (records.isEmpty()) return null;
+                currentIndex = 0;
+                currentRecord = records.get(currentIndex);
+                return currentRecord;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return page(paged, paged::first);
     }
 
     /**
@@ -97,10 +459,20 @@ public class WhiskeyDataManager {
      * @return the next {@link WhiskeyDetails} record or {@code null} if the dataset is empty
      */
     public WhiskeyDetails next() {
-        if (records.isEmpty()) return null;
-        currentIndex = (currentIndex + 1) % records.size();
-        currentRecord = records.get(currentIndex);
-        return currentRecord;
+        KeysetPager paged;
+        lock.lock();
+        try {
+            paged = pager;
+            if (paged == null) {
+                if (records.isEmpty()) return null;
+                currentIndex = (currentIndex + 1) % records.size();
+                currentRecord = records.get(currentIndex);
+                return currentRecord;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return page(paged, paged::next);
     }
 
     /**
@@ -110,10 +482,158 @@ public class WhiskeyDataManager {
      * @return the previous {@link WhiskeyDetails} record or {@code null} if the dataset is empty
      */
     public WhiskeyDetails previous() {
-        if (records.isEmpty()) return null;
-        currentIndex = (currentIndex - 1 + records.size()) % records.size();
-        currentRecord = records.get(currentIndex);
-        return currentRecord;
+        KeysetPager paged;
+        lock.lock();
+        try {
+            paged = pager;
+            if (paged == null) {
+                if (records.isEmpty()) return null;
+                currentIndex = (currentIndex - 1 + records.size()) % records.size();
+                currentRecord = records.get(currentIndex);
+                return currentRecord;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return page(paged, paged::previous);
+    }
+
+    /**
+     * Retrieves all malt records from the data source in the background, streaming rows as they arrive.
+     * 
+     * @param firstRecordListener called on the background thread with the first record; may be {@code null}
+     * @return a future completed with the number of records retrieved
+     */
+    public CompletableFuture<Integer> findAllMaltsAsync(Consumer<WhiskeyDetails> firstRecordListener) {
+        return supplyRecords(() -> findAllMalts(firstRecordListener));
+    }
+
+    /**
+     * Retrieves all malt records from a specific region in the background, streaming rows as they arrive.
+     * 
+     * @param r the region to filter malts by
+     * @param firstRecordListener called on the background thread with the first record; may be {@code null}
+     * @return a future completed with the number of records retrieved
+     */
+    public CompletableFuture<Integer> findMaltsFromRegionAsync(String r, Consumer<WhiskeyDetails> firstRecordListener) {
+        return supplyRecords(() -> findMaltsFromRegion(r, firstRecordListener));
+    }
+
+    /**
+     * Retrieves the malt records of several regions with one query in the background.
+     * 
+     * @param regions the regions to filter malts by
+     * @return a future completed with the records of each distinct region
+     * @see #findMaltsFromRegions(Collection)
+     */
+    public CompletableFuture<Map<String, List<WhiskeyDetails>>> findMaltsFromRegionsAsync(Collection<String> regions) {
+        return supplyRecords(() -> findMaltsFromRegions(regions));
+    }
+
+    /**
+     * Retrieves all malt records within the specified age range in the background, streaming rows as they arrive.
+     * 
+     * @param r1 the lower bound of the age range (inclusive)
+     * @param r2 the upper bound of the age range (inclusive)
+     * @param firstRecordListener called on the background thread with the first record; may be {@code null}
+     * @return a future completed with the number of records retrieved
+     */
+    public CompletableFuture<Integer> findMaltsInAgeRangeAsync(int r1, int r2, Consumer<WhiskeyDetails> firstRecordListener) {
+        return supplyRecords(() -> findMaltsInAgeRange(r1, r2, firstRecordListener));
+    }
+
+    /**
+     * Retrieves all malt records within the specified price range in the background.
+     * 
+     * @param p1 the lower bound of the price range (inclusive)
+     * @param p2 the upper bound of the price range (inclusive)
+     * @return a future completed with the number of records retrieved
+     */
+    public CompletableFuture<Integer> findMaltsInPriceRangeAsync(int p1, int p2) {
+        return supplyRecords(() -> findMaltsInPriceRange(p1, p2));
+    }
+
+    /**
+     * Retrieves the malt records that pass every filter of a composite query in the background.
+     * 
+     * @param q the filters to apply
+     * @return a future completed with the number of records retrieved
+     */
+    public CompletableFuture<Integer> findMaltsMatchingAsync(WhiskeyQuery q) {
+        return supplyRecords(() -> findMaltsMatching(q));
+    }
+
+    /**
+     * Suggests distillery names that start with the given prefix in the background.
+     * 
+     * @param prefix the start of the name typed so far
+     * @param limit the maximum number of names to return
+     * @return a future completed with up to {@code limit} matching names
+     */
+    public CompletableFuture<List<String>> suggestDistilleriesAsync(String prefix, int limit) {
+        return DatabaseExecutor.supply(executor, () -> suggestDistilleries(prefix, limit));
+    }
+
+    /**
+     * Retrieves the statistics of each region in the background.
+     * 
+     * @return a future completed with the statistics of each region
+     * @see #findRegionStats()
+     */
+    public CompletableFuture<List<RegionStats>> findRegionStatsAsync() {
+        return DatabaseExecutor.supply(executor, this::findRegionStats);
+    }
+
+    /**
+     * Gives the validator the regions and distilleries of the catalog in the background.
+     * 
+     * @param wdv the validator to give the names to
+     * @return a future completed once the validator has the names
+     * @see #loadKnownNames(WhiskeyDataValidator)
+     */
+    public CompletableFuture<Void> loadKnownNamesAsync(WhiskeyDataValidator wdv) {
+        return DatabaseExecutor.supply(executor, () -> {
+            loadKnownNames(wdv);
+            return null;
+        });
+    }
+
+    /**
+     * Starts paged browsing of all malt records in the background.
+     * 
+     * @param pageSize the number of records fetched per page
+     * @return a future completed with the number of records available
+     * @see #findAllMaltsPaged(int)
+     */
+    public CompletableFuture<Integer> findAllMaltsPagedAsync(int pageSize) {
+        return supplyRecords(() -> findAllMaltsPaged(pageSize));
+    }
+
+    /**
+     * Moves to the first record in the background, which may fetch a page in paged mode.
+     * 
+     * @return a future completed with the first record or {@code null} if the dataset is empty
+     */
+    public CompletableFuture<WhiskeyDetails> firstAsync() {
+        return DatabaseExecutor.supply(executor, this::first);
+    }
+
+    /**
+     * Moves to the next record in the background, which may fetch a page in paged mode.
+     * 
+     * @return a future completed with the next record or {@code null} if the dataset is empty
+     */
+    public CompletableFuture<WhiskeyDetails> nextAsync() {
+        return DatabaseExecutor.supply(executor, this::next);
+    }
+
+    /**
+     * Moves to the previous record in the background, which may fetch a page in paged mode.
+     * 
+     * @return a future completed with the previous record or {@code null} if the dataset is empty
+     */
+    public CompletableFuture<WhiskeyDetails> previousAsync() {
+        return DatabaseExecutor.supply(executor, this::previous);
     }
 
     /**
@@ -142,9 +662,16 @@ public class WhiskeyDataManager {
      */
     public void setDetails(WhiskeyDetails[] details) {
         List list = Arrays.asList(details);
-        records = new ArrayList<>(list);           
-        numberOfRecords = records.size();
-        currentIndex = (numberOfRecords == 0) ? -1 : 0;
-        currentRecord = (numberOfRecords == 0) ? null : records.get(0);
+        lock.lock();
+        try {
+            datasetQuery = queriesStarted;
+            pager = null;
+            records = new ArrayList<>(list);
+            numberOfRecords = records.size();
+            currentIndex = (numberOfRecords == 0) ? -1 : 0;
+            currentRecord = (numberOfRecords == 0) ? null : records.get(0);
+        } finally {
+            lock.unlock();
+        }
     }
 }
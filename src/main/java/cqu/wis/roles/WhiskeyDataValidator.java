@@ -1,11 +1,19 @@
 package cqu.wis.roles;
 
+import cqu.wis.data.FuzzyMatcher;
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.Collection;
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
- * Provides validation logic for whiskey data input, such as age ranges and region names.
+ * Provides validation logic for whiskey data input, such as age ranges, price ranges and region names.
  * This class is used to validate user input fields before querying or inserting whiskey data.
- * It ensures that age bounds are logical and numeric and that region names are alphabetic and non-empty.
+ * It ensures that age and price bounds are logical and numeric and that region names are alphabetic and non-empty.
+ * 
+ * Once the known regions and distilleries of the catalog have been given with {@link #useKnownNames(Collection, Collection)},
+ * a region or distillery that names nothing in the catalog is rejected before any query is run, and the closest
+ * known names are suggested in the message, so a misspelling such as "Islya" costs no database round trip.
  * 
  * The validation results are encapsulated in simple record types that indicate whether the validation passed,
  * provide additional context (like computed bounds) and include error messages if applicable.
@@ -15,7 +23,7 @@ import java.util.regex.Pattern;
 public class WhiskeyDataValidator {
 
     /**
-     * Represents a validated age range with a lower and upper bound.
+     * Represents a validated age or price range with a lower and upper bound.
      * 
      * @param lower the lower bound of the range (inclusive)
      * @param upper the upper bound of the range (inclusive)
@@ -23,7 +31,7 @@ public class WhiskeyDataValidator {
     public record Range(int lower, int upper) {}
 
     /**
-     * Represents the result of validating an age range.
+     * Represents the result of validating an age or price range.
      * 
      * @param result whether the validation was successful
      * @param r the validated {@link Range} or {@code null} if validation failed
@@ -33,6 +41,12 @@ public class WhiskeyDataValidator {
 
     private static final Pattern REGION_PATTERN = Pattern.compile("^[a-zA-Z]+$");
 
+    /** Maximum number of known names suggested for a misspelled one. */
+    private static final int MAX_SUGGESTIONS = 3;
+
+    private volatile FuzzyMatcher knownRegions;
+    private volatile FuzzyMatcher knownDistilleries;
+
     /**
      * Default constructor for {@code WhiskeyDataValidator}.
      */
@@ -51,18 +65,48 @@ public class WhiskeyDataValidator {
      * @return a {@link RangeValidationResponse} containing the result and relevant messages
      */
     public RangeValidationResponse checkAgeRange(String b1, String b2) {
+        return checkRange(b1, b2, 100, "age", "Age");
+    }
+
+    /**
+     * Validates a price range given as two string inputs.
+     * 
+     * If both bounds are empty or null, validation fails.
+     * If one bound is missing, it defaults to 0 (lower) or no upper limit.
+     * Negative values and upper bounds less than lower bounds are invalid.
+     * Non-numeric values result in failure.
+     *
+     * @param b1 the lower price bound as a string (may be empty or null)
+     * @param b2 the upper price bound as a string (may be empty or null)
+     * @return a {@link RangeValidationResponse} containing the result and relevant messages
+     */
+    public RangeValidationResponse checkPriceRange(String b1, String b2) {
+        return checkRange(b1, b2, Integer.MAX_VALUE, "price", "Price");
+    }
+
+    /**
+     * Helper method that validates a numeric range given as two string inputs.
+     *
+     * @param b1 the lower bound as a string (may be empty or null)
+     * @param b2 the upper bound as a string (may be empty or null)
+     * @param defaultUpper the upper bound used when {@code b2} is missing
+     * @param name the name of the bounded value, for use mid-sentence
+     * @param title the name of the bounded value, for use at the start of a sentence
+     * @return a {@link RangeValidationResponse} containing the result and relevant messages
+     */
+    private RangeValidationResponse checkRange(String b1, String b2, int defaultUpper, String name, String title) {
         if ((b1 == null || b1.isEmpty()) && (b2 == null || b2.isEmpty())) {
-            return new RangeValidationResponse(false, null, "At least one age bound must be provided");
+            return new RangeValidationResponse(false, null, "At least one " + name + " bound must be provided");
         }
 
         try {
             int lower = (b1 == null || b1.isEmpty()) ? 0 : Integer.parseInt(b1);
-            int upper = (b2 == null || b2.isEmpty()) ? 100 : Integer.parseInt(b2);
+            int upper = (b2 == null || b2.isEmpty()) ? defaultUpper : Integer.parseInt(b2);
 
             Range range = new Range(lower, upper);
 
             if (lower < 0 || upper < 0) {
-                return new RangeValidationResponse(false, range, "Age bounds cannot be negative");
+                return new RangeValidationResponse(false, range, title + " bounds cannot be negative");
             }
             if (upper < lower) {
                 return new RangeValidationResponse(false, range, "Upper bound cannot be less than lower bound");
@@ -70,7 +114,7 @@ public class WhiskeyDataValidator {
 
             return new RangeValidationResponse(true, range, "");
         } catch (NumberFormatException e) {
-            return new RangeValidationResponse(false, null, "Age bounds must be valid numbers");
+            return new RangeValidationResponse(false, null, title + " bounds must be valid numbers");
         }
     }
 
@@ -89,6 +133,65 @@ public class WhiskeyDataValidator {
         if (!REGION_PATTERN.matcher(r).matches()) {
             return ValidationResponse.invalid("Region must contain only letters");
         }
+        FuzzyMatcher known = knownRegions;
+        if (known != null && !known.contains(r)) {
+            return unknown("region", r, known);
+        }
         return ValidationResponse.isValid();
     }
+
+    /**
+     * Validates the start of a distillery name. An empty name is valid, since it does not filter on distillery.
+     * Once the known distilleries have been given, the name must be the start of one of them.
+     *
+     * @param d the start of the distillery name to validate
+     * @return a {@link ValidationResponse} indicating the result and error message if any
+     */
+    public ValidationResponse checkDistillery(String d) {
+        FuzzyMatcher known = knownDistilleries;
+        if (d == null || d.isEmpty() || known == null || known.containsPrefix(d)) {
+            return ValidationResponse.isValid();
+        }
+        return unknown("distillery", d, known);
+    }
+
+    /**
+     * Sets the regions and distilleries that {@link #checkRegion(String)} and {@link #checkDistillery(String)}
+     * accept. Until this is called, any well-formed name is accepted.
+     *
+     * @param regions the region names of the catalog
+     * @param distilleries the distillery names of the catalog
+     */
+    public void useKnownNames(Collection<String> regions, Collection<String> distilleries) {
+        knownRegions = FuzzyMatcher.build(regions);
+        knownDistilleries = FuzzyMatcher.build(distilleries);
+    }
+
+    /**
+     * Sets the regions and distilleries that are accepted to those of the given malts.
+     *
+     * @param malts the malts of the catalog
+     * @see #useKnownNames(Collection, Collection)
+     */
+    public void useKnownNames(Collection<WhiskeyDetails> malts) {
+        useKnownNames(malts.stream().map(WhiskeyDetails::region).toList(),
+                malts.stream().map(WhiskeyDetails::distillery).toList());
+    }
+
+    /**
+     * Helper method that rejects an unknown name, suggesting the closest known names. One edit is allowed
+     * in names of up to four letters and two in longer names.
+     *
+     * @param kind the kind of name, for use mid-sentence
+     * @param name the unknown name
+     * @param known the known names of that kind
+     * @return a failed {@link ValidationResponse}
+     */
+    private ValidationResponse unknown(String kind, String name, FuzzyMatcher known) {
+        List<String> closest = known.closest(name, (name.length() <= 4) ? 1 : 2, MAX_SUGGESTIONS);
+        if (closest.isEmpty()) {
+            return ValidationResponse.invalid("Unknown " + kind + " " + name);
+        }
+        return ValidationResponse.invalid("Unknown " + kind + " " + name + ", did you mean " + String.join(" or ", closest) + "?");
+    }
 }
@@ -0,0 +1,47 @@
+package cqu.wis.view;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * Applies the results of background operations to the user interface on the JavaFX application thread.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+final class FxCallbacks {
+
+    private FxCallbacks() {
+    }
+
+    /**
+     * Calls one of the handlers on the JavaFX application thread when the future completes.
+     *
+     * @param future the background operation
+     * @param onSuccess called with the result if the operation succeeds
+     * @param onFailure called with the exception that caused the failure if it fails
+     * @param <T> the result type
+     */
+    static <T> void whenComplete(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        future.whenComplete((result, e) -> Platform.runLater(() -> {
+            if (e == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept((e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e);
+            }
+        }));
+    }
+
+    /**
+     * Wraps a consumer so that it is called on the JavaFX application thread, for example to show
+     * a record that a background query has just read.
+     *
+     * @param consumer the consumer to call
+     * @param <T> the value type
+     * @return a consumer that can be called from any thread
+     */
+    static <T> Consumer<T> onFxThread(Consumer<T> consumer) {
+        return value -> Platform.runLater(() -> consumer.accept(value));
+    }
+}
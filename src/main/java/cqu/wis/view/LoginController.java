@@ -11,6 +11,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextArea;
 
@@ -28,7 +29,8 @@ import javafx.scene.control.TextArea;
  * {@link UserDataValidator} for validating user input
  * {@link SceneCoordinator} for scene transitions
  * 
- * It also displays relevant feedback messages to the user.
+ * It also displays relevant feedback messages to the user. The user lookup runs in the background,
+ * with a progress indicator shown and the login button disabled until it completes.
  * 
  * @author Ayush Bhandari S12157470
  */
@@ -41,6 +43,7 @@ public class LoginController implements Initializable {
     @FXML private Button exitButton;
     @FXML private Button clearButton;
     @FXML private TextArea messageText;
+    @FXML private ProgressIndicator progressIndicator;
 
     private SceneCoordinator sc;
     private UserDataManager udm;
@@ -54,7 +57,7 @@ public class LoginController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        // No initialization logic needed at this time
+        progressIndicator.setVisible(false);
     }
 
     /**
@@ -85,36 +88,69 @@ public class LoginController implements Initializable {
     private void handleLogin() {
         String username = usernameField.getText().trim();
         String password = passwordField.getText().trim();
+        LoginEvent event = LoginEvent.start();
 
         ValidationResponse fieldsCheck = udv.checkForFieldsPresent(username, password);
         if (!fieldsCheck.result()) {
             messageText.setText(fieldsCheck.message());
+            event.finish(LoginEvent.MISSING_FIELDS, username);
             return;
         }
 
-        try {
-            UserData.UserDetails userDetails = udm.findUser(username);
-            ValidationResponse credentialCheck = udv.checkCurrentDetails(userDetails, username, password);
-
-            if (!credentialCheck.result()) {
-                messageText.setText(credentialCheck.message());
-                return;
+        setBusy(true);
+        FxCallbacks.whenComplete(udm.findUserAsync(username), userDetails -> {
+            setBusy(false);
+            try {
+                event.finish(completeLogin(userDetails, username, password), username);
+            } catch (Exception e) {
+                messageText.setText("Login error: " + e.getMessage());
+                event.finish(LoginEvent.ERROR, username);
             }
+        }, e -> {
+            setBusy(false);
+            messageText.setText("Login error: " + e.getMessage());
+            event.finish(LoginEvent.ERROR, username);
+        });
+    }
 
-            if (userDetails.hasDefaultPassword()) {
-                // Only show this message if they used the actual default password
-                if (password.equals("password")) {
-                    messageText.setText("Please change your default password");
-                    sc.setScene(SceneCoordinator.SceneKey.PASSWORD);
-                } else {
-                    messageText.setText("Invalid password");
-                }
-            } else {
-                sc.setScene(SceneCoordinator.SceneKey.QUERY);
+    /**
+     * Checks the credentials against the user record found in the background and moves to the next scene.
+     * 
+     * @param userDetails the user record or {@code null} if the user does not exist
+     * @param username the entered username
+     * @param password the entered password
+     * @return the outcome of the attempt, for its {@link LoginEvent}
+     */
+    private String completeLogin(UserData.UserDetails userDetails, String username, String password) {
+        ValidationResponse credentialCheck = udv.checkCurrentDetails(userDetails, username, password);
+
+        if (!credentialCheck.result()) {
+            messageText.setText(credentialCheck.message());
+            return LoginEvent.REJECTED;
+        }
+
+        if (userDetails.hasDefaultPassword()) {
+            // Only show this message if they used the actual default password
+            if (password.equals("password")) {
+                messageText.setText("Please change your default password");
+                sc.setScene(SceneCoordinator.SceneKey.PASSWORD);
+                return LoginEvent.DEFAULT_PASSWORD;
             }
-        } catch (Exception e) {
-            messageText.setText("Login error: " + e.getMessage());
+            messageText.setText("Invalid password");
+            return LoginEvent.REJECTED;
         }
+        sc.setScene(SceneCoordinator.SceneKey.QUERY);
+        return LoginEvent.LOGGED_IN;
+    }
+
+    /**
+     * Shows or hides the progress indicator and disables the login button while the user lookup runs.
+     * 
+     * @param busy {@code true} while the lookup is running
+     */
+    private void setBusy(boolean busy) {
+        progressIndicator.setVisible(busy);
+        loginButton.setDisable(busy);
     }
 
     /**
@@ -0,0 +1,71 @@
+package cqu.wis.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one login attempt, from the click of the login button until the
+ * credentials have been checked and the next scene shown, so a recording shows how long logins take and
+ * how they end. The password is never recorded, and the username only once the credentials have been
+ * accepted, so a password typed into the username field or a mistyped name never reaches a recording.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+@Name("cqu.wis.Login")
+@Label("Login Attempt")
+@Category({"Whiskey Information System", "JavaFX"})
+@Description("An attempt to log in and its outcome")
+@StackTrace(false)
+final class LoginEvent extends Event {
+
+    /** The user left the username or password empty. */
+    static final String MISSING_FIELDS = "Missing fields";
+    /** The credentials did not match a user. */
+    static final String REJECTED = "Rejected";
+    /** The user logged in with the default password and was sent to change it. */
+    static final String DEFAULT_PASSWORD = "Default password";
+    /** The user logged in and was sent to the query scene. */
+    static final String LOGGED_IN = "Logged in";
+    /** The user lookup failed. */
+    static final String ERROR = "Error";
+
+    @Label("Username")
+    @Description("The user who logged in, or empty if the credentials were not accepted")
+    String username;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Begins an event for a login attempt.
+     *
+     * @return the event, timing from now
+     */
+    static LoginEvent start() {
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if it is enabled. The username is recorded only if the outcome is
+     * {@link #LOGGED_IN} or {@link #DEFAULT_PASSWORD}, where the credentials were accepted.
+     *
+     * @param outcome how the attempt ended, one of the constants of this class
+     * @param username the entered username
+     */
+    void finish(String outcome, String username) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            if (LOGGED_IN.equals(outcome) || DEFAULT_PASSWORD.equals(outcome)) {
+                this.username = username;
+            }
+            commit();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 
@@ -24,7 +25,8 @@ import javafx.scene.control.TextField;
  * Providing feedback to the user through messages
  *
  * The {@code PasswordController} also manages navigation back to the login scene
- * and ensures that the database connection is properly closed on exit.
+ * and ensures that the database connection is properly closed on exit. The user lookup and password update
+ * run in the background, with a progress indicator shown and the submit button disabled until they complete.
  * 
  * @author Ayush Bhandari S12157470
  */
@@ -37,6 +39,7 @@ public class PasswordController implements Initializable {
     @FXML private Button exitButton;
     @FXML private Button clearButton;
     @FXML private TextArea messageText;
+    @FXML private ProgressIndicator progressIndicator;
 
     private SceneCoordinator sc;
     private UserDataManager udm;
@@ -50,7 +53,7 @@ public class PasswordController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        // No initialization logic needed at this time
+        progressIndicator.setVisible(false);
     }
 
     /**
@@ -84,43 +87,81 @@ public class PasswordController implements Initializable {
         String oldPassword = oldPasswordField.getText().trim();
         String newPassword = newPasswordField.getText().trim();
 
-        try {
-            UserData.UserDetails userDetails = udm.findUser(username);
-
-            // Check if all required fields are filled
-            ValidationResponse newPasswordCheck = udv.checkForFieldsPresent(username, oldPassword, newPassword);
-            if (!newPasswordCheck.result()) {
-                messageText.setText(newPasswordCheck.message());
-                return;
-            }
+        // Check if all required fields are filled
+        ValidationResponse newPasswordCheck = udv.checkForFieldsPresent(username, oldPassword, newPassword);
+        if (!newPasswordCheck.result()) {
+            messageText.setText(newPasswordCheck.message());
+            return;
+        }
 
-            // Verify current credentials
-            ValidationResponse credentialCheck = udv.checkCurrentDetails(userDetails, username, oldPassword);
-            if (!credentialCheck.result()) {
-                messageText.setText(credentialCheck.message());
-                return;
+        setBusy(true);
+        FxCallbacks.whenComplete(udm.findUserAsync(username), userDetails -> {
+            try {
+                changePassword(userDetails, username, oldPassword, newPassword);
+            } catch (Exception e) {
+                setBusy(false);
+                messageText.setText("Error: " + e.getMessage());
             }
+        }, this::showError);
+    }
 
-            // Check new password requirements
-            ValidationResponse newPasswordCredentialCheck = udv.checkNewDetails(userDetails, username, oldPassword, newPassword);
-            if (!newPasswordCredentialCheck.result()) {
-                messageText.setText(newPasswordCredentialCheck.message());
-                return;
-            }
+    /**
+     * Checks the entered details against the user record found in the background and, if they are valid,
+     * updates the password in the background.
+     *
+     * @param userDetails the user record or {@code null} if the user does not exist
+     * @param username the entered username
+     * @param oldPassword the entered current password
+     * @param newPassword the entered new password
+     */
+    private void changePassword(UserData.UserDetails userDetails, String username, String oldPassword, String newPassword) {
+        // Verify current credentials
+        ValidationResponse credentialCheck = udv.checkCurrentDetails(userDetails, username, oldPassword);
+        if (!credentialCheck.result()) {
+            setBusy(false);
+            messageText.setText(credentialCheck.message());
+            return;
+        }
 
-            // Update password
-            String encryptedPassword = udv.generateSHA1(newPassword);
-            int success = udm.updatePassword(username, encryptedPassword);
+        // Check new password requirements
+        ValidationResponse newPasswordCredentialCheck = udv.checkNewDetails(userDetails, username, oldPassword, newPassword);
+        if (!newPasswordCredentialCheck.result()) {
+            setBusy(false);
+            messageText.setText(newPasswordCredentialCheck.message());
+            return;
+        }
 
+        // Update password
+        String encryptedPassword = udv.generateSHA1(newPassword);
+        FxCallbacks.whenComplete(udm.updatePasswordAsync(username, encryptedPassword), success -> {
+            setBusy(false);
             if (success == 1) {
                 messageText.setText("Password changed successfully");
                 sc.setScene(SceneCoordinator.SceneKey.LOGIN);
             } else {
                 messageText.setText("Failed to update password");
             }
-        } catch (Exception e) {
-            messageText.setText("Error: " + e.getMessage());
-        }
+        }, this::showError);
+    }
+
+    /**
+     * Reports a failed background operation.
+     *
+     * @param e the exception that caused the failure
+     */
+    private void showError(Throwable e) {
+        setBusy(false);
+        messageText.setText("Error: " + e.getMessage());
+    }
+
+    /**
+     * Shows or hides the progress indicator and disables the submit button while the change runs.
+     *
+     * @param busy {@code true} while the change is running
+     */
+    private void setBusy(boolean busy) {
+        progressIndicator.setVisible(busy);
+        submitButton.setDisable(busy);
     }
 
     /**
@@ -1,28 +1,41 @@
 package cqu.wis.view;
 
+import cqu.wis.data.RegionStats;
 import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeyQuery;
 import cqu.wis.roles.SceneCoordinator;
 import cqu.wis.roles.WhiskeyDataManager;
 import cqu.wis.roles.ValidationResponse;
 import cqu.wis.roles.WhiskeyDataValidator;
 import cqu.wis.roles.WhiskeyDataValidator.*;
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 
 /**
  * Controller class for handling user interaction with the Whiskey Data application view.
- * This class handles the logic behind user actions in the UI, such as querying whiskey data based on different filters (region, age range), 
+ * This class handles the logic behind user actions in the UI, such as querying whiskey data based on different filters (region, age range, price range), 
  * navigating through whiskey records, and displaying information to the user. It works with the {@code WhiskeyDataManager} to query the data 
  * and with {@code WhiskeyDataValidator} to validate user inputs.
  * 
  * The {@code QueryController} is responsible for initializing the user interface components, handling actions on buttons like 
  * searching for malts, clearing input fields, navigating through records and displaying results or error messages.
  * 
+ * Queries and navigation run in the background through the asynchronous {@code WhiskeyDataManager} methods. While one
+ * is running, a progress indicator is shown and the query and navigation buttons are disabled; its result is applied
+ * on the JavaFX application thread.
+ * 
  * @author Ayush Bhandari S12157470
  */
 public class QueryController implements Initializable {
@@ -48,6 +61,15 @@ public class QueryController implements Initializable {
     @FXML 
     private TextField regionQueryField;
 
+    @FXML 
+    private TextField minPriceField;
+
+    @FXML 
+    private TextField distilleryQueryField;
+
+    @FXML 
+    private TextField maxPriceField;
+
     @FXML 
     private TextArea messageText;
 
@@ -66,15 +88,35 @@ public class QueryController implements Initializable {
     @FXML 
     private Button ageRangeMaltsButton;
 
+    @FXML 
+    private Button priceRangeMaltsButton;
+
+    @FXML 
+    private Button matchingMaltsButton;
+
     @FXML 
     private Button clearButton;
 
     @FXML 
     private Button exitButton;
 
+    @FXML 
+    private ProgressIndicator progressIndicator;
+
+    /** Number of records fetched per page when browsing all malts. */
+    private static final int PAGE_SIZE = 50;
+
+    /** Maximum number of distillery names suggested while typing. */
+    private static final int MAX_SUGGESTIONS = 8;
+
+    /** Created on the FX thread when first needed, since the layout is loaded on a background thread. */
+    private ContextMenu distillerySuggestions;
+
     private SceneCoordinator sc;
     private WhiskeyDataManager wdm;
     private WhiskeyDataValidator wdv;
+    private boolean browsing;
+    private boolean busy;
     
     /**
      * Initializes the controller by setting the initial state of the buttons.
@@ -87,6 +129,13 @@ public class QueryController implements Initializable {
     public void initialize(URL url, ResourceBundle rb) {
         // Initialize button states
         setNavigationButtonsDisabled(true);
+        progressIndicator.setVisible(false);
+        distilleryQueryField.textProperty().addListener((obs, oldText, newText) -> suggestDistilleries(newText.trim()));
+        distilleryQueryField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                hideSuggestions();
+            }
+        });
     }
 
     /**
@@ -101,42 +150,59 @@ public class QueryController implements Initializable {
         this.sc = sc;
         this.wdm = wdm;
         this.wdv = wdv;
+        // Without the known names the validator only checks that names are well formed
+        wdm.loadKnownNamesAsync(wdv).exceptionally(e -> {
+            System.err.println("Error loading known regions and distilleries, names will not be checked: "
+                    + ((e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e).getMessage());
+            return null;
+        });
     }
 
     /**
-     * Handles the action when the "All Malts" button is clicked. This method retrieves all whiskey malts from the database 
-     * and displays the results.
+     * Handles the action when the "All Malts" button is clicked. This method browses all whiskey malts in paged mode,
+     * so only the record count and the first page are read before the first record is displayed. The price and age
+     * statistics of every region are shown with the number of records found.
      */
     @FXML
     private void handleAllMalts() {
-        try {
-            int count = wdm.findAllMalts();
-            updateDisplayAfterQuery(count);
-        } catch (Exception e) {
-            messageText.setText("Error retrieving all malts: " + e.getMessage());
-        }
+        runQuery(wdm.findAllMaltsPagedAsync(PAGE_SIZE), "Error retrieving all malts: ", () -> showRegionStats(List.of()));
     }
 
     /**
      * Handles the action when the "Region Malts" button is clicked. This method validates the region input and retrieves 
-     * whiskey malts based on the region provided by the user.
+     * whiskey malts based on the region provided by the user. Several regions separated by commas are retrieved with
+     * one query. The price and age statistics of each region are shown with the number of records found.
      */
     @FXML
     private void handleRegionMalts() {
-        String r = regionQueryField.getText().trim();
-        ValidationResponse validation = wdv.checkRegion(r);
+        String[] regions = regionQueryField.getText().trim().split("\\s*,\\s*");
+        for (String r : regions) {
+            ValidationResponse validation = wdv.checkRegion(r);
+            if (!validation.result()) {
+               messageText.setText(validation.message());
+               return;
+            }
+        }
 
-        if (!validation.result()) {
-           messageText.setText(validation.message());
-           return;
+        if (regions.length == 1) {
+            runQuery(wdm.findMaltsFromRegionAsync(regions[0], FxCallbacks.onFxThread(this::displayRecord)),
+                    "Error retrieving region malts: ", () -> showRegionStats(List.of(regions)));
+            return;
         }
 
-        try {
-            int count = wdm.findMaltsFromRegion(r);
+        messageText.setText("Searching...");
+        setBusy(true);
+        FxCallbacks.whenComplete(wdm.findMaltsFromRegionsAsync(List.of(regions)), grouped -> {
+            setBusy(false);
+            int count = grouped.values().stream().mapToInt(List::size).sum();
             updateDisplayAfterQuery(count);
-        } catch (Exception e) {
+            if (count > 0) {
+                showRegionStats(List.of(regions));
+            }
+        }, e -> {
+            setBusy(false);
             messageText.setText("Error retrieving region malts: " + e.getMessage());
-        }
+        });
     }
 
     /**
@@ -154,13 +220,200 @@ public class QueryController implements Initializable {
             return;
         }
 
-        try {
-            Range range = validation.r();
-            int count = wdm.findMaltsInAgeRange(range.lower(), range.upper());
-            updateDisplayAfterQuery(count);
-        } catch (Exception e) {
-            messageText.setText("Error retrieving age range malts: " + e.getMessage());
+        Range range = validation.r();
+        runQuery(wdm.findMaltsInAgeRangeAsync(range.lower(), range.upper(), FxCallbacks.onFxThread(this::displayRecord)),
+                "Error retrieving age range malts: ");
+    }
+
+    /**
+     * Handles the action when the "Price Range Malts" button is clicked. This method validates the input price range and 
+     * retrieves whiskey malts within the specified price range.
+     */
+    @FXML
+    private void handlePriceRangeMalts() {
+        String p1 = minPriceField.getText().trim();
+        String p2 = maxPriceField.getText().trim();
+        RangeValidationResponse validation = wdv.checkPriceRange(p1, p2);
+
+        if (!validation.result()) {
+            messageText.setText(validation.message());
+            return;
         }
+
+        Range range = validation.r();
+        runQuery(wdm.findMaltsInPriceRangeAsync(range.lower(), range.upper()), "Error retrieving price range malts: ");
+    }
+
+    /**
+     * Shows the distillery names that start with the text typed so far below the distillery field.
+     * Suggestions come from an in-memory index, and a response is dropped if the text has changed since.
+     * 
+     * @param prefix the text typed so far
+     */
+    private void suggestDistilleries(String prefix) {
+        if (prefix.isEmpty() || wdm == null) {
+            hideSuggestions();
+            return;
+        }
+        FxCallbacks.whenComplete(wdm.suggestDistilleriesAsync(prefix, MAX_SUGGESTIONS), names -> {
+            if (!prefix.equals(distilleryQueryField.getText().trim())) {
+                return;
+            }
+            if (names.isEmpty() || (names.size() == 1 && names.get(0).equals(prefix))) {
+                hideSuggestions();
+                return;
+            }
+            if (distillerySuggestions == null) {
+                distillerySuggestions = new ContextMenu();
+            }
+            distillerySuggestions.getItems().clear();
+            for (String name : names) {
+                MenuItem item = new MenuItem(name);
+                item.setOnAction(event -> {
+                    distilleryQueryField.setText(name);
+                    distilleryQueryField.positionCaret(name.length());
+                });
+                distillerySuggestions.getItems().add(item);
+            }
+            if (!distillerySuggestions.isShowing()) {
+                distillerySuggestions.show(distilleryQueryField, Side.BOTTOM, 0, 0);
+            }
+        }, e -> hideSuggestions());
+    }
+
+    private void hideSuggestions() {
+        if (distillerySuggestions != null) {
+            distillerySuggestions.hide();
+        }
+    }
+
+    /**
+     * Handles the action when the "Malts Matching All" button is clicked. This method combines every filled-in
+     * region, age range, price range and distillery input into one query, so the database applies all of them at once.
+     * The distillery input matches every distillery whose name starts with it.
+     */
+    @FXML
+    private void handleMatchingMalts() {
+        WhiskeyQuery q = WhiskeyQuery.ALL;
+
+        String regionText = regionQueryField.getText().trim();
+        if (!regionText.isEmpty()) {
+            String[] regions = regionText.split("\\s*,\\s*");
+            for (String r : regions) {
+                ValidationResponse validation = wdv.checkRegion(r);
+                if (!validation.result()) {
+                    messageText.setText(validation.message());
+                    return;
+                }
+            }
+            q = q.withRegions(List.of(regions));
+        }
+
+        String a1 = minAgeField.getText().trim();
+        String a2 = maxAgeField.getText().trim();
+        if (!a1.isEmpty() || !a2.isEmpty()) {
+            RangeValidationResponse validation = wdv.checkAgeRange(a1, a2);
+            if (!validation.result()) {
+                messageText.setText(validation.message());
+                return;
+            }
+            q = q.withAgeRange(validation.r().lower(), validation.r().upper());
+        }
+
+        String p1 = minPriceField.getText().trim();
+        String p2 = maxPriceField.getText().trim();
+        if (!p1.isEmpty() || !p2.isEmpty()) {
+            RangeValidationResponse validation = wdv.checkPriceRange(p1, p2);
+            if (!validation.result()) {
+                messageText.setText(validation.message());
+                return;
+            }
+            q = q.withPriceRange(validation.r().lower(), validation.r().upper());
+        }
+
+        String distillery = distilleryQueryField.getText().trim();
+        ValidationResponse distilleryValidation = wdv.checkDistillery(distillery);
+        if (!distilleryValidation.result()) {
+            messageText.setText(distilleryValidation.message());
+            return;
+        }
+        q = q.withDistilleryPrefix(distillery);
+
+        if (q.equals(WhiskeyQuery.ALL)) {
+            messageText.setText("Enter at least one region, age, price or distillery filter");
+            return;
+        }
+        runQuery(wdm.findMaltsMatchingAsync(q), "Error retrieving matching malts: ");
+    }
+
+    /**
+     * Shows progress while a query runs in the background and updates the display with its result.
+     * 
+     * @param query the running query, completed with the number of records found
+     * @param errorMessage the message shown before the error if the query fails
+     */
+    private void runQuery(CompletableFuture<Integer> query, String errorMessage) {
+        runQuery(query, errorMessage, () -> {});
+    }
+
+    /**
+     * Shows progress while a query runs in the background, updates the display with its result and then,
+     * if records were found, runs a follow-up action.
+     * 
+     * @param query the running query, completed with the number of records found
+     * @param errorMessage the message shown before the error if the query fails
+     * @param onFound the action run on the JavaFX application thread after records were found
+     */
+    private void runQuery(CompletableFuture<Integer> query, String errorMessage, Runnable onFound) {
+        messageText.setText("Searching...");
+        setBusy(true);
+        FxCallbacks.whenComplete(query, count -> {
+            setBusy(false);
+            updateDisplayAfterQuery(count);
+            if (count > 0) {
+                onFound.run();
+            }
+        }, e -> {
+            setBusy(false);
+            messageText.setText(errorMessage + e.getMessage());
+        });
+    }
+
+    /**
+     * Appends the price and age statistics of the given regions to the message, below the number of
+     * records found. The statistics are computed by the data source, not from the records fetched.
+     * 
+     * @param regions the regions to show, or an empty list for every region
+     */
+    private void showRegionStats(List<String> regions) {
+        FxCallbacks.whenComplete(wdm.findRegionStatsAsync(), stats -> {
+            StringBuilder sb = new StringBuilder();
+            for (RegionStats rs : stats) {
+                if (regions.isEmpty() || regions.stream().anyMatch(r -> r.equalsIgnoreCase(rs.region()))) {
+                    sb.append(String.format("%n%s: %d malts, $%d-$%d (mean %.2f, median %.2f), %d-%d years (mean %.1f, median %.1f)",
+                            rs.region(), rs.count(), rs.minPrice(), rs.maxPrice(), rs.averagePrice(), rs.medianPrice(),
+                            rs.minAge(), rs.maxAge(), rs.averageAge(), rs.medianAge()));
+                }
+            }
+            messageText.appendText(sb.toString());
+        }, e -> messageText.appendText("\nError retrieving region statistics: " + e.getMessage()));
+    }
+
+    /**
+     * Shows progress while a navigation step runs in the background and displays the record it moves to.
+     * 
+     * @param step the running navigation step, completed with the record moved to
+     * @param errorMessage the message shown before the error if the step fails
+     */
+    private void navigate(CompletableFuture<WhiskeyData.WhiskeyDetails> step, String errorMessage) {
+        setBusy(true);
+        FxCallbacks.whenComplete(step, details -> {
+            setBusy(false);
+            displayRecord(details);
+        }, e -> {
+            setBusy(false);
+            messageText.setText(errorMessage + e.getMessage());
+        });
     }
 
     /**
@@ -185,7 +438,7 @@ public class QueryController implements Initializable {
      */
     @FXML
     private void handlePrevious() {
-        displayRecord(wdm.previous());
+        navigate(wdm.previousAsync(), "Error retrieving previous record: ");
     }
 
     /**
@@ -193,14 +446,14 @@ public class QueryController implements Initializable {
      */
     @FXML
     private void handleNext() {
-        displayRecord(wdm.next());
+        navigate(wdm.nextAsync(), "Error retrieving next record: ");
     }
 
     /**
      * Displays the first whiskey record in the list.
      */
     private void displayCurrentRecord() {
-        displayRecord(wdm.first());
+        navigate(wdm.firstAsync(), "Error retrieving first record: ");
     }
 
     /**
@@ -228,7 +481,10 @@ public class QueryController implements Initializable {
         clearWhiskeyDetails();
         minAgeField.clear();
         maxAgeField.clear();
+        minPriceField.clear();
+        maxPriceField.clear();
         regionQueryField.clear();
+        distilleryQueryField.clear();
         messageText.clear();
         setNavigationButtonsDisabled(true);
     }
@@ -262,7 +518,32 @@ public class QueryController implements Initializable {
      * @param disabled {@code true} to disable the buttons, {@code false} to enable them.
      */
     private void setNavigationButtonsDisabled(boolean disabled) {
-        previousButton.setDisable(disabled);
-        nextButton.setDisable(disabled);
+        browsing = !disabled;
+        updateButtons();
+    }
+
+    /**
+     * Shows or hides the progress indicator while a background operation runs.
+     * 
+     * @param busy {@code true} while an operation is running.
+     */
+    private void setBusy(boolean busy) {
+        this.busy = busy;
+        progressIndicator.setVisible(busy);
+        updateButtons();
+    }
+
+    /**
+     * Disables the query buttons while an operation is running, and the navigation buttons while
+     * an operation is running or there are no records to move through.
+     */
+    private void updateButtons() {
+        allMaltsButton.setDisable(busy);
+        regionMaltsButton.setDisable(busy);
+        ageRangeMaltsButton.setDisable(busy);
+        priceRangeMaltsButton.setDisable(busy);
+        matchingMaltsButton.setDisable(busy);
+        previousButton.setDisable(busy || !browsing);
+        nextButton.setDisable(busy || !browsing);
     }
 }
@@ -12,8 +12,11 @@ module cqu.wis {
   requires javafx.fxml;
   requires java.base; 
   requires java.sql;
+  requires java.management;
+  requires jdk.jfr;
   opens cqu.wis to javafx.fxml;
   exports cqu.wis;
   opens cqu.wis.view to javafx.fxml;
   exports cqu.wis.view;
+  exports cqu.wis.data to java.management;
 }
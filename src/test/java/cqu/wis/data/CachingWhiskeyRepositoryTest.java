@@ -0,0 +1,95 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CachingWhiskeyRepository} class.
+ *
+ * The repository is put in front of a source that counts the queries it answers, so the tests can check
+ * which calls reach the source and which are answered from the cache.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class CachingWhiskeyRepositoryTest {
+
+    /**
+     * A source that serves a fixed catalog, counts its queries and refuses to read the whole catalog.
+     */
+    static class CountingSource implements WhiskeyRepository {
+        final AtomicInteger distilleryQueries = new AtomicInteger();
+        final AtomicInteger statsQueries = new AtomicInteger();
+        List<String> distilleries = List.of("Ardbeg", "Glenfiddich", "Glenlivet");
+
+        @Override
+        public void connect() {}
+
+        @Override
+        public void disconnect() {}
+
+        @Override
+        public List<WhiskeyDetails> getAllMalts() {
+            throw new UnsupportedOperationException("getAllMalts");
+        }
+
+        @Override
+        public List<WhiskeyDetails> getMaltsFromRegion(String r) {
+            throw new UnsupportedOperationException("getMaltsFromRegion");
+        }
+
+        @Override
+        public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) {
+            throw new UnsupportedOperationException("getMaltsInAgeRange");
+        }
+
+        @Override
+        public List<String> getDistilleries() {
+            distilleryQueries.incrementAndGet();
+            return distilleries;
+        }
+
+        @Override
+        public List<RegionStats> getRegionStats() {
+            statsQueries.incrementAndGet();
+            return List.of(new RegionStats("Islay", 2, 45, 90, 67.5, 67.5, 10, 16, 13, 13));
+        }
+    }
+
+    private final CountingSource source = new CountingSource();
+    private final CachingWhiskeyRepository caching = new CachingWhiskeyRepository(source,
+            new ResultCache.Settings(64, 100_000, Duration.ofMinutes(1)));
+
+    /**
+     * Tests that suggestions come from one index of the distinct names, kept across keystrokes without
+     * reading the catalog, and rebuilt once the cache is invalidated.
+     */
+    @Test
+    void suggestionsKeepOneIndexUntilInvalidated() throws Exception {
+        assertEquals(List.of("Glenfiddich", "Glenlivet"), caching.suggestDistilleries("g", 10));
+        assertEquals(List.of("Glenlivet"), caching.suggestDistilleries("glenl", 10));
+        assertEquals(1, source.distilleryQueries.get());
+
+        source.distilleries = List.of("Ardbeg", "Glen Moray", "Glenfiddich", "Glenlivet");
+        caching.getCache().invalidateAll();
+        assertEquals(List.of("Glen Moray", "Glenfiddich"), caching.suggestDistilleries("glen", 2));
+        assertEquals(2, source.distilleryQueries.get());
+    }
+
+    /**
+     * Tests that region statistics are served from the cache until it is invalidated.
+     */
+    @Test
+    void regionStatsAreCachedUntilInvalidated() throws Exception {
+        List<RegionStats> stats = caching.getRegionStats();
+        assertSame(stats, caching.getRegionStats());
+        assertEquals(1, source.statsQueries.get());
+
+        caching.getCache().invalidateAll();
+        assertEquals(stats, caching.getRegionStats());
+        assertEquals(2, source.statsQueries.get());
+    }
+}
@@ -0,0 +1,153 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ConnectionPool} class.
+ *
+ * These tests use {@link FakeJdbc} connections so that pooling behaviour such as reuse, bounding,
+ * validation, idle eviction and leak detection can be checked without a database.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class ConnectionPoolTest {
+
+    private final FakeJdbc jdbc = new FakeJdbc();
+
+    private ConnectionPool pool(int maxSize, Duration idleTimeout, Duration leakThreshold) {
+        return ConnectionPool.open("TEST", jdbc::connect,
+                new ConnectionPool.Settings(maxSize, Duration.ofMillis(100), idleTimeout, leakThreshold, 1, 4));
+    }
+
+    /**
+     * Tests that a returned connection is reused by the next borrower instead of opening a new one.
+     */
+    @Test
+    void returnedConnectionIsReused() throws SQLException {
+        try (ConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ZERO)) {
+            Connection first;
+            try (PooledConnection pc = pool.borrow()) {
+                first = pc.getConnection();
+            }
+            try (PooledConnection pc = pool.borrow()) {
+                assertSame(first, pc.getConnection());
+            }
+            assertEquals(1, jdbc.getOpenedCount());
+            assertEquals(2, pool.getBorrowCount());
+            assertEquals(1, pool.getIdleCount());
+        }
+    }
+
+    /**
+     * Tests that borrowing beyond the maximum size times out once the borrow timeout expires.
+     */
+    @Test
+    void borrowFailsWhenPoolExhausted() throws SQLException {
+        try (ConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ZERO)) {
+            // Held, unused, for the rest of the test so the pool's only connection stays taken
+            PooledConnection held = pool.borrow();
+            assertThrows(SQLException.class, pool::borrow);
+            assertEquals(1, pool.getTimeoutCount());
+            assertEquals(1, pool.getActiveCount());
+            held.close();
+        }
+    }
+
+    /**
+     * Tests that an idle connection which fails validation is discarded and replaced.
+     */
+    @Test
+    void invalidIdleConnectionIsReplaced() throws Exception {
+        try (ConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ZERO)) {
+            Connection first;
+            try (PooledConnection pc = pool.borrow()) {
+                first = pc.getConnection();
+            }
+            jdbc.setValid(false);
+            Thread.sleep(600); // let the connection age past the validation bypass window
+            try (PooledConnection pc = pool.borrow()) {
+                assertNotSame(first, pc.getConnection());
+                assertTrue(first.isClosed());
+            }
+            assertEquals(1, pool.getEvictedCount());
+        }
+    }
+
+    /**
+     * Tests that connections idle for longer than the idle timeout are closed by eviction.
+     */
+    @Test
+    void idleConnectionsAreEvicted() throws Exception {
+        try (ConnectionPool pool = pool(2, Duration.ofMillis(20), Duration.ZERO)) {
+            Connection first;
+            try (PooledConnection pc = pool.borrow()) {
+                first = pc.getConnection();
+            }
+            Thread.sleep(50);
+            assertEquals(1, pool.evictIdle());
+            assertEquals(0, pool.getIdleCount());
+            assertTrue(first.isClosed());
+        }
+    }
+
+    /**
+     * Tests that a connection held past the leak threshold is reported exactly once.
+     */
+    @Test
+    void heldConnectionIsReportedAsLeak() throws Exception {
+        try (ConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofMillis(20))) {
+            // Held, unused, past the leak threshold so that the pool reports it
+            PooledConnection held = pool.borrow();
+            Thread.sleep(50);
+            assertEquals(1, pool.detectLeaks());
+            assertEquals(0, pool.detectLeaks());
+            assertEquals(1, pool.getLeakCount());
+            held.close();
+        }
+    }
+
+    /**
+     * Tests that the borrow site is only captured when the settings ask for it.
+     */
+    @Test
+    void borrowSiteIsCapturedOnlyWhenEnabled() throws Exception {
+        try (ConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofSeconds(30));
+             PooledConnection pc = pool.borrow()) {
+            assertNull(pc.getBorrowSite());
+        }
+        try (ConnectionPool pool = ConnectionPool.open("TEST", jdbc::connect, new ConnectionPool.Settings(
+                1, Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ofSeconds(30), 1, 4, true));
+             PooledConnection pc = pool.borrow()) {
+            assertNotNull(pc.getBorrowSite());
+        }
+    }
+
+    /**
+     * Tests that repeated SQL on the same connection reuses the cached statement and that the
+     * least recently used statement is closed once the cache is full.
+     */
+    @Test
+    void statementsAreCachedPerConnection() throws SQLException {
+        try (ConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ZERO)) {
+            PreparedStatement first;
+            try (PooledConnection pc = pool.borrow()) {
+                first = pc.prepareStatement("SQL 1");
+            }
+            try (PooledConnection pc = pool.borrow()) {
+                assertSame(first, pc.prepareStatement("SQL 1"));
+                for (int i = 2; i <= 5; i++) {
+                    pc.prepareStatement("SQL " + i);
+                }
+                assertEquals(4, pc.getStatementCache().size());
+                assertTrue(first.isClosed());
+            }
+            assertEquals(1, pool.getStatementCacheHits());
+            assertEquals(5, pool.getStatementCacheMisses());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package cqu.wis.data;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link DistilleryIndex} class.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class DistilleryIndexTest {
+
+    private final DistilleryIndex index = DistilleryIndex.build(List.of(
+            "Glenlivet", "Ardbeg", "Glenfiddich", "Glen Moray", "Macallan", "Glenfiddich", "Glengoyne"));
+
+    /**
+     * Tests that suggestions match the prefix without regard to case, in sorted order, once per name.
+     */
+    @Test
+    void suggestReturnsSortedMatches() {
+        assertEquals(List.of("Glen Moray", "Glenfiddich", "Glengoyne", "Glenlivet"), index.suggest("glen", 10));
+        assertEquals(List.of("Glen Moray", "Glenfiddich"), index.suggest("Glen", 2));
+        assertEquals(List.of("Glenfiddich"), index.suggest("GLENF", 10));
+        assertEquals(List.of("Ardbeg"), index.suggest("a", 10));
+        assertTrue(index.suggest("Z", 10).isEmpty());
+        assertEquals(6, index.size());
+        assertEquals(2, index.count("Glenfiddich"));
+    }
+
+    /**
+     * Tests that a name stays while any of its malts remain and is dropped with its last malt.
+     */
+    @Test
+    void updateTracksCountsPerName() {
+        DistilleryIndex updated = index.update(List.of("Glenfiddich", "Ardbeg"), List.of("Aberlour", "Talisker"));
+        assertEquals(List.of("Aberlour"), updated.suggest("A", 10));
+        assertEquals(1, updated.count("Glenfiddich"));
+        assertEquals(List.of("Talisker"), updated.suggest("t", 10));
+
+        DistilleryIndex emptied = updated.update(List.of("Glenfiddich"), List.of());
+        assertEquals(0, emptied.count("Glenfiddich"));
+        assertEquals(List.of("Glen Moray", "Glengoyne", "Glenlivet"), emptied.suggest("Glen", 10));
+    }
+
+    /**
+     * Tests that applying a batch of changes gives the same index as building it from the resulting names.
+     */
+    @Test
+    void updateMatchesRebuild() {
+        DistilleryIndex updated = index.update(List.of("Macallan", "Glengoyne"), List.of("Bowmore", "Macallan", "Oban"));
+        DistilleryIndex rebuilt = DistilleryIndex.build(List.of(
+                "Glenlivet", "Ardbeg", "Glenfiddich", "Glen Moray", "Glenfiddich", "Bowmore", "Macallan", "Oban"));
+        assertEquals(rebuilt.suggest("", 100), updated.suggest("", 100));
+        assertEquals(rebuilt.size(), updated.size());
+    }
+}
@@ -0,0 +1,81 @@
+package cqu.wis.data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link DistillerySuggestions} class: when it reads the version, and how it merges the
+ * names changed since into its index instead of building it again.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class DistillerySuggestionsTest {
+
+    private final List<String> names = new ArrayList<>(List.of("Ardbeg", "Glenlivet"));
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger versionReads = new AtomicInteger();
+
+    private DistillerySuggestions suggestions(Duration recheck, DistillerySuggestions.Changes changes) {
+        return new DistillerySuggestions(() -> {
+            loads.incrementAndGet();
+            return List.copyOf(names);
+        }, () -> {
+            versionReads.incrementAndGet();
+            return version.get();
+        }, recheck, changes, null);
+    }
+
+    /**
+     * Tests that the version is not read again within the recheck interval.
+     */
+    @Test
+    void versionIsReadOncePerRecheckInterval() throws Exception {
+        DistillerySuggestions s = suggestions(Duration.ofMinutes(1), null);
+        assertEquals(List.of("Glenlivet"), s.suggest("g", 5));
+        version.set(2);
+        names.add("Glenfiddich");
+        assertEquals(List.of("Glenlivet"), s.suggest("g", 5));
+        assertEquals(1, versionReads.get());
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Tests that the names changed since the index's version are merged in, one entry per name, and the
+     * names are not loaded again.
+     */
+    @Test
+    void changesAreMergedWithoutReloading() throws Exception {
+        List<Long> since = new ArrayList<>();
+        DistillerySuggestions s = suggestions(Duration.ZERO, v -> {
+            since.add(v);
+            return new DistillerySuggestions.Delta(List.of("Ardbeg", "Lagavulin"), List.of("Glenfiddich", "Glenlivet"));
+        });
+        assertEquals(List.of("Ardbeg", "Glenlivet"), s.suggest("", 5));
+        assertEquals(List.of("Ardbeg", "Glenlivet"), s.suggest("", 5));
+        assertTrue(since.isEmpty());
+
+        version.set(4);
+        assertEquals(List.of("Glenfiddich", "Glenlivet"), s.suggest("", 5));
+        assertEquals(List.of(1L), since);
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Tests that the index is built again when the changes cannot be told.
+     */
+    @Test
+    void unknownChangesRebuildTheIndex() throws Exception {
+        DistillerySuggestions s = suggestions(Duration.ZERO, v -> null);
+        assertEquals(List.of("Glenlivet"), s.suggest("g", 5));
+        version.set(2);
+        names.add("Glenfiddich");
+        assertEquals(List.of("Glenfiddich", "Glenlivet"), s.suggest("g", 5));
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,253 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in JDBC connections, statements and result sets for tests that need a {@link ConnectionPool} or a
+ * data class without a database.
+ *
+ * Each connection prepares statements that remember their bound parameters and answer
+ * {@code executeQuery} through a {@link Responder}. Connections and statements track whether they are
+ * closed, and the counters of this class show how many were opened and how many are still open. Calls that
+ * are not modelled return the zero value of their return type, so settings such as the fetch size are
+ * accepted and ignored.
+ *
+ * The class is also packaged in the test-jar, where the benchmarks' in-memory JDBC driver uses it.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public final class FakeJdbc {
+
+    /**
+     * Answers the queries run on the fake connections.
+     */
+    @FunctionalInterface
+    public interface Responder {
+
+        /**
+         * Returns the result of a query.
+         *
+         * @param sql the SQL text the statement was prepared with
+         * @param parameters the bound parameters in order of their index
+         * @return the result set of the query
+         * @throws SQLException to make the query fail
+         */
+        ResultSet respond(String sql, List<Object> parameters) throws SQLException;
+    }
+
+    /** Column labels of the rows returned by {@link #whiskeys}. */
+    public static final List<String> WHISKEY_COLUMNS = List.of("DISTILLERY", "AGE", "REGION", "PRICE");
+
+    private static final Map<Class<?>, Object> ZEROS = Map.of(boolean.class, false, byte.class, (byte) 0,
+            short.class, (short) 0, int.class, 0, long.class, 0L, float.class, 0f, double.class, 0d);
+
+    private final Responder responder;
+    private volatile boolean valid = true;
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger openStatements = new AtomicInteger();
+    private final List<String> prepared = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates fake connections whose queries return no rows.
+     */
+    public FakeJdbc() {
+        this((sql, parameters) -> rows(List.of(), List.of()));
+    }
+
+    /**
+     * Creates fake connections whose queries are answered by the given responder.
+     *
+     * @param responder answers each query
+     */
+    public FakeJdbc(Responder responder) {
+        this.responder = responder;
+    }
+
+    /**
+     * Opens a new fake connection; usable as a {@link ConnectionPool.ConnectionFactory}.
+     *
+     * @return the connection
+     */
+    public Connection connect() {
+        opened.incrementAndGet();
+        openConnections.incrementAndGet();
+        boolean[] closed = new boolean[1];
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "close" -> {
+                if (!closed[0]) {
+                    closed[0] = true;
+                    openConnections.decrementAndGet();
+                }
+                yield null;
+            }
+            case "isClosed" -> closed[0];
+            case "isValid" -> valid;
+            case "prepareStatement" -> statement((String) args[0]);
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> zero(method.getReturnType());
+        });
+    }
+
+    private PreparedStatement statement(String sql) {
+        prepared.add(sql);
+        openStatements.incrementAndGet();
+        Map<Integer, Object> parameters = new TreeMap<>();
+        boolean[] closed = new boolean[1];
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+                return null;
+            }
+            return switch (name) {
+                case "executeQuery" -> responder.respond(sql, new ArrayList<>(parameters.values()));
+                case "clearParameters" -> {
+                    parameters.clear();
+                    yield null;
+                }
+                case "close" -> {
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        openStatements.decrementAndGet();
+                    }
+                    yield null;
+                }
+                case "isClosed" -> closed[0];
+                default -> zero(method.getReturnType());
+            };
+        });
+    }
+
+    /**
+     * Sets whether the connections pass {@link Connection#isValid(int)}.
+     *
+     * @param valid the result of validation
+     */
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    /** @return the number of connections opened */
+    public int getOpenedCount() {
+        return opened.get();
+    }
+
+    /** @return the number of connections that are open */
+    public int getOpenConnectionCount() {
+        return openConnections.get();
+    }
+
+    /** @return the number of statements that have been prepared and not closed */
+    public int getOpenStatementCount() {
+        return openStatements.get();
+    }
+
+    /** @return the SQL of every statement prepared, in order */
+    public List<String> getPreparedSql() {
+        return prepared;
+    }
+
+    /**
+     * Returns a result set over the given rows, whose values are read by column label or 1-based index.
+     *
+     * @param columns the column labels
+     * @param rows the values of each row, in column order
+     * @return the result set
+     */
+    public static ResultSet rows(List<String> columns, List<? extends List<?>> rows) {
+        return rows(columns, rows, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a result set over the given rows that fails when it is asked for the row after {@code failAfter}.
+     *
+     * @param columns the column labels
+     * @param rows the values of each row, in column order
+     * @param failAfter the number of rows read before {@link ResultSet#next()} throws
+     * @return the result set
+     */
+    public static ResultSet rows(List<String> columns, List<? extends List<?>> rows, int failAfter) {
+        ResultSetMetaData md = proxy(ResultSetMetaData.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> columns.size();
+            case "getColumnLabel", "getColumnName" -> columns.get((Integer) args[0] - 1);
+            default -> zero(method.getReturnType());
+        });
+        int[] row = {-1};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("next")) {
+                if (row[0] + 1 >= failAfter) {
+                    throw new SQLException("Connection lost");
+                }
+                return ++row[0] < rows.size();
+            }
+            if (name.equals("getMetaData")) {
+                return md;
+            }
+            if (!name.startsWith("get") || args == null || args.length != 1) {
+                return zero(method.getReturnType());
+            }
+            int column = (args[0] instanceof Integer i) ? i - 1 : columns.indexOf((String) args[0]);
+            if (column < 0 || column >= columns.size()) {
+                throw new SQLException("Unknown column " + args[0]);
+            }
+            Object value = rows.get(row[0]).get(column);
+            return switch (name) {
+                case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                case "getDouble" -> value == null ? 0d : ((Number) value).doubleValue();
+                case "getString" -> value == null ? null : value.toString();
+                default -> value;
+            };
+        });
+    }
+
+    /**
+     * Returns a result set over whiskey records, with the columns of the SINGLEMALTS queries.
+     *
+     * @param malts the records
+     * @return the result set
+     */
+    public static ResultSet whiskeys(Collection<WhiskeyDetails> malts) {
+        return whiskeys(malts, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a result set over whiskey records that fails after {@code failAfter} rows.
+     *
+     * @param malts the records
+     * @param failAfter the number of rows read before {@link ResultSet#next()} throws
+     * @return the result set
+     */
+    public static ResultSet whiskeys(Collection<WhiskeyDetails> malts, int failAfter) {
+        List<List<Object>> rows = new ArrayList<>(malts.size());
+        for (WhiskeyDetails d : malts) {
+            rows.add(List.of(d.distillery(), d.age(), d.region(), d.price()));
+        }
+        return rows(WHISKEY_COLUMNS, rows, failAfter);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Object zero(Class<?> type) {
+        return ZEROS.get(type);
+    }
+}
@@ -0,0 +1,50 @@
+package cqu.wis.data;
+
+import cqu.wis.data.UserData.UserDetails;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link FileUserRepository} class.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class FileUserRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Tests that accounts are read from the file and that a password change is written back to it.
+     */
+    @Test
+    void updatePasswordIsWrittenToFile() throws Exception {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "USERNAME,PASSWORD\nadmin,password\nayush,s3cret,with,commas\n");
+        FileUserRepository users = new FileUserRepository(file);
+        users.connect();
+
+        assertEquals(new UserDetails("ayush", "s3cret,with,commas"), users.getUser("ayush"));
+        assertNull(users.getUser("nobody"));
+        assertEquals(1, users.updatePassword("admin", "n3wPassword"));
+        assertEquals(0, users.updatePassword("nobody", "n3wPassword"));
+
+        FileUserRepository reopened = new FileUserRepository(file);
+        reopened.connect();
+        assertEquals("n3wPassword", reopened.getUser("admin").password());
+        assertEquals("s3cret,with,commas", reopened.getUser("ayush").password());
+    }
+
+    /**
+     * Tests that a missing file is reported as a data access error.
+     */
+    @Test
+    void missingFileFailsToConnect() {
+        FileUserRepository users = new FileUserRepository(dir.resolve("missing.csv"));
+        assertThrows(SQLException.class, users::connect);
+    }
+}
@@ -0,0 +1,75 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link FileWhiskeyRepository} class.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class FileWhiskeyRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Tests that the catalog is read from the file and queried like any other repository.
+     */
+    @Test
+    void connectReadsCatalog() throws Exception {
+        Path file = dir.resolve("whiskeys.csv");
+        Files.writeString(file, "DISTILLERY,AGE,REGION,PRICE\nArdbeg,10,Islay,60\n\nMacallan, 12, Speyside, 90\n");
+        FileWhiskeyRepository repository = new FileWhiskeyRepository(file);
+        repository.connect();
+
+        WhiskeyDetails ardbeg = new WhiskeyDetails("Ardbeg", 10, "Islay", 60);
+        WhiskeyDetails macallan = new WhiskeyDetails("Macallan", 12, "Speyside", 90);
+        assertEquals(List.of(ardbeg, macallan), repository.getAllMalts());
+        assertEquals(List.of(ardbeg), repository.getMaltsFromRegion("ISLAY"));
+        assertEquals(List.of(macallan), repository.getMaltsInAgeRange(11, 20));
+        assertEquals(List.of(macallan), repository.getMaltsInPriceRange(90, 90));
+        assertEquals(2, repository.countAllMalts());
+    }
+
+    /**
+     * Tests that a malformed line is reported with its line number.
+     */
+    @Test
+    void malformedLineFailsToConnect() throws Exception {
+        Path file = dir.resolve("whiskeys.csv");
+        Files.writeString(file, "DISTILLERY,AGE,REGION,PRICE\nArdbeg,ten,Islay,60\n");
+        SQLException e = assertThrows(SQLException.class, () -> new FileWhiskeyRepository(file).connect());
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+
+    /**
+     * Tests that a file listing the same (distillery, age) key twice, in any case, is rejected.
+     */
+    @Test
+    void duplicateKeyFailsToConnect() throws Exception {
+        Path file = dir.resolve("whiskeys.csv");
+        Files.writeString(file, "DISTILLERY,AGE,REGION,PRICE\nArdbeg,10,Islay,60\nARDBEG,10,Islay,65\n");
+        SQLException e = assertThrows(SQLException.class, () -> new FileWhiskeyRepository(file).connect());
+        assertTrue(e.getMessage().contains("Duplicate malt"), e.getMessage());
+    }
+
+    /**
+     * Tests that a file whose first line is not the header is rejected rather than losing its first malt.
+     */
+    @Test
+    void missingHeaderFailsToConnect() throws Exception {
+        Path file = dir.resolve("whiskeys.csv");
+        Files.writeString(file, "Ardbeg,10,Islay,60\nMacallan,12,Speyside,90\n");
+        SQLException e = assertThrows(SQLException.class, () -> new FileWhiskeyRepository(file).connect());
+        assertTrue(e.getMessage().contains("header"), e.getMessage());
+        Files.writeString(file, "");
+        assertThrows(SQLException.class, () -> new FileWhiskeyRepository(file).connect());
+    }
+}
@@ -0,0 +1,78 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link FuzzyMatcher} class.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class FuzzyMatcherTest {
+
+    private final FuzzyMatcher regions = FuzzyMatcher.build(List.of(
+            "Islay", "Speyside", "Highland", "Lowland", "Campbeltown", "Islands", "Islay", "speyside"));
+
+    /**
+     * Tests the edit distance on insertions, deletions, substitutions and transpositions.
+     */
+    @Test
+    void distanceCountsEdits() {
+        assertEquals(0, FuzzyMatcher.distance("islay", "islay"));
+        assertEquals(2, FuzzyMatcher.distance("islya", "islay"));
+        assertEquals(1, FuzzyMatcher.distance("spyside", "speyside"));
+        assertEquals(3, FuzzyMatcher.distance("kitten", "sitting"));
+        assertEquals(5, FuzzyMatcher.distance("", "islay"));
+    }
+
+    /**
+     * Tests that misspelled names find the closest known names, closest first, ignoring case.
+     */
+    @Test
+    void closestFindsNamesWithinDistance() {
+        assertEquals(6, regions.size());
+        assertTrue(regions.contains("ISLAY"));
+        assertFalse(regions.contains("Islya"));
+        assertEquals(List.of("Islay"), regions.closest("Islya", 2, 3));
+        assertEquals(List.of("Speyside"), regions.closest("SPYSIDE", 1, 3));
+        assertEquals(List.of("Highland"), regions.closest("Higland", 1, 3));
+        assertEquals(List.of("Highland", "Islands", "Lowland"), regions.closest("Higland", 3, 3));
+        assertTrue(regions.closest("Kentucky", 2, 3).isEmpty());
+        assertTrue(regions.containsPrefix("camp"));
+        assertFalse(regions.containsPrefix("campx"));
+    }
+
+    /**
+     * Tests that a search of the bigram index finds the same names as comparing the query with every name.
+     */
+    @Test
+    void closestMatchesExhaustiveSearch() {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            names.add(randomName(random));
+        }
+        FuzzyMatcher matcher = FuzzyMatcher.build(names);
+        for (int i = 0; i < 50; i++) {
+            String query = randomName(random);
+            List<String> expected = names.stream().distinct()
+                    .filter(n -> FuzzyMatcher.distance(n, query) <= 2)
+                    .sorted(Comparator.<String>comparingInt(n -> FuzzyMatcher.distance(n, query))
+                            .thenComparing(String.CASE_INSENSITIVE_ORDER))
+                    .toList();
+            assertEquals(expected, matcher.closest(query, 2, Integer.MAX_VALUE));
+        }
+    }
+
+    private static String randomName(Random random) {
+        char[] name = new char[4 + random.nextInt(4)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = (char) ('a' + random.nextInt(6));
+        }
+        return new String(name);
+    }
+}
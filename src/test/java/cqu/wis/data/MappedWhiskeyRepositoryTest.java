@@ -0,0 +1,123 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MappedWhiskeyRepository} class.
+ *
+ * A catalog is written with {@link CatalogFile} and the mapped repository's results are checked against
+ * an {@link InMemoryWhiskeyRepository} holding the same records.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class MappedWhiskeyRepositoryTest {
+
+    private static final List<WhiskeyDetails> CATALOG = List.of(
+            new WhiskeyDetails("Macallan", 18, "Speyside", 250),
+            new WhiskeyDetails("Ardbeg", 10, "Islay", 60),
+            new WhiskeyDetails("Dalmore", 15, "Highland", 120),
+            new WhiskeyDetails("Lagavulin", 16, "Islay", 110),
+            new WhiskeyDetails("Macallan", 12, "Speyside", 90),
+            new WhiskeyDetails("Bruichladdich", 10, "Islay", 60));
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private MappedWhiskeyRepository mapped;
+    private final InMemoryWhiskeyRepository expected = new InMemoryWhiskeyRepository(CATALOG);
+
+    @BeforeEach
+    void writeCatalog() throws Exception {
+        file = dir.resolve("whiskeys.wisc");
+        CatalogFile.write(file, CATALOG, 42);
+        mapped = new MappedWhiskeyRepository(file);
+        mapped.connect();
+    }
+
+    /**
+     * Tests that the mapped queries return the same records as scanning the list, with range queries in
+     * value order and every other query in paging order.
+     */
+    @Test
+    void queriesMatchInMemoryRepository() throws Exception {
+        List<WhiskeyDetails> keyOrder = CATALOG.stream().sorted(WhiskeyRepository.KEY_ORDER).toList();
+        assertEquals(keyOrder, mapped.getAllMalts());
+        assertEquals(6, mapped.countAllMalts());
+        assertEquals(42, mapped.getChangeVersion());
+        assertTrue(mapped.verify());
+
+        assertEquals(expected.getMaltsFromRegion("islay").stream().sorted(WhiskeyRepository.KEY_ORDER).toList(),
+                mapped.getMaltsFromRegion("ISLAY"));
+        assertEquals(List.of(CATALOG.get(4), CATALOG.get(2), CATALOG.get(3)), mapped.getMaltsInAgeRange(11, 16));
+        assertEquals(List.of(CATALOG.get(1), CATALOG.get(5), CATALOG.get(4)), mapped.getMaltsInPriceRange(0, 90));
+        assertTrue(mapped.getMaltsInPriceRange(300, Integer.MAX_VALUE).isEmpty());
+
+        assertEquals(expected.getMaltsPageAfter(CATALOG.get(2), 2), mapped.getMaltsPageAfter(CATALOG.get(2), 2));
+        assertEquals(expected.getMaltsPageBefore(null, 2), mapped.getMaltsPageBefore(null, 2));
+        assertEquals(expected.suggestDistilleries("", 10), mapped.suggestDistilleries("", 10));
+        assertEquals(expected.getRegionStats(), mapped.getRegionStats());
+    }
+
+    /**
+     * Tests that a corrupted row fails the checksum and a file of another format is refused.
+     */
+    @Test
+    void corruptionIsDetected() throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {99}), CatalogFile.HEADER_SIZE + 4);
+        }
+        SQLException e = assertThrows(SQLException.class, () -> new MappedWhiskeyRepository(file).connect());
+        assertTrue(e.getMessage().startsWith("Checksum mismatch"), e.getMessage());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0}), 0);
+        }
+        assertThrows(SQLException.class, () -> new MappedWhiskeyRepository(file).connect());
+    }
+
+    /**
+     * Tests that a dictionary id out of range is refused at connect even when the checksum matches it.
+     */
+    @Test
+    void outOfRangeIdIsRefused() throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer id = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1000);
+            channel.write(id, CatalogFile.HEADER_SIZE);
+            ByteBuffer body = ByteBuffer.allocate((int) channel.size() - CatalogFile.HEADER_SIZE);
+            channel.read(body, CatalogFile.HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(body.flip());
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, (int) crc.getValue()), 24);
+        }
+        SQLException e = assertThrows(SQLException.class, () -> new MappedWhiskeyRepository(file).connect());
+        assertTrue(e.getMessage().contains("out of range"), e.getMessage());
+    }
+
+    /**
+     * Tests that a write whose final move fails leaves no temporary file behind.
+     */
+    @Test
+    void failedWriteLeavesNoTemporaryFile() throws Exception {
+        Path blocked = dir.resolve("blocked.wisc");
+        Files.createDirectories(blocked.resolve("child"));
+        assertThrows(SQLException.class, () -> CatalogFile.write(blocked, CATALOG, 42));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(), files.filter(p -> p.toString().endsWith(".tmp")).toList());
+        }
+    }
+}
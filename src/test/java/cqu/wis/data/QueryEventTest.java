@@ -0,0 +1,47 @@
+package cqu.wis.data;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link QueryEvent}.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class QueryEventTest {
+
+    /**
+     * Tests that a finished event is recorded with the operation it was started for and the given details.
+     */
+    @Test
+    void recordsTheQueryDetails(@TempDir Path dir) throws Exception {
+        QueryStats stats = QueryMetrics.forSource("QueryEventTest").operation("lookup");
+        Path file = dir.resolve("queries.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("cqu.wis.Query");
+            recording.start();
+            QueryEvent.start(stats).finish("SELECT * FROM T WHERE A = ?", 42, 3, false);
+            QueryEvent.start(stats).finish("SELECT * FROM T WHERE A = ?", 7, 0, true);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(2, events.size());
+        RecordedEvent first = events.stream().filter(e -> e.getInt("parametersHash") == 42).findFirst().orElseThrow();
+        assertEquals("QueryEventTest", first.getString("source"));
+        assertEquals("lookup", first.getString("operation"));
+        assertEquals("SELECT * FROM T WHERE A = ?", first.getString("sql"));
+        assertEquals(3, first.getLong("rows"));
+        assertFalse(first.getBoolean("failed"));
+        assertTrue(events.stream().anyMatch(e -> e.getBoolean("failed")));
+        assertTrue(Files.size(file) > 0);
+    }
+}
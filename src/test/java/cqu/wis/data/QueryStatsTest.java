@@ -0,0 +1,70 @@
+package cqu.wis.data;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link LatencyHistogram}, {@link QueryStats} and their publication through {@link QueryMetrics}.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class QueryStatsTest {
+
+    /**
+     * Tests that every value falls into a bucket whose upper bound is at least the value and within 12.5% of it.
+     */
+    @Test
+    void bucketsBoundValuesClosely() {
+        for (long v = 0; v < 1_000_000; v += 1 + v / 50) {
+            int bucket = LatencyHistogram.bucket(v);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue(upper >= v, "upper bound of " + v);
+            assertTrue(upper - v <= v / LatencyHistogram.SUB_BUCKETS, "precision of " + v);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < v, "lower bound of " + v);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucket(-5));
+    }
+
+    /**
+     * Tests that percentiles are read from the recorded distribution.
+     */
+    @Test
+    void percentilesFollowTheRecordedValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i);
+        }
+        assertEquals(1000, h.count());
+        assertEquals(500, h.percentile(0.50), 500 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(990, h.percentile(0.99), 990 / LatencyHistogram.SUB_BUCKETS);
+        assertTrue(h.percentile(1.0) >= 1000);
+        h.reset();
+        assertEquals(0, h.count());
+    }
+
+    /**
+     * Tests that recorded calls can be read through the platform MBean server.
+     */
+    @Test
+    void statisticsArePublishedOverJmx() throws Exception {
+        QueryStats stats = QueryMetrics.forSource("QueryStatsTest").operation("lookup");
+        assertSame(stats, QueryMetrics.forSource("QueryStatsTest").operation("lookup"));
+        long start = System.nanoTime();
+        stats.record(start, 3);
+        stats.recordError(start);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("cqu.wis:type=QueryStats,source=QueryStatsTest,name=lookup");
+        assertEquals(2L, server.getAttribute(name, "Count"));
+        assertEquals(1L, server.getAttribute(name, "ErrorCount"));
+        assertEquals(3L, server.getAttribute(name, "RowCount"));
+
+        server.invoke(name, "reset", null, null);
+        assertEquals(0L, stats.getCount());
+    }
+}
@@ -0,0 +1,131 @@
+package cqu.wis.data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ResultCache} class.
+ *
+ * A manually advanced clock is used so that expiry can be tested without waiting.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class ResultCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ResultCache<String, List<Integer>> cache(int maxEntries, long maxWeight) {
+        return new ResultCache<>(new ResultCache.Settings(maxEntries, maxWeight, Duration.ofSeconds(10)),
+                List::size, now::get);
+    }
+
+    private List<Integer> load(int rows) {
+        loads.incrementAndGet();
+        return Collections.nCopies(rows, 0);
+    }
+
+    /**
+     * Tests that a second lookup of the same key is answered from the cache.
+     */
+    @Test
+    void repeatedLookupIsHit() {
+        ResultCache<String, List<Integer>> cache = cache(4, 100);
+        List<Integer> first = cache.get("all", () -> load(3));
+        assertSame(first, cache.get("all", () -> load(3)));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    /**
+     * Tests that an entry is reloaded once its time to live has passed.
+     */
+    @Test
+    void expiredEntryIsReloaded() {
+        ResultCache<String, List<Integer>> cache = cache(4, 100);
+        cache.get("all", () -> load(1));
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        cache.get("all", () -> load(1));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    /**
+     * Tests that the least recently used entry is evicted when the entry limit is exceeded.
+     */
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        ResultCache<String, List<Integer>> cache = cache(2, 100);
+        cache.get("a", () -> load(1));
+        cache.get("b", () -> load(1));
+        cache.get("a", () -> load(1));
+        cache.get("c", () -> load(1));
+        assertNotNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Tests that entries are evicted to stay within the weight limit and that an entry heavier
+     * than the limit is not cached at all.
+     */
+    @Test
+    void weightLimitIsEnforced() {
+        ResultCache<String, List<Integer>> cache = cache(10, 5);
+        cache.get("a", () -> load(3));
+        cache.get("b", () -> load(3));
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getWeight());
+        cache.get("huge", () -> load(6));
+        assertNull(cache.getIfPresent("huge"));
+    }
+
+    /**
+     * Tests that invalidation removes entries and that a load started before an invalidation is not cached.
+     */
+    @Test
+    void invalidationRemovesEntries() {
+        ResultCache<String, List<Integer>> cache = cache(10, 100);
+        cache.get("region:islay", () -> load(1));
+        cache.get("region:speyside", () -> load(1));
+        cache.invalidateIf(k -> k.endsWith("islay"));
+        assertNull(cache.getIfPresent("region:islay"));
+        assertNotNull(cache.getIfPresent("region:speyside"));
+
+        cache.get("all", () -> {
+            cache.invalidateAll();
+            return load(1);
+        });
+        assertNull(cache.getIfPresent("all"));
+    }
+
+    /**
+     * Tests that a bulk lookup loads only the missing keys, in one call, and caches them.
+     */
+    @Test
+    void getAllLoadsOnlyMissingKeys() {
+        ResultCache<String, List<Integer>> cache = cache(10, 100);
+        List<Integer> islay = cache.get("islay", () -> load(2));
+        List<List<String>> requested = new ArrayList<>();
+        Map<String, List<Integer>> found = cache.getAll(List.of("speyside", "islay", "highland", "islay"), missing -> {
+            requested.add(missing);
+            Map<String, List<Integer>> loaded = new HashMap<>();
+            missing.forEach(k -> loaded.put(k, load(1)));
+            return loaded;
+        });
+        assertEquals(List.of(List.of("speyside", "highland")), requested);
+        assertEquals(List.of("speyside", "islay", "highland"), List.copyOf(found.keySet()));
+        assertSame(islay, found.get("islay"));
+        assertNotNull(cache.getIfPresent("highland"));
+    }
+}
@@ -0,0 +1,107 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link SingleFlight} class.
+ *
+ * The first load for a key is held open on a latch until the other callers have joined it.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight<String, List<Integer>> flight = new SingleFlight<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    private List<Integer> blockingLoad() throws SQLException {
+        loads.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return List.of(loads.get());
+    }
+
+    private void awaitCalls(int calls) throws InterruptedException {
+        while (flight.getCallCount() < calls) {
+            Thread.sleep(5);
+        }
+        // Give the last caller time to find the running load after counting its call
+        Thread.sleep(50);
+    }
+
+    /**
+     * Tests that concurrent calls for the same key share one load and its result.
+     */
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        Future<List<Integer>> first = callers.submit(() -> flight.execute("islay", this::blockingLoad));
+        Future<List<Integer>> second = callers.submit(() -> flight.execute("islay", this::blockingLoad));
+        Future<List<Integer>> third = callers.submit(() -> flight.execute("islay", this::blockingLoad));
+        awaitCalls(3);
+        release.countDown();
+
+        assertSame(first.get(), second.get());
+        assertSame(first.get(), third.get());
+        assertEquals(1, loads.get());
+        assertEquals(3, flight.getCallCount());
+        assertEquals(1, flight.getExecutionCount());
+        assertEquals(2, flight.getCoalescedCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    /**
+     * Tests that calls for different keys, or for a key whose load has finished, are not collapsed.
+     */
+    @Test
+    void separateKeysAndLaterCallsLoadAgain() throws Exception {
+        release.countDown();
+        flight.execute("islay", this::blockingLoad);
+        flight.execute("islay", this::blockingLoad);
+        flight.execute("speyside", this::blockingLoad);
+        assertEquals(3, loads.get());
+        assertEquals(0, flight.getCoalescedCount());
+    }
+
+    /**
+     * Tests that callers that join a failing load receive its exception.
+     */
+    @Test
+    void waitersReceiveTheFailure() throws Exception {
+        Future<List<Integer>> first = callers.submit(() -> flight.execute("islay", () -> {
+            blockingLoad();
+            throw new SQLException("Connection lost");
+        }));
+        while (loads.get() == 0) {
+            Thread.sleep(5); // the failing load must be the one that runs
+        }
+        Future<List<Integer>> second = callers.submit(() -> flight.execute("islay", this::blockingLoad));
+        awaitCalls(2);
+        release.countDown();
+
+        Exception e1 = assertThrows(Exception.class, first::get);
+        Exception e2 = assertThrows(Exception.class, second::get);
+        assertInstanceOf(SQLException.class, e1.getCause());
+        assertSame(e1.getCause(), e2.getCause());
+        assertEquals(1, loads.get());
+    }
+}
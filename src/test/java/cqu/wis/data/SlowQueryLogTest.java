@@ -0,0 +1,108 @@
+package cqu.wis.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link SlowQueryLog} class.
+ *
+ * These tests use a pool of {@link FakeJdbc} connections that answer every {@code EXPLAIN} with a one-row
+ * plan, so the log can be checked without a database.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class SlowQueryLogTest {
+
+    private static final String SQL = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS WHERE REGION = ?";
+
+    private final QueryStats stats = QueryMetrics.forSource("SlowQueryLogTest").operation("getMaltsFromRegion");
+    private final AtomicInteger bound = new AtomicInteger();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+    /**
+     * Answers every statement, which the log only prepares to explain, with the plan
+     * {@code table=SINGLEMALTS, type=ALL}.
+     */
+    private final FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> {
+        bound.addAndGet(parameters.size());
+        return FakeJdbc.rows(List.of("table", "type"), List.of(List.of("SINGLEMALTS", "ALL")));
+    });
+
+    private ConnectionPool pool() {
+        return ConnectionPool.open("TEST", jdbc::connect,
+                new ConnectionPool.Settings(2, Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ZERO, 1, 4));
+    }
+
+    private void awaitLogged(SlowQueryLog log, long count) throws InterruptedException {
+        for (int i = 0; i < 500 && log.getLoggedCount() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, log.getLoggedCount());
+    }
+
+    /**
+     * Tests that the parameters a binder sets are read in order of their index.
+     */
+    @Test
+    void parametersAreReadFromTheBinder() throws SQLException {
+        List<Object> parameters = SlowQueryLog.parameters(stmt -> {
+            stmt.setInt(2, 12);
+            stmt.setString(1, "Islay");
+            stmt.setNull(3, java.sql.Types.VARCHAR);
+        });
+        assertEquals(Arrays.asList("Islay", 12, null), parameters);
+    }
+
+    /**
+     * Tests that statements faster than the threshold are not logged and a disabled log logs nothing.
+     */
+    @Test
+    void fastStatementsAreNotLogged() throws Exception {
+        try (ConnectionPool pool = pool()) {
+            SlowQueryLog log = new SlowQueryLog(60_000, out);
+            log.record(stats, pool, SQL, stmt -> stmt.setString(1, "Islay"), System.nanoTime(), 3, false);
+            SlowQueryLog off = new SlowQueryLog(-1, out);
+            off.record(stats, pool, SQL, stmt -> stmt.setString(1, "Islay"), System.nanoTime() - 1_000_000_000_000L, 3, false);
+            Thread.sleep(50);
+            assertEquals(0, log.getLoggedCount() + off.getLoggedCount());
+            assertEquals("", bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Tests that a slow statement is logged with its parameters, duration and rows, and that its plan is
+     * captured the first time its shape is slow only.
+     */
+    @Test
+    void slowStatementsAreLoggedWithTheirPlanOnce() throws Exception {
+        try (ConnectionPool pool = pool()) {
+            SlowQueryLog log = new SlowQueryLog(0, out);
+            log.record(stats, pool, SQL, stmt -> stmt.setString(1, "Islay"), System.nanoTime(), 3, false);
+            awaitLogged(log, 1);
+            log.record(stats, pool, SQL, stmt -> stmt.setString(1, "Speyside"), System.nanoTime(), 0, true);
+            awaitLogged(log, 2);
+
+            String text = bytes.toString(StandardCharsets.UTF_8);
+            assertTrue(text.contains("slow SlowQueryLogTest.getMaltsFromRegion: "), text);
+            assertTrue(text.contains("ms, 3 rows"), text);
+            assertTrue(text.contains("ms, failed"), text);
+            assertTrue(text.contains("SQL: " + SQL), text);
+            assertTrue(text.contains("Parameters: ['Islay']"), text);
+            assertTrue(text.contains("Parameters: ['Speyside']"), text);
+            assertTrue(text.contains("table=SINGLEMALTS, type=ALL"), text);
+            assertEquals(1, text.split("Plan:", -1).length - 1, text);
+            assertEquals(List.of("EXPLAIN " + SQL), jdbc.getPreparedSql());
+            assertEquals(1, bound.get());
+            assertEquals(0, log.getDroppedCount());
+        }
+    }
+}
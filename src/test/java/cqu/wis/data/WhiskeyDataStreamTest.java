@@ -0,0 +1,147 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import cqu.wis.roles.WhiskeyDataManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming queries of {@link WhiskeyData}, which hold a pooled connection until the
+ * stream is closed.
+ *
+ * These tests run against a pool of {@link FakeJdbc} connections, so they check that the connection and
+ * statement are released on every path without a database.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class WhiskeyDataStreamTest {
+
+    private static final List<WhiskeyDetails> MALTS = List.of(
+            new WhiskeyDetails("Ardbeg", 10, "Islay", 60),
+            new WhiskeyDetails("Lagavulin", 16, "Islay", 90),
+            new WhiskeyDetails("Talisker", 10, "Island", 55));
+
+    private final List<List<Object>> parameters = new CopyOnWriteArrayList<>();
+    private volatile boolean failQuery;
+    private volatile int failAfter = Integer.MAX_VALUE;
+
+    private final FakeJdbc jdbc = new FakeJdbc((sql, params) -> {
+        parameters.add(params);
+        if (failQuery) {
+            throw new SQLException("Table SINGLEMALTS is locked");
+        }
+        return FakeJdbc.whiskeys(MALTS, failAfter);
+    });
+    private final ConnectionPool pool = ConnectionPool.open("TEST", jdbc::connect,
+            new ConnectionPool.Settings(1, Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ZERO, 1, 4));
+    private final WhiskeyData wd = new WhiskeyData(pool);
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    private void assertReleased() {
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, jdbc.getOpenStatementCount());
+    }
+
+    /**
+     * Tests that the connection is held while the stream is open and goes back to the pool when a fully
+     * read stream and a partly read stream are closed.
+     */
+    @Test
+    void connectionIsReleasedOnCloseAfterFullAndPartialReads() throws SQLException {
+        try (Stream<WhiskeyDetails> s = wd.streamAllMalts()) {
+            assertEquals(1, pool.getActiveCount());
+            assertEquals(MALTS, s.toList());
+        }
+        assertReleased();
+
+        try (Stream<WhiskeyDetails> s = wd.streamMaltsFromRegion("Islay")) {
+            assertEquals(MALTS.get(0), s.findFirst().orElseThrow());
+            assertEquals(1, pool.getActiveCount());
+        }
+        assertReleased();
+        assertEquals(List.of("Islay"), parameters.get(1));
+
+        try (Stream<WhiskeyDetails> s = wd.streamMaltsInAgeRange(10, 12)) {
+            assertEquals(2, s.limit(2).count());
+        }
+        assertReleased();
+        assertEquals(List.of(10, 12), parameters.get(2));
+        assertEquals(1, jdbc.getOpenedCount());
+    }
+
+    /**
+     * Tests that a stream is timed until its rows run out, not until the caller closes it.
+     */
+    @Test
+    void latencyIsRecordedWhenTheRowsRunOut() throws Exception {
+        QueryStats stats = WhiskeyData.METRICS.operation("streamAllMalts");
+        stats.reset();
+        try (Stream<WhiskeyDetails> s = wd.streamAllMalts()) {
+            assertEquals(MALTS, s.toList());
+            assertEquals(1, stats.getCount());
+            Thread.sleep(200);
+        }
+        assertEquals(1, stats.getCount());
+        assertEquals(3, stats.getRowCount());
+        assertTrue(stats.getMaxMillis() < 200, stats.toString());
+        assertReleased();
+    }
+
+    /**
+     * Tests that the time the caller takes to handle each row is not counted as query time.
+     */
+    @Test
+    void consumerTimeIsNotRecorded() throws Exception {
+        QueryStats stats = WhiskeyData.METRICS.operation("streamAllMalts");
+        stats.reset();
+        try (Stream<WhiskeyDetails> s = wd.streamAllMalts()) {
+            s.forEach(row -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertEquals(1, stats.getCount());
+        assertTrue(stats.getMaxMillis() < 200, stats.toString());
+        assertReleased();
+    }
+
+    /**
+     * Tests that the connection goes back to the pool when the query itself fails.
+     */
+    @Test
+    void connectionIsReleasedWhenTheQueryFails() {
+        failQuery = true;
+        SQLException e = assertThrows(SQLException.class, () -> wd.streamMaltsInAgeRange(10, 12));
+        assertTrue(e.getMessage().contains("locked"), e.getMessage());
+        assertReleased();
+    }
+
+    /**
+     * Tests that an error reading a row reaches the caller of {@link WhiskeyDataManager#findAllMalts} as an
+     * {@link SQLException} and the connection still goes back to the pool.
+     */
+    @Test
+    void readErrorSurfacesAsSQLExceptionThroughTheManager() {
+        failAfter = 1;
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd, Runnable::run);
+        List<WhiskeyDetails> first = new CopyOnWriteArrayList<>();
+        SQLException e = assertThrows(SQLException.class, () -> wdm.findAllMalts(first::add));
+        assertEquals("Connection lost", e.getMessage());
+        assertEquals(List.of(MALTS.get(0)), first);
+        assertReleased();
+    }
+}
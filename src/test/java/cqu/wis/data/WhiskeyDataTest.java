@@ -0,0 +1,122 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SQL that {@link WhiskeyData} builds for its multi-region and composite filter queries,
+ * for the queries it runs to answer distillery suggestions, for how it records a failed call and for how
+ * it detects a missing change log.
+ *
+ * These tests only compile queries or run them on {@link FakeJdbc} connections, so no database is needed.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class WhiskeyDataTest {
+
+    private static final String SELECT = "SELECT DISTILLERY, AGE, REGION, PRICE FROM SINGLEMALTS";
+
+    private final WhiskeyData wd = new WhiskeyData();
+
+    /**
+     * Tests that the composite query contains only the predicates of the filters that are set.
+     */
+    @Test
+    void matchingQueryHasOnlySetPredicates() {
+        assertEquals(SELECT, wd.getMaltsMatchingQuery(WhiskeyQuery.ALL));
+        assertEquals(SELECT + " WHERE AGE BETWEEN ? AND ?",
+                wd.getMaltsMatchingQuery(WhiskeyQuery.ALL.withAgeRange(10, 12)));
+        assertEquals(SELECT + " WHERE REGION IN (?, ?) AND PRICE BETWEEN ? AND ? AND DISTILLERY LIKE ? ESCAPE '!'",
+                wd.getMaltsMatchingQuery(WhiskeyQuery.ALL.withRegions(List.of("Islay", "Speyside"))
+                        .withPriceRange(50, 100).withDistilleryPrefix("Glen")));
+    }
+
+    /**
+     * Tests that queries of the same shape share one SQL string and the multi-region query text is reused per size.
+     */
+    @Test
+    void compiledQueriesAreCachedByShape() {
+        String islay = wd.getMaltsMatchingQuery(WhiskeyQuery.ALL.withRegions(List.of("Islay")).withAgeRange(10, 12));
+        String speyside = wd.getMaltsMatchingQuery(WhiskeyQuery.ALL.withRegions(List.of("Speyside")).withAgeRange(1, 50));
+        assertSame(islay, speyside);
+        assertSame(wd.getMaltsFromRegionsQuery(3), wd.getMaltsFromRegionsQuery(3));
+        assertEquals(SELECT + " WHERE REGION IN (?, ?, ?)", wd.getMaltsFromRegionsQuery(3));
+    }
+
+    /**
+     * Tests that distillery suggestions read the change version and the distinct names once, and that
+     * the keystrokes that follow within the recheck interval run no query at all.
+     */
+    @Test
+    void suggestionsKeepAnIndexBetweenKeystrokes() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> {
+            executed.add(sql);
+            if (sql.startsWith("SELECT DISTINCT")) {
+                return FakeJdbc.rows(List.of("DISTILLERY"), List.of(List.of("Glenlivet"), List.of("Ardbeg")));
+            }
+            return FakeJdbc.rows(List.of("VERSION"), List.of(List.of(7L)));
+        });
+        try (ConnectionPool pool = ConnectionPool.open("TEST", jdbc::connect,
+                new ConnectionPool.Settings(1, Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ZERO, 1, 4))) {
+            WhiskeyData data = new WhiskeyData(pool);
+            assertEquals(List.of("Glenlivet"), data.suggestDistilleries("gl", 5));
+            assertEquals(data.getDistilleriesQuery, executed.get(executed.size() - 1));
+            assertTrue(executed.contains(data.getLatestChangeVersionQuery));
+            int built = executed.size();
+            assertEquals(List.of("Ardbeg"), data.suggestDistilleries("a", 5));
+            assertEquals(List.of("Ardbeg", "Glenlivet"), data.suggestDistilleries("", 5));
+            assertEquals(built, executed.size());
+        }
+    }
+
+    /**
+     * Tests that a failed call is recorded as an error and its statement is prepared again on the next call.
+     */
+    @Test
+    void failedCallIsRecordedAndItsStatementEvicted() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new SQLException("Table SINGLEMALTS is locked");
+            }
+            return FakeJdbc.rows(List.of("N"), List.of(List.of(3)));
+        });
+        QueryStats stats = WhiskeyData.METRICS.operation("countAllMalts");
+        stats.reset();
+        try (ConnectionPool pool = ConnectionPool.open("TEST", jdbc::connect,
+                new ConnectionPool.Settings(1, Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ZERO, 1, 4))) {
+            WhiskeyData data = new WhiskeyData(pool);
+            assertThrows(SQLException.class, data::countAllMalts);
+            assertEquals(3, data.countAllMalts());
+            assertEquals(List.of(data.countAllMaltsQuery, data.countAllMaltsQuery), jdbc.getPreparedSql());
+            assertEquals(2, stats.getCount());
+            assertEquals(1, stats.getErrorCount());
+        }
+    }
+
+    /**
+     * Tests that a missing SINGLEMALTS_CHANGES table makes the change log unavailable, and that the check
+     * is made only once.
+     */
+    @Test
+    void missingChangeLogTableIsDetectedOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FakeJdbc jdbc = new FakeJdbc((sql, parameters) -> {
+            calls.incrementAndGet();
+            throw new SQLException("Table 'WHISKEY.SINGLEMALTS_CHANGES' doesn't exist", "42S02", 1146);
+        });
+        try (ConnectionPool pool = ConnectionPool.open("TEST", jdbc::connect,
+                new ConnectionPool.Settings(1, Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ZERO, 1, 4))) {
+            WhiskeyData data = new WhiskeyData(pool);
+            assertFalse(data.isAvailable());
+            assertFalse(data.isAvailable());
+            assertEquals(1, calls.get());
+        }
+    }
+}
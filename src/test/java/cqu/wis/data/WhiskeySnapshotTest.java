@@ -0,0 +1,398 @@
+package cqu.wis.data;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link WhiskeySnapshot} class.
+ *
+ * The snapshot is loaded from a fixed in-memory source, and its query results are checked
+ * against the records that the equivalent SQL queries would return.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class WhiskeySnapshotTest {
+
+    private static final WhiskeyDetails ARDBEG_10 = new WhiskeyDetails("Ardbeg", 10, "Islay", 60);
+    private static final WhiskeyDetails LAGAVULIN_16 = new WhiskeyDetails("Lagavulin", 16, "Islay", 110);
+    private static final WhiskeyDetails MACALLAN_12 = new WhiskeyDetails("Macallan", 12, "Speyside", 90);
+    private static final WhiskeyDetails MACALLAN_18 = new WhiskeyDetails("Macallan", 18, "Speyside", 250);
+    private static final WhiskeyDetails DALMORE_15 = new WhiskeyDetails("Dalmore", 15, "Highland", 120);
+
+    private static final List<WhiskeyDetails> CATALOG =
+            List.of(MACALLAN_18, ARDBEG_10, DALMORE_15, LAGAVULIN_16, MACALLAN_12);
+
+    /**
+     * A source repository that serves the fixed catalog and a list of changes.
+     */
+    static class ListSource implements WhiskeyRepository, WhiskeyChangeLog {
+        List<WhiskeyDetails> rows;
+        List<WhiskeyChange> changes = new ArrayList<>();
+        boolean available = true;
+        int connects;
+
+        ListSource(List<WhiskeyDetails> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void connect() {
+            connects++;
+        }
+
+        @Override
+        public void disconnect() {}
+
+        @Override
+        public List<WhiskeyDetails> getAllMalts() {
+            return rows;
+        }
+
+        @Override
+        public List<WhiskeyDetails> getMaltsFromRegion(String r) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public long getLatestChangeVersion() {
+            assertTrue(available, "change log read although it is not available");
+            return changes.isEmpty() ? 0 : changes.get(changes.size() - 1).version();
+        }
+
+        @Override
+        public List<WhiskeyChange> getChangesSince(long version, int limit) {
+            assertTrue(available, "change log read although it is not available");
+            return changes.stream().filter(c -> c.version() > version).limit(limit).toList();
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private ListSource source;
+    private WhiskeySnapshot snapshot;
+
+    @BeforeEach
+    void loadSnapshot() throws Exception {
+        source = new ListSource(CATALOG);
+        snapshot = new WhiskeySnapshot(source);
+        snapshot.connect();
+    }
+
+    /**
+     * Tests that all malts are returned in load order.
+     */
+    @Test
+    void getAllMaltsReturnsEveryRecord() {
+        assertEquals(CATALOG, snapshot.getAllMalts());
+        assertEquals(5, snapshot.countAllMalts());
+    }
+
+    /**
+     * Tests that the region query matches regardless of case and returns nothing for an unknown region.
+     */
+    @Test
+    void getMaltsFromRegionIgnoresCase() {
+        assertEquals(List.of(ARDBEG_10, LAGAVULIN_16), snapshot.getMaltsFromRegion("islay"));
+        assertTrue(snapshot.getMaltsFromRegion("Lowland").isEmpty());
+    }
+
+    /**
+     * Tests that the multi-region query groups malts by region in request order, ignoring case and duplicates.
+     */
+    @Test
+    void getMaltsFromRegionsGroupsByRegion() {
+        Map<String, List<WhiskeyDetails>> grouped =
+                snapshot.getMaltsFromRegions(List.of("speyside", "Islay", "Lowland", "SPEYSIDE"));
+        assertEquals(List.of("speyside", "Islay", "Lowland"), List.copyOf(grouped.keySet()));
+        assertEquals(List.of(MACALLAN_18, MACALLAN_12), grouped.get("speyside"));
+        assertEquals(List.of(ARDBEG_10, LAGAVULIN_16), grouped.get("Islay"));
+        assertTrue(grouped.get("Lowland").isEmpty());
+    }
+
+    /**
+     * Tests that distillery suggestions come from the loaded catalog.
+     */
+    @Test
+    void suggestDistilleriesMatchesPrefix() {
+        assertEquals(List.of("Macallan"), snapshot.suggestDistilleries("mac", 10));
+        assertEquals(List.of("Ardbeg", "Dalmore", "Lagavulin", "Macallan"), snapshot.suggestDistilleries("", 10));
+    }
+
+    /**
+     * Tests that region statistics are computed per region, with the median of an even count being the
+     * mean of the two middle values, and that they match the statistics computed from all malts.
+     */
+    @Test
+    void getRegionStatsSummarisesEachRegion() throws Exception {
+        assertEquals(List.of(
+                new RegionStats("Highland", 1, 120, 120, 120.0, 120.0, 15, 15, 15.0, 15.0),
+                new RegionStats("Islay", 2, 60, 110, 85.0, 85.0, 10, 16, 13.0, 13.0),
+                new RegionStats("Speyside", 2, 90, 250, 170.0, 170.0, 12, 18, 15.0, 15.0)),
+                snapshot.getRegionStats());
+        assertEquals(source.getRegionStats(), snapshot.getRegionStats());
+    }
+
+    /**
+     * Tests that the age range query includes both bounds and returns records in age order.
+     */
+    @Test
+    void getMaltsInAgeRangeIsInclusive() {
+        assertEquals(List.of(MACALLAN_12, DALMORE_15, LAGAVULIN_16), snapshot.getMaltsInAgeRange(12, 16));
+        assertTrue(snapshot.getMaltsInAgeRange(19, 100).isEmpty());
+    }
+
+    /**
+     * Tests that the price range query includes both bounds, handles an open upper bound
+     * and returns nothing for an inverted range.
+     */
+    @Test
+    void getMaltsInPriceRangeUsesIndex() {
+        assertEquals(List.of(MACALLAN_12, LAGAVULIN_16, DALMORE_15), snapshot.getMaltsInPriceRange(90, 120));
+        assertEquals(List.of(MACALLAN_18), snapshot.getMaltsInPriceRange(200, Integer.MAX_VALUE));
+        assertTrue(snapshot.getMaltsInPriceRange(120, 90).isEmpty());
+    }
+
+    /**
+     * Tests that a composite query applies every filter that is set, with and without an indexed range.
+     */
+    @Test
+    void getMaltsMatchingAppliesAllFilters() {
+        WhiskeyQuery speyside = WhiskeyQuery.ALL.withRegions(List.of("SPEYSIDE"));
+        assertEquals(List.of(MACALLAN_18, MACALLAN_12), snapshot.getMaltsMatching(speyside));
+        assertEquals(List.of(MACALLAN_12), snapshot.getMaltsMatching(speyside.withAgeRange(10, 15)));
+        assertEquals(List.of(MACALLAN_12, LAGAVULIN_16),
+                snapshot.getMaltsMatching(WhiskeyQuery.ALL.withAgeRange(12, 18).withPriceRange(0, 110)));
+        assertEquals(List.of(LAGAVULIN_16), snapshot.getMaltsMatching(WhiskeyQuery.ALL.withDistilleryPrefix("lag")));
+        assertEquals(CATALOG, snapshot.getMaltsMatching(WhiskeyQuery.ALL));
+    }
+
+    /**
+     * Tests that pages follow (distillery, age) order in both directions.
+     */
+    @Test
+    void pagesFollowKeyOrder() {
+        assertEquals(List.of(ARDBEG_10, DALMORE_15), snapshot.getMaltsPageAfter(null, 2));
+        assertEquals(List.of(LAGAVULIN_16, MACALLAN_12), snapshot.getMaltsPageAfter(DALMORE_15, 2));
+        assertEquals(List.of(MACALLAN_18), snapshot.getMaltsPageAfter(MACALLAN_12, 2));
+        assertEquals(List.of(MACALLAN_12, MACALLAN_18), snapshot.getMaltsPageBefore(null, 2));
+        assertEquals(List.of(ARDBEG_10, DALMORE_15), snapshot.getMaltsPageBefore(LAGAVULIN_16, 2));
+    }
+
+    /**
+     * Tests that applying inserts, updates and deletes gives the same query results as loading
+     * the changed catalog from scratch, including the index and key orders.
+     */
+    @Test
+    void applyMatchesFullLoad() {
+        WhiskeyDetails macallan12 = new WhiskeyDetails("Macallan", 12, "Speyside", 95);
+        WhiskeyDetails glenfiddich12 = new WhiskeyDetails("Glenfiddich", 12, "Speyside", 55);
+        snapshot.apply(List.of(
+                new WhiskeyChange(1, "Ardbeg", 10, null),
+                new WhiskeyChange(2, "Bowmore", 12, new WhiskeyDetails("Bowmore", 12, "Islay", 70)),
+                new WhiskeyChange(3, "MACALLAN", 12, macallan12),
+                new WhiskeyChange(4, "Glenfiddich", 12, glenfiddich12),
+                new WhiskeyChange(5, "Bowmore", 12, null),
+                new WhiskeyChange(6, "Talisker", 10, null)));
+
+        WhiskeySnapshot expected = new WhiskeySnapshot(source);
+        expected.load(List.of(MACALLAN_18, DALMORE_15, LAGAVULIN_16, macallan12, glenfiddich12));
+
+        assertEquals(expected.getAllMalts(), snapshot.getAllMalts());
+        assertEquals(expected.getMaltsFromRegion("Speyside"), snapshot.getMaltsFromRegion("Speyside"));
+        assertEquals(expected.getMaltsInAgeRange(0, 100), snapshot.getMaltsInAgeRange(0, 100));
+        assertEquals(expected.getMaltsInPriceRange(0, 1000), snapshot.getMaltsInPriceRange(0, 1000));
+        assertEquals(expected.getMaltsPageAfter(null, 10), snapshot.getMaltsPageAfter(null, 10));
+        assertEquals(expected.suggestDistilleries("", 10), snapshot.suggestDistilleries("", 10));
+        assertEquals(expected.getRegionStats(), snapshot.getRegionStats());
+        assertEquals(6, snapshot.getVersion());
+    }
+
+    /**
+     * Tests that a sync applies only the changes made since the last load or sync.
+     */
+    @Test
+    void syncAppliesOnlyNewChanges() throws Exception {
+        WhiskeyDetails talisker10 = new WhiskeyDetails("Talisker", 10, "Islands", 65);
+        source.changes.add(new WhiskeyChange(1, "Talisker", 10, talisker10));
+        source.changes.add(new WhiskeyChange(2, "Dalmore", 15, null));
+
+        assertEquals(2, snapshot.sync());
+        assertEquals(List.of(MACALLAN_18, ARDBEG_10, LAGAVULIN_16, MACALLAN_12, talisker10), snapshot.getAllMalts());
+        assertEquals(0, snapshot.sync());
+        assertEquals(2, snapshot.getVersion());
+
+        source.changes.add(new WhiskeyChange(3, "Talisker", 10, null));
+        assertEquals(1, snapshot.sync());
+        assertEquals(4, snapshot.countAllMalts());
+    }
+
+    /**
+     * Tests that a source without its change log is loaded unversioned, is not synced and is refreshed
+     * by loading it in full.
+     */
+    @Test
+    void missingChangeLogFallsBackToFullLoads() throws Exception {
+        source.available = false;
+        snapshot = new WhiskeySnapshot(source);
+        snapshot.connect();
+        assertFalse(snapshot.hasChangeLog());
+        assertEquals(0, snapshot.getVersion());
+        assertEquals(0, snapshot.sync());
+
+        source.rows = List.of(ARDBEG_10, DALMORE_15);
+        assertEquals(2, snapshot.refresh());
+        assertEquals(List.of(ARDBEG_10, DALMORE_15), snapshot.getAllMalts());
+    }
+
+    /**
+     * Tests that a change which commits after a change with a higher version has been synced is still
+     * applied, both after a sync and after a full load that could not see it.
+     */
+    @Test
+    void syncPicksUpChangesThatCommitLate() throws Exception {
+        WhiskeyDetails talisker10 = new WhiskeyDetails("Talisker", 10, "Islands", 65);
+        WhiskeyDetails oban14 = new WhiskeyDetails("Oban", 14, "Highland", 80);
+        source.changes.add(new WhiskeyChange(1, "Dalmore", 15, null));
+        source.changes.add(new WhiskeyChange(3, "Talisker", 10, talisker10));
+        assertEquals(2, snapshot.sync());
+        assertEquals(3, snapshot.getVersion());
+
+        source.changes.add(1, new WhiskeyChange(2, "Macallan", 18, null));
+        assertEquals(1, snapshot.sync());
+        assertFalse(snapshot.getAllMalts().contains(MACALLAN_18));
+        assertEquals(0, snapshot.sync());
+
+        source.rows = snapshot.getAllMalts();
+        source.changes.add(new WhiskeyChange(5, "Talisker", 10, null));
+        snapshot.reload();
+        source.changes.add(3, new WhiskeyChange(4, "Oban", 14, oban14));
+        assertEquals(0, snapshot.sync());
+        assertTrue(snapshot.getAllMalts().contains(oban14));
+        assertFalse(snapshot.getAllMalts().contains(talisker10));
+        assertEquals(5, snapshot.getVersion());
+    }
+
+    /**
+     * Tests that a saved snapshot older than the change log keeps changes is refused, since the changes made
+     * after it was saved may have been pruned.
+     */
+    @Test
+    void loadSavedRejectsFileOlderThanRetention() throws Exception {
+        Path file = dir.resolve("snapshot.wisc");
+        snapshot.save(file);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(WhiskeyChangeLog.RETENTION).minusSeconds(60)));
+
+        WhiskeySnapshot restarted = new WhiskeySnapshot(new ListSource(List.of()));
+        SQLException e = assertThrows(SQLException.class, () -> restarted.loadSaved(file));
+        assertTrue(e.getMessage().contains("retention"), e.getMessage());
+        assertEquals(0, restarted.countAllMalts());
+    }
+
+    /**
+     * Tests that a saved snapshot is loaded with its version without connecting to the source, and that a
+     * refresh then reads only the changes made after the save.
+     */
+    @Test
+    void loadSavedStartsWarmAndRefreshCatchesUp() throws Exception {
+        WhiskeyDetails talisker10 = new WhiskeyDetails("Talisker", 10, "Islands", 65);
+        source.changes.add(new WhiskeyChange(1, "Talisker", 10, talisker10));
+        snapshot.sync();
+        Path file = dir.resolve("snapshot.wisc");
+        snapshot.save(file);
+
+        ListSource restartedSource = new ListSource(List.of());
+        restartedSource.changes.addAll(source.changes);
+        restartedSource.changes.add(new WhiskeyChange(2, "Dalmore", 15, null));
+        WhiskeySnapshot restarted = new WhiskeySnapshot(restartedSource);
+        assertEquals(6, restarted.loadSaved(file));
+        assertEquals(0, restartedSource.connects);
+        assertEquals(1, restarted.getVersion());
+        assertEquals(snapshot.getMaltsPageAfter(null, 10), restarted.getAllMalts());
+
+        assertEquals(5, restarted.refresh());
+        assertEquals(1, restartedSource.connects);
+        assertEquals(2, restarted.getVersion());
+        assertTrue(restarted.getMaltsFromRegion("Highland").isEmpty());
+    }
+
+    /**
+     * Tests that a corrupted saved snapshot is refused and leaves the snapshot unchanged.
+     */
+    @Test
+    void loadSavedRejectsCorruptFile() throws Exception {
+        Path file = dir.resolve("snapshot.wisc");
+        snapshot.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        WhiskeySnapshot restarted = new WhiskeySnapshot(new ListSource(List.of()));
+        assertThrows(SQLException.class, () -> restarted.loadSaved(file));
+        assertEquals(0, restarted.countAllMalts());
+    }
+
+    /**
+     * Tests that a source with two rows for one (distillery, age) key is refused, since paging and change
+     * tracking could not tell them apart, and leaves the snapshot unchanged.
+     */
+    @Test
+    void reloadRejectsDuplicateKeys() {
+        source.rows = List.of(ARDBEG_10, LAGAVULIN_16, new WhiskeyDetails("ardbeg", 10, "Islay", 65));
+        SQLException e = assertThrows(SQLException.class, () -> snapshot.reload());
+        assertTrue(e.getMessage().contains("Duplicate malt"), e.getMessage());
+        assertEquals(CATALOG, snapshot.getAllMalts());
+        assertThrows(SQLException.class, () -> CatalogFile.write(dir.resolve("dup.wisc"), source.rows, 0));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.load(source.rows));
+    }
+
+    /**
+     * Tests that the key order built by the snapshot matches {@link WhiskeyRepository#KEY_ORDER} on a larger
+     * catalog with names that differ in case, both after a full load and after changes are merged in.
+     */
+    @Test
+    void keyOrderMatchesKeyOrderComparator() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] names = {"Ardbeg", "aberlour", "Balvenie", "bowmore", "Caol Ila", "Dalmore", "glenfiddich", "Glenlivet"};
+        Map<String, WhiskeyDetails> byKey = new LinkedHashMap<>();
+        while (byKey.size() < 300) {
+            WhiskeyDetails d = new WhiskeyDetails(names[random.nextInt(names.length)] + " " + random.nextInt(20),
+                    random.nextInt(40), "Highland", random.nextInt(500));
+            byKey.putIfAbsent(d.distillery().toLowerCase() + "/" + d.age(), d);
+        }
+        List<WhiskeyDetails> malts = new ArrayList<>(byKey.values());
+        snapshot.load(malts);
+        List<WhiskeyDetails> expected = new ArrayList<>(malts);
+        expected.sort(WhiskeyRepository.KEY_ORDER);
+        assertEquals(expected, snapshot.getMaltsPageAfter(null, malts.size()));
+
+        WhiskeyDetails added = new WhiskeyDetails("BALVENIE 3", 99, "Speyside", 10);
+        snapshot.apply(List.of(new WhiskeyChange(1, added.distillery(), added.age(), added)));
+        expected.add(added);
+        expected.sort(WhiskeyRepository.KEY_ORDER);
+        assertEquals(expected, snapshot.getMaltsPageAfter(null, expected.size()));
+    }
+}
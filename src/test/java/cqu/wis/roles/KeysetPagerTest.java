@@ -0,0 +1,132 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link KeysetPager} class.
+ *
+ * The pager is driven by an in-memory {@link KeysetPager.PageSource} that serves pages from a sorted list
+ * by (distillery, age) key, so that navigation across page boundaries, wrap-around and the page window
+ * bound can be checked without a database.
+ *
+ * @author Ayush Bhandari S12157470
+ */
+public class KeysetPagerTest {
+
+    private static final Comparator<WhiskeyDetails> KEY_ORDER =
+            Comparator.comparing(WhiskeyDetails::distillery).thenComparingInt(WhiskeyDetails::age);
+
+    /**
+     * A page source over a sorted list that counts how many pages it has served.
+     */
+    private static class ListPageSource implements KeysetPager.PageSource {
+        private final List<WhiskeyDetails> rows;
+        private int fetches;
+
+        ListPageSource(int count) {
+            rows = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                rows.add(new WhiskeyDetails(String.format("Distillery%02d", i), 10, "Region", 100));
+            }
+        }
+
+        @Override
+        public List<WhiskeyDetails> after(WhiskeyDetails after, int limit) {
+            fetches++;
+            List<WhiskeyDetails> page = new ArrayList<>();
+            for (WhiskeyDetails d : rows) {
+                if ((after == null || KEY_ORDER.compare(d, after) > 0) && page.size() < limit) {
+                    page.add(d);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public List<WhiskeyDetails> before(WhiskeyDetails before, int limit) {
+            fetches++;
+            List<WhiskeyDetails> page = new ArrayList<>();
+            for (int i = rows.size() - 1; i >= 0 && page.size() < limit; i--) {
+                if (before == null || KEY_ORDER.compare(rows.get(i), before) < 0) {
+                    page.add(0, rows.get(i));
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Tests that an empty data set gives {@code null} for every navigation method.
+     */
+    @Test
+    void emptySourceReturnsNull() throws Exception {
+        KeysetPager pager = new KeysetPager(new ListPageSource(0), 3, 2);
+        assertNull(pager.first());
+        assertNull(pager.next());
+        assertNull(pager.previous());
+    }
+
+    /**
+     * Tests that moving forward crosses page boundaries in order and wraps to the first record.
+     */
+    @Test
+    void nextCrossesPagesAndWraps() throws Exception {
+        ListPageSource source = new ListPageSource(7);
+        KeysetPager pager = new KeysetPager(source, 3, 2);
+        assertEquals(source.rows.get(0), pager.first());
+        for (int i = 1; i < 7; i++) {
+            assertEquals(source.rows.get(i), pager.next());
+        }
+        assertEquals(source.rows.get(0), pager.next());
+        assertTrue(pager.getWindowSize() <= 2);
+    }
+
+    /**
+     * Tests that moving backward from the first record wraps to the last record and continues backwards.
+     */
+    @Test
+    void previousWrapsToLastRecord() throws Exception {
+        ListPageSource source = new ListPageSource(7);
+        KeysetPager pager = new KeysetPager(source, 3, 2);
+        pager.first();
+        for (int i = 6; i >= 0; i--) {
+            assertEquals(source.rows.get(i), pager.previous());
+        }
+        assertEquals(source.rows.get(6), pager.previous());
+    }
+
+    /**
+     * Tests that moving back and forth within the window does not fetch pages again.
+     */
+    @Test
+    void navigationWithinWindowDoesNotFetch() throws Exception {
+        ListPageSource source = new ListPageSource(7);
+        KeysetPager pager = new KeysetPager(source, 3, 2);
+        pager.first();
+        pager.next();
+        pager.next();
+        pager.next();
+        int fetches = source.fetches;
+        assertEquals(source.rows.get(2), pager.previous());
+        assertEquals(source.rows.get(3), pager.next());
+        assertEquals(fetches, source.fetches);
+    }
+
+    /**
+     * Tests that a single record is returned repeatedly in both directions.
+     */
+    @Test
+    void singleRecordWrapsToItself() throws Exception {
+        ListPageSource source = new ListPageSource(1);
+        KeysetPager pager = new KeysetPager(source, 3, 2);
+        WhiskeyDetails only = source.rows.get(0);
+        assertEquals(only, pager.first());
+        assertEquals(only, pager.next());
+        assertEquals(only, pager.previous());
+    }
+}
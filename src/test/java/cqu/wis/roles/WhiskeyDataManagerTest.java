@@ -1,6 +1,16 @@
 package cqu.wis.roles;
 
+import cqu.wis.data.InMemoryWhiskeyRepository;
 import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeyRepository;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -151,4 +161,204 @@ public class WhiskeyDataManagerTest {
         wdm.setDetails(new WhiskeyData.WhiskeyDetails[] { nonEmptyRecord });
         assertEquals(nonEmptyRecord, wdm.first());
     }
+
+    /**
+     * Tests that the asynchronous navigation methods run on the manager's executor and
+     * move through the records like the synchronous ones.
+     */
+    @Test
+    public void asyncNavigationTest() {
+        AtomicInteger tasks = new AtomicInteger();
+        Executor executor = DatabaseExecutor.newExecutor("TEST");
+        WhiskeyDataManager wdm = new WhiskeyDataManager(null, task -> {
+            tasks.incrementAndGet();
+            executor.execute(task);
+        });
+        WhiskeyData.WhiskeyDetails record1 = new WhiskeyData.WhiskeyDetails("Test1", 10, "Region1", 100);
+        WhiskeyData.WhiskeyDetails record2 = new WhiskeyData.WhiskeyDetails("Test2", 12, "Region2", 120);
+        wdm.setDetails(new WhiskeyData.WhiskeyDetails[] { record1, record2 });
+        assertEquals(record2, wdm.nextAsync().join());
+        assertEquals(record1, wdm.previousAsync().join());
+        assertEquals(record1, wdm.firstAsync().join());
+        assertEquals(3, tasks.get());
+    }
+
+    /**
+     * Tests that navigation and other queries are not held up by a slow query, and that the dataset of the
+     * query started last is kept, and its size reported, when the slow one finishes afterwards.
+     */
+    @Test
+    public void slowQueryDoesNotBlockAndLatestQueryWinsTest() throws Exception {
+        WhiskeyData.WhiskeyDetails record1 = new WhiskeyData.WhiskeyDetails("Test1", 10, "Region1", 100);
+        WhiskeyData.WhiskeyDetails record2 = new WhiskeyData.WhiskeyDetails("Test2", 12, "Region2", 120);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WhiskeyRepository slow = new WhiskeyRepository() {
+            @Override
+            public void connect() {}
+
+            @Override
+            public void disconnect() {}
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getAllMalts() {
+                return List.of(record1, record2);
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String r) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsInPriceRange(int p1, int p2) throws SQLException {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new SQLException(e);
+                }
+                return List.of(record2);
+            }
+        };
+        WhiskeyDataManager wdm = new WhiskeyDataManager(slow, DatabaseExecutor.newExecutor("TEST"));
+        CompletableFuture<Integer> slowQuery = wdm.findMaltsInPriceRangeAsync(110, 130);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, wdm.findAllMalts());
+        assertEquals(record2, wdm.next());
+        release.countDown();
+        assertEquals(2, slowQuery.join());
+        assertEquals(record1, wdm.first());
+    }
+
+    /**
+     * Tests that a query is not held up by a slow page fetch, and that the page is dropped once it returns
+     * because the query has replaced the paged dataset.
+     */
+    @Test
+    public void slowPageDoesNotBlockQueriesAndIsDroppedTest() throws Exception {
+        WhiskeyData.WhiskeyDetails record1 = new WhiskeyData.WhiskeyDetails("Test1", 10, "Region1", 100);
+        WhiskeyData.WhiskeyDetails record2 = new WhiskeyData.WhiskeyDetails("Test2", 12, "Region2", 120);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WhiskeyRepository slow = new InMemoryWhiskeyRepository(List.of(record1, record2)) {
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsPageAfter(WhiskeyData.WhiskeyDetails after, int limit)
+                    throws SQLException {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new SQLException(e);
+                }
+                return super.getMaltsPageAfter(after, limit);
+            }
+        };
+        WhiskeyDataManager wdm = new WhiskeyDataManager(slow, DatabaseExecutor.newExecutor("TEST"));
+        assertEquals(2, wdm.findAllMaltsPaged(1));
+        CompletableFuture<WhiskeyData.WhiskeyDetails> page = wdm.nextAsync();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, wdm.findMaltsInAgeRange(12, 12));
+        release.countDown();
+        assertEquals(record2, page.join());
+        assertEquals(record2, wdm.first());
+    }
+
+    /**
+     * Tests that the validator is given the distinct names of the catalog without reading its records.
+     */
+    @Test
+    public void loadKnownNamesReadsOnlyDistinctNamesTest() throws SQLException {
+        WhiskeyRepository names = new WhiskeyRepository() {
+            @Override
+            public void connect() {}
+
+            @Override
+            public void disconnect() {}
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getAllMalts() {
+                throw new UnsupportedOperationException("getAllMalts");
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String r) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<String> getRegions() {
+                return List.of("Islay", "Speyside");
+            }
+
+            @Override
+            public List<String> getDistilleries() {
+                return List.of("Ardbeg", "Glenfiddich");
+            }
+        };
+        WhiskeyDataValidator wdv = new WhiskeyDataValidator();
+        new WhiskeyDataManager(names, Runnable::run).loadKnownNames(wdv);
+        assertTrue(wdv.checkRegion("Islay").result());
+        assertFalse(wdv.checkRegion("Islya").result());
+        assertFalse(wdv.checkDistillery("Glenfidich").result());
+    }
+
+    /**
+     * Tests that the first result is timed from the first record query, not from looking up names.
+     */
+    @Test
+    public void firstResultIsTimedFromTheFirstRecordQueryTest() throws SQLException {
+        WhiskeyRepository wd = new InMemoryWhiskeyRepository(List.of(new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 60)));
+        wd.connect();
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd, Runnable::run);
+        wdm.loadKnownNamesAsync(new WhiskeyDataValidator()).join();
+        assertFalse(wdm.getFirstResult().isDone());
+        assertEquals(1, wdm.findMaltsFromRegionAsync("Islay", null).join());
+        assertTrue(wdm.getFirstResult().isDone());
+    }
+
+    /**
+     * Tests that a failed asynchronous query completes its future with the {@link SQLException} as the cause.
+     */
+    @Test
+    public void asyncQueryFailureTest() {
+        WhiskeyRepository failing = new WhiskeyRepository() {
+            @Override
+            public void connect() {}
+
+            @Override
+            public void disconnect() {}
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getAllMalts() throws SQLException {
+                throw new SQLException("Database unavailable");
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String r) throws SQLException {
+                throw new SQLException("Database unavailable");
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int r1, int r2) throws SQLException {
+                throw new SQLException("Database unavailable");
+            }
+        };
+        WhiskeyDataManager wdm = new WhiskeyDataManager(failing);
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> wdm.findMaltsInPriceRangeAsync(50, 100).join());
+        assertInstanceOf(SQLException.class, e.getCause());
+    }
 }
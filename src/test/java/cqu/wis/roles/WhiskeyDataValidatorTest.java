@@ -1,5 +1,7 @@
 package cqu.wis.roles;
 
+import cqu.wis.data.WhiskeyData.WhiskeyDetails;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -171,4 +173,46 @@ public class WhiskeyDataValidatorTest {
         assertTrue(response.result());
         assertEquals("", response.message());
     }
+
+    /**
+     * Tests that a price range with only a lower bound has no upper limit.
+     */
+    @Test
+    void checkPriceRangeWithLowerOnly() {
+        WhiskeyDataValidator.RangeValidationResponse response = wdv.checkPriceRange("50", "");
+        assertTrue(response.result());
+        assertEquals(50, response.r().lower());
+        assertEquals(Integer.MAX_VALUE, response.r().upper());
+    }
+
+    /**
+     * Tests that price range validation reports errors in terms of price rather than age.
+     */
+    @Test
+    void checkPriceRangeMessages() {
+        assertEquals("At least one price bound must be provided", wdv.checkPriceRange("", "").message());
+        assertEquals("Price bounds cannot be negative", wdv.checkPriceRange("-1", "10").message());
+        assertEquals("Price bounds must be valid numbers", wdv.checkPriceRange("cheap", "").message());
+        assertEquals("Upper bound cannot be less than lower bound", wdv.checkPriceRange("100", "50").message());
+    }
+
+    /**
+     * Tests that once the catalog names are known, misspelled regions and distilleries are rejected
+     * with the closest known names suggested.
+     */
+    @Test
+    void checkNamesAgainstKnownNames() {
+        assertTrue(wdv.checkRegion("Islya").result());
+        wdv.useKnownNames(List.of(
+                new WhiskeyDetails("Ardbeg", 10, "Islay", 45),
+                new WhiskeyDetails("Glenfiddich", 12, "Speyside", 40)));
+
+        assertTrue(wdv.checkRegion("islay").result());
+        assertEquals("Unknown region Islya, did you mean Islay?", wdv.checkRegion("Islya").message());
+        assertEquals("Unknown region Kentucky", wdv.checkRegion("Kentucky").message());
+
+        assertTrue(wdv.checkDistillery("").result());
+        assertTrue(wdv.checkDistillery("glen").result());
+        assertEquals("Unknown distillery Glenfidich, did you mean Glenfiddich?", wdv.checkDistillery("Glenfidich").message());
+    }
 }